@@ -1,5 +1,7 @@
 package com.cg.quartz.annotaion;
 
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
+
 import java.lang.annotation.*;
 
 /**
@@ -23,4 +25,16 @@ public @interface ConcurrentExecution {
      * @see org.quartz.PersistJobDataAfterExecution
      */
     boolean value() default false;
+
+    /**
+     * 最大并发执行数(大于0时生效, 优先于value)
+     *
+     * @see Task#maxConcurrency()
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * 达到最大并发执行数时本次触发的处理策略
+     */
+    ConcurrencyPolicy policy() default ConcurrencyPolicy.SKIP;
 }
@@ -1,5 +1,6 @@
 package com.cg.quartz.annotaion;
 
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
 import org.springframework.stereotype.Component;
 
 import java.lang.annotation.*;
@@ -37,6 +38,21 @@ public @interface Task {
      */
     boolean allowConcurrent() default false;
 
+    /**
+     * <p>最大并发执行数(大于0时生效, 优先于allowConcurrent)</p>
+     * <pre>
+     *     同一任务同时执行数达到上限时按concurrencyPolicy处理本次触发, 用于IO密集任务并行执行但不压垮线程池或下游系统
+     *     持久化模式优先使用数据库配置(t_quartz_task.max_concurrency), 可通过TaskManagerApi#modifyJob运行时修改
+     * </pre>
+     * @see ConcurrencyPolicy
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * 达到最大并发执行数时本次触发的处理策略
+     */
+    ConcurrencyPolicy concurrencyPolicy() default ConcurrencyPolicy.SKIP;
+
     /**
      * 定时任务表达式
      * <pre>
@@ -51,4 +67,47 @@ public @interface Task {
      * 任务描述
      */
     String description() default "";
+
+    /**
+     * <p>是否在虚拟线程中执行(适用于数据库, http调用等IO密集任务)</p>
+     * <pre>
+     *     仅ElasticThreadPool且JVM支持虚拟线程(Java 21+)时生效, 否则仍使用调度线程池中的线程
+     *     并发执行上限见org.quartz.threadPool.virtualMaxConcurrency(quartz.thread-pool-virtual-max-concurrency)
+     * </pre>
+     * @see com.cg.quartz.pool.ElasticThreadPool
+     */
+    boolean virtualThread() default false;
+
+    /**
+     * <p>任务独立执行器名(舱壁隔离, 为空使用调度线程池)</p>
+     * <pre>
+     *     执行器由org.quartz.threadPool.executors(quartz.thread-pool-executors)定义, 如: report:2,sync:4
+     *     调度线程仅提交任务, 慢任务只占用所属执行器的线程; 执行器已满(线程全忙且队列已满)时跳过本次执行
+     *     持久化模式优先使用数据库配置(t_quartz_task.executor); 仅ElasticThreadPool时生效, 执行器不存在时使用调度线程池
+     * </pre>
+     * @see com.cg.quartz.pool.ElasticThreadPool
+     */
+    String executor() default "";
+
+    /**
+     * <p>分片总数(大于1时分片执行)</p>
+     * <pre>
+     *     一次触发拆分为shards个分片并行执行, 任务方法通过TaskContext.current().getShardIndex()/getShardTotal()获取本分片序号及分片总数
+     *     所有分片结束后本次执行才结束, 汇总结果见TaskShardResult; 持久化模式优先使用数据库配置(t_quartz_task.shards)
+     * </pre>
+     * @see com.cg.quartz.context.TaskContext
+     * @see com.cg.quartz.context.TaskShardResult
+     */
+    int shards() default 1;
+
+    /**
+     * <p>上游任务名(任务依赖, 为空时按cron独立调度)</p>
+     * <pre>
+     *     指定上游任务的任务不再注册cron触发器, 同一次运行中所有上游任务执行成功后由WorkflowJobListener触发, 无依赖关系的分支并行执行
+     *     入口任务(无上游)按自身cron触发, 开始一次运行; 任务失败时其下游不再执行, 可通过TaskManagerApi#resumeWorkflowRun从失败任务恢复
+     *     持久化模式优先使用数据库配置(t_quartz_task.depends_on, 逗号分隔)
+     * </pre>
+     * @see com.cg.quartz.listener.WorkflowJobListener
+     */
+    String[] dependsOn() default {};
 }
\ No newline at end of file
@@ -1,7 +1,14 @@
 package com.cg.quartz.api;
 
 import com.cg.quartz.api.req.JobReq;
+import com.cg.quartz.api.req.TaskLogQueryReq;
+import com.cg.quartz.api.req.TaskLogTailReq;
 import com.cg.quartz.api.resp.JobResp;
+import com.cg.quartz.api.resp.TaskLogPageResp;
+import com.cg.quartz.api.resp.TaskLogTailResp;
+import com.cg.quartz.api.resp.TaskLogStatisticsResp;
+import com.cg.quartz.api.resp.ThreadPoolStatisticsResp;
+import com.cg.quartz.api.resp.WorkflowRunResp;
 import com.cg.quartz.api.result.RpcResult;
 
 import java.rmi.Remote;
@@ -36,7 +43,7 @@ public interface TaskManagerApi extends Remote {
      *     正在运行: 修改任务相关信息及调度器中表达式(如果cron传入)
      *     未运行: 仅修改任务相关信息
      *     注意:
-     *     1 修改任务相关信息(表达式, 执行方法, 并发执行状态, 任务描述)仅支持持久化模式
+     *     1 修改任务相关信息(表达式, 执行方法, 并发执行状态, 任务描述, 日志收集等级及比例)仅支持持久化模式
      *     2 任务状态不在此接口修改, 并发状态和任务执行方法调度器未加载可生效，已加载则修改后需重启应用生效
      * </pre>
      *
@@ -80,6 +87,19 @@ public interface TaskManagerApi extends Remote {
      */
     RpcResult<Boolean> resumeAll() throws RemoteException;
 
+    /**
+     * 中断执行中的任务
+     * <pre>
+     *     取消任务执行中的所有本次执行: 并行处理(TaskContext#forEachParallel)中未开始的数据不再处理,
+     *     任务方法可通过TaskContext#isCancelled检查后提前结束; 不影响之后的触发
+     * </pre>
+     *
+     * @param job request params(job name, job group必传)
+     * @return 中断的执行数
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<Integer> interruptJob(JobReq job) throws RemoteException;
+
     /**
      * 删除某个任务(job name, job group必传)
      *
@@ -105,4 +125,87 @@ public interface TaskManagerApi extends Remote {
      * @throws RemoteException RemoteException
      */
     RpcResult<List<JobResp>> listJobMessages() throws RemoteException;
-}
\ No newline at end of file
+
+    /**
+     * 获取异步日志统计
+     * <pre>
+     *     按日志等级统计进入缓冲区, 被丢弃, 写入数据库成功及失败条数, 用于评估缓冲区容量及溢出策略
+     * </pre>
+     *
+     * @return 异步日志统计
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<TaskLogStatisticsResp> getTaskLogStatistics() throws RemoteException;
+
+    /**
+     * 获取调度线程池统计
+     * <pre>
+     *     当前/最大线程数, 执行中线程数, 等待空闲线程次数及时间, 用于评估线程池大小(仅ElasticThreadPool提供完整统计)
+     * </pre>
+     *
+     * @return 调度线程池统计
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<ThreadPoolStatisticsResp> getThreadPoolStatistics() throws RemoteException;
+
+    /**
+     * 分页查询任务日志(仅持久化模式)
+     * <pre>
+     *     按任务, 日志等级, 时间范围, 执行ID, 异常栈指纹查询, 按(create_time, id)游标分页, 不使用offset
+     *     首次查询不传pageToken, 之后传入上一页返回的nextPageToken, hasMore为false表示已查询到最后一页
+     *     正序查询到最后一页时nextPageToken仍有效, 定期使用该游标查询可持续拉取新写入的日志: 翻页范围为首次查询时已写入的日志,
+     *     之后写入的日志按自增id(写入顺序)拉取, 异步批量写入或溢出文件回放的迟到日志(日志时间早于已拉取的日志)不会遗漏;
+     *     新日志写入约2秒后可拉取到
+     * </pre>
+     *
+     * @param query 查询条件
+     * @return 日志分页
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<TaskLogPageResp> listTaskLogs(TaskLogQueryReq query) throws RemoteException;
+
+    /**
+     * 查询任务最近日志(内存, 不查询数据库, 内存模式同样可用)
+     * <pre>
+     *     每个任务在内存中保留最近quartz.log-recent-size条日志, 首次不传sinceSequence, 之后传入上次返回的nextSequence持续拉取
+     *     拉取间隔内日志条数超过保留条数时, 被覆盖的日志计入missed
+     * </pre>
+     *
+     * @param tail 查询条件(task必传)
+     * @return 最近日志
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<TaskLogTailResp> tailTaskLogs(TaskLogTailReq tail) throws RemoteException;
+
+    /**
+     * 获取任务依赖(工作流)运行记录(内存)
+     * <pre>
+     *     运行状态及每个任务的执行状态, 开始/结束时间, 失败原因; 最多保留quartz.workflow-run-retention条
+     * </pre>
+     *
+     * @return 运行记录(最近开始的在前)
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<List<WorkflowRunResp>> listWorkflowRuns() throws RemoteException;
+
+    /**
+     * 获取任务依赖(工作流)运行记录
+     *
+     * @param runId 运行ID
+     * @return 运行记录(不存在或已淘汰时data为null)
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<WorkflowRunResp> getWorkflowRun(String runId) throws RemoteException;
+
+    /**
+     * 从失败任务恢复任务依赖(工作流)运行
+     * <pre>
+     *     失败的任务在原运行中重新触发, 被跳过的任务在上游成功后依次触发, 已成功的任务不再执行; 仅状态为FAILED的运行可恢复
+     * </pre>
+     *
+     * @param runId 运行ID
+     * @return 重新触发的任务名
+     * @throws RemoteException RemoteException
+     */
+    RpcResult<List<String>> resumeWorkflowRun(String runId) throws RemoteException;
+}
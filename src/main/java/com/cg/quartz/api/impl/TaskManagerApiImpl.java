@@ -5,23 +5,42 @@ import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.cg.quartz.annotaion.Task;
 import com.cg.quartz.api.TaskManagerApi;
 import com.cg.quartz.api.req.JobReq;
+import com.cg.quartz.api.req.TaskLogQueryReq;
+import com.cg.quartz.api.req.TaskLogTailReq;
 import com.cg.quartz.api.resp.JobResp;
+import com.cg.quartz.api.resp.TaskLogPageResp;
+import com.cg.quartz.api.resp.TaskLogResp;
+import com.cg.quartz.api.resp.TaskLogStatisticsResp;
+import com.cg.quartz.api.resp.TaskLogTailResp;
+import com.cg.quartz.api.resp.ThreadPoolStatisticsResp;
+import com.cg.quartz.api.resp.WorkflowRunResp;
 import com.cg.quartz.api.result.RpcResult;
 import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
 import com.cg.quartz.constant.em.TaskStatus;
 import com.cg.quartz.entity.po.JobBO;
+import com.cg.quartz.entity.po.TaskLogPO;
 import com.cg.quartz.entity.po.TaskPO;
+import com.cg.quartz.exception.QuartzException;
+import com.cg.quartz.log.TaskLogHandler;
+import com.cg.quartz.log.TaskRecentLogIterator;
+import com.cg.quartz.pool.ElasticThreadPool;
 import com.cg.quartz.service.SchedulerManagerService;
+import com.cg.quartz.service.TaskLogStoreService;
 import com.cg.quartz.service.TaskStoreService;
 import com.cg.quartz.utils.Assert;
+import com.cg.quartz.utils.CompressUtils;
 import com.cg.quartz.utils.ObjectUtils;
 import com.cg.quartz.utils.SpringContextUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Job;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerMetaData;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
@@ -40,9 +59,15 @@ public class TaskManagerApiImpl extends UnicastRemoteObject implements TaskManag
     @Autowired
     private SchedulerManagerService schedulerManager;
 
+    @Autowired
+    private Scheduler scheduler;
+
     @Autowired(required = false)
     private TaskStoreService taskStoreService;
 
+    @Autowired(required = false)
+    private TaskLogStoreService logStoreService;
+
     protected TaskManagerApiImpl() throws RemoteException {
     }
 
@@ -77,19 +102,29 @@ public class TaskManagerApiImpl extends UnicastRemoteObject implements TaskManag
     public RpcResult<Boolean> modifyJob(JobReq job) {
         try {
             Assert.isTrue(ObjectUtils.notNull(job), "job request params is null");
-            log.info("[quartz], api request, modifyJob, trigger={}, trigger group={}, cron={}, method={}, desc={}, allowConcurrent={}, persistence={}",
-                    job.getTrigger(), job.getTriggerGroup(), job.getCronExpression(), job.getMethod(), job.getDescription(), job.getAllowConcurrent(), schedulerManager.getPersistenceStatus());
+            log.info("[quartz], api request, modifyJob, trigger={}, trigger group={}, cron={}, method={}, desc={}, allowConcurrent={}, maxConcurrency={}, concurrencyPolicy={}, persistence={}",
+                    job.getTrigger(), job.getTriggerGroup(), job.getCronExpression(), job.getMethod(), job.getDescription(), job.getAllowConcurrent(),
+                    job.getMaxConcurrency(), job.getConcurrencyPolicy(), schedulerManager.getPersistenceStatus());
             Assert.isTrue(ObjectUtils.notBlank(job.getTrigger()) && ObjectUtils.notBlank(job.getTriggerGroup()), "trigger name or group is null");
             boolean updateDataBaseResult = false;
+            ConcurrencyPolicy concurrencyPolicy = ObjectUtils.isBlank(job.getConcurrencyPolicy()) ? null : ConcurrencyPolicy.getPolicy(job.getConcurrencyPolicy());
 
-            // 持久化模式可更新task相关配置(method,allowConcurrent设置后需重启生效), 但不处理任务状态
+            // 持久化模式可更新task相关配置(method,allowConcurrent,executor,shards,dependsOn设置后需重启生效, 日志策略由配置自动刷新任务同步), 但不处理任务状态
             if (schedulerManager.getPersistenceStatus()) {
                 TaskPO updateTask = new TaskPO();
                 BeanUtils.copyProperties(job, updateTask);
                 Optional.ofNullable(job.getAllowConcurrent()).ifPresent(r -> updateTask.setAllowConcurrent(job.getAllowConcurrent() ? QuartzConstant.ONE : QuartzConstant.ZERO));
+                Optional.ofNullable(concurrencyPolicy).ifPresent(r -> updateTask.setConcurrencyPolicy(concurrencyPolicy.name()));
                 updateDataBaseResult = taskStoreService.update(updateTask, new UpdateWrapper<>(TaskPO.builder().taskName(job.getTrigger()).build()));
             }
 
+            // 最大并发执行数运行时生效(允许并发执行的任务)
+            boolean updateConcurrencyResult = false;
+            if (ObjectUtils.notNull(job.getMaxConcurrency()) || ObjectUtils.notNull(concurrencyPolicy)) {
+                String jobGroup = ObjectUtils.notBlank(job.getJobGroup()) ? job.getJobGroup() : QuartzConstant.DEFAULT_JOB_GROUP;
+                updateConcurrencyResult = schedulerManager.modifyConcurrency(job.getTrigger(), jobGroup, job.getMaxConcurrency(), concurrencyPolicy);
+            }
+
             // 若cron表达式为空无需更新调度器中Job
             if (ObjectUtils.isBlank(job.getCronExpression())) {
                 log.info("[quartz], api response, because the cron of {} is null, modify job ignored", job.getJobName());
@@ -97,7 +132,7 @@ public class TaskManagerApiImpl extends UnicastRemoteObject implements TaskManag
             }
             boolean updateSchedulerResult = schedulerManager.modifyJob(job.getTrigger(), job.getTriggerGroup(), job.getCronExpression());
             log.info("[quartz], modify job api response, trigger={}, result={}", job.getTrigger(), updateDataBaseResult, updateSchedulerResult);
-            return updateSchedulerResult || updateDataBaseResult ? RpcResult.buildSuccessResp(Boolean.TRUE) : RpcResult.buildFailResp(Boolean.FALSE);
+            return updateSchedulerResult || updateDataBaseResult || updateConcurrencyResult ? RpcResult.buildSuccessResp(Boolean.TRUE) : RpcResult.buildFailResp(Boolean.FALSE);
         } catch (Exception e) {
             log.error("[quartz], api invoke failed, modify job catch a exception, caused by ==>", e);
             return RpcResult.buildFailResp(null, e);
@@ -188,6 +223,20 @@ public class TaskManagerApiImpl extends UnicastRemoteObject implements TaskManag
         }
     }
 
+    @Override
+    public RpcResult<Integer> interruptJob(JobReq job) {
+        try {
+            logInAndBaseVerify(job, "interruptJob");
+            int interrupted = schedulerManager.interruptJob(job.getJobName(), job.getJobGroup());
+            log.info("[quartz], api response, interrupt job successfully, job name={}, job group={}, interrupted={}", job.getJobName(),
+                    job.getJobGroup(), interrupted);
+            return RpcResult.buildSuccessResp(interrupted);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, interrupt job catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
     @Override
     public RpcResult<Boolean> deleteJob(JobReq job) {
         try {
@@ -261,6 +310,210 @@ public class TaskManagerApiImpl extends UnicastRemoteObject implements TaskManag
         }
     }
 
+    @Override
+    public RpcResult<TaskLogStatisticsResp> getTaskLogStatistics() {
+        try {
+            log.info("[quartz], api request, get task log statistics");
+            TaskLogStatisticsResp statistics = TaskLogHandler.getStatistics();
+            log.info("[quartz], api response, get task log statistics, statistics={}", statistics);
+            return RpcResult.buildSuccessResp(statistics);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, get task log statistics catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    @Override
+    public RpcResult<ThreadPoolStatisticsResp> getThreadPoolStatistics() {
+        try {
+            log.info("[quartz], api request, get thread pool statistics");
+            ElasticThreadPool threadPool = ElasticThreadPool.get(scheduler.getSchedulerName());
+            ThreadPoolStatisticsResp statistics;
+            if (ObjectUtils.notNull(threadPool)) {
+                statistics = threadPool.getStatistics();
+            } else {
+                SchedulerMetaData metaData = scheduler.getMetaData();
+                statistics = new ThreadPoolStatisticsResp();
+                statistics.setPoolClass(metaData.getThreadPoolClass().getName());
+                statistics.setMaxPoolSize(metaData.getThreadPoolSize());
+            }
+            log.info("[quartz], api response, get thread pool statistics, statistics={}", statistics);
+            return RpcResult.buildSuccessResp(statistics);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, get thread pool statistics catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    @Override
+    public RpcResult<TaskLogPageResp> listTaskLogs(TaskLogQueryReq query) {
+        try {
+            Assert.notNull(query, "task log query params is null");
+            log.info("[quartz], api request, list task logs, query={}", query);
+            Assert.isTrue(ObjectUtils.notNull(logStoreService), "task log query is only supported in persistence mode");
+            int pageSize = ObjectUtils.isNull(query.getPageSize()) ? QuartzConstant.TASK_LOG_PAGE_SIZE :
+                    Math.min(Math.max(query.getPageSize(), QuartzConstant.ONE), QuartzConstant.TASK_LOG_MAX_PAGE_SIZE);
+            boolean ascending = Boolean.TRUE.equals(query.getAscending());
+            PageCursor cursor = ObjectUtils.notBlank(query.getPageToken()) ? decodePageToken(query.getPageToken()) : new PageCursor();
+            if (ascending && !cursor.tail && ObjectUtils.isNull(cursor.maxId)) {
+                // 首次正序查询记录已写入的最大id, 翻页仅查询该id及之前的日志, 之后写入的日志翻页结束后按id拉取
+                cursor.maxId = logStoreService.maxSettledId();
+            }
+
+            // 多查询一条判断是否还有下一页
+            List<TaskLogPO> logPos = cursor.tail ? logStoreService.listAfterId(query, cursor.afterId, pageSize + 1)
+                    : logStoreService.listByCursor(query, cursor.afterTime, cursor.afterId, cursor.maxId, pageSize + 1);
+            TaskLogPageResp page = new TaskLogPageResp();
+            page.setHasMore(logPos.size() > pageSize);
+            List<TaskLogResp> logs = new ArrayList<>(Math.min(logPos.size(), pageSize));
+            for (int i = 0; i < logPos.size() && i < pageSize; i++) {
+                TaskLogResp logResp = new TaskLogResp();
+                BeanUtils.copyProperties(logPos.get(i), logResp);
+                // 超长日志解压完整内容
+                if (ObjectUtils.notNull(logPos.get(i).getContentOverflow())) {
+                    logResp.setContent(CompressUtils.inflate(logPos.get(i).getContentOverflow()));
+                }
+                logs.add(logResp);
+            }
+            page.setLogs(logs);
+            // 正序查询到最后一页后返回按id拉取的游标(无新日志时返回原游标), 用于持续拉取新写入的日志
+            TaskLogResp last = ObjectUtils.isEmpty(logs) ? null : logs.get(logs.size() - 1);
+            if (cursor.tail) {
+                page.setNextPageToken(ObjectUtils.isNull(last) ? query.getPageToken() : encodeTailToken(last.getId()));
+            } else if (page.getHasMore()) {
+                page.setNextPageToken(encodePageToken(last.getCreateTime(), last.getId(), cursor.maxId));
+            } else if (ascending) {
+                page.setNextPageToken(encodeTailToken(cursor.maxId));
+            }
+            log.info("[quartz], api response, list task logs, size={}, hasMore={}", logs.size(), page.getHasMore());
+            return RpcResult.buildSuccessResp(page);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, list task logs catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    @Override
+    public RpcResult<TaskLogTailResp> tailTaskLogs(TaskLogTailReq tail) {
+        try {
+            Assert.notNull(tail, "task log tail params is null");
+            Assert.notBlank(tail.getTask(), "task is null");
+            int limit = ObjectUtils.isNull(tail.getLimit()) ? QuartzConstant.TASK_LOG_PAGE_SIZE :
+                    Math.min(Math.max(tail.getLimit(), QuartzConstant.ONE), QuartzConstant.TASK_LOG_MAX_PAGE_SIZE);
+            TaskRecentLogIterator iterator = TaskLogHandler.recentLogs(tail.getTask(),
+                    ObjectUtils.isNull(tail.getSinceSequence()) ? QuartzConstant.ZERO : tail.getSinceSequence());
+            List<TaskLogResp> logs = new ArrayList<>(Math.min(limit, 16));
+            while (logs.size() < limit && iterator.hasNext()) {
+                logs.add(iterator.next());
+            }
+            TaskLogTailResp tailResp = new TaskLogTailResp();
+            tailResp.setLogs(logs);
+            tailResp.setNextSequence(iterator.getSequence());
+            tailResp.setMissed(iterator.getMissed());
+            return RpcResult.buildSuccessResp(tailResp);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, tail task logs catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    @Override
+    public RpcResult<List<WorkflowRunResp>> listWorkflowRuns() {
+        try {
+            log.info("[quartz], api request, list workflow runs");
+            return RpcResult.buildSuccessResp(schedulerManager.listWorkflowRuns());
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, list workflow runs catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    @Override
+    public RpcResult<WorkflowRunResp> getWorkflowRun(String runId) {
+        try {
+            log.info("[quartz], api request, get workflow run, runId={}", runId);
+            WorkflowRunResp run = schedulerManager.getWorkflowRun(runId);
+            log.info("[quartz], api response, get workflow run, run={}", run);
+            return RpcResult.buildSuccessResp(run);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, get workflow run catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    @Override
+    public RpcResult<List<String>> resumeWorkflowRun(String runId) {
+        try {
+            log.info("[quartz], api request, resume workflow run, runId={}", runId);
+            List<String> resumed = schedulerManager.resumeWorkflowRun(runId);
+            log.info("[quartz], api response, resume workflow run, runId={}, jobs={}", runId, resumed);
+            return RpcResult.buildSuccessResp(resumed);
+        } catch (Exception e) {
+            log.error("[quartz], api invoke failed, resume workflow run catch a exception, caused by ==>", e);
+            return RpcResult.buildFailResp(null, e);
+        }
+    }
+
+    /**
+     * 生成分页游标(最后一条日志的create_time及id, 正序查询带最大id)
+     */
+    private String encodePageToken(Date createTime, Integer id, Integer maxId) {
+        String cursor = Long.toString(createTime.getTime(), Character.MAX_RADIX) + "." + Integer.toString(id, Character.MAX_RADIX)
+                + (ObjectUtils.isNull(maxId) ? QuartzConstant.EMPTY_STRING : "." + Integer.toString(maxId, Character.MAX_RADIX));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 生成按id拉取新日志的游标(最后拉取的日志id)
+     */
+    private String encodeTailToken(int id) {
+        String cursor = "~" + Integer.toString(id, Character.MAX_RADIX);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析分页游标
+     */
+    private PageCursor decodePageToken(String pageToken) {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.US_ASCII);
+            PageCursor cursor = new PageCursor();
+            if (token.startsWith("~")) {
+                cursor.tail = true;
+                cursor.afterId = Integer.parseInt(token.substring(1), Character.MAX_RADIX);
+                return cursor;
+            }
+            String[] parts = token.split("\\.");
+            cursor.afterTime = new Date(Long.parseLong(parts[0], Character.MAX_RADIX));
+            cursor.afterId = Integer.parseInt(parts[1], Character.MAX_RADIX);
+            cursor.maxId = parts.length > 2 ? Integer.parseInt(parts[2], Character.MAX_RADIX) : null;
+            return cursor;
+        } catch (Exception e) {
+            throw new QuartzException("illegal page token: " + pageToken);
+        }
+    }
+
+    /**
+     * 日志分页游标
+     * <pre>
+     *     翻页: 按(create_time, id)查询游标之后(正序)或之前(倒序)的日志, 正序查询时仅查询首次查询时已写入的日志(id不大于maxId)
+     *     拉取新日志: 正序查询翻页结束后按id查询之后写入的日志, 日志时间早于游标的迟到日志同样可以拉取到
+     * </pre>
+     */
+    private static final class PageCursor {
+
+        private Date afterTime;
+
+        private Integer afterId;
+
+        private Integer maxId;
+
+        /**
+         * 是否按id拉取新日志
+         */
+        private boolean tail;
+    }
+
     /**
      * 入参日志打印和基本参数检查
      *
@@ -291,9 +544,16 @@ public class TaskManagerApiImpl extends UnicastRemoteObject implements TaskManag
             target.setTrigger(source.getTaskName());
             target.setStatus(TaskStatus.getTaskStatus(source.getStatus()));
             target.setAllowConcurrent(TaskStatus.ENABLE.getCode() == source.getAllowConcurrent());
+            target.setMaxConcurrency(source.getMaxConcurrency());
+            target.setConcurrencyPolicy(ObjectUtils.isNull(source.getMaxConcurrency()) ? null : ConcurrencyPolicy.getPolicy(source.getConcurrencyPolicy()));
 
             target.setMethod(source.getMethod());
             target.setDescription(source.getDescription());
+            target.setLogLevel(source.getLogLevel());
+            target.setLogSampleRate(source.getLogSampleRate());
+            target.setExecutor(source.getExecutor());
+            target.setShards(source.getShards());
+            target.setDependsOn(source.getDependsOn());
             target.setCronExpression(source.getCronExpression());
             target.setCreateTime(source.getCreateTime());
             target.setUpdateTime(source.getUpdateTime());
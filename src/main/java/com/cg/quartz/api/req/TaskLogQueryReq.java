@@ -0,0 +1,84 @@
+package com.cg.quartz.api.req;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 任务日志查询request bo
+ * <pre>
+ *     按(create_time, id)游标分页: 首次查询不传pageToken, 之后传入上一页返回的nextPageToken
+ *     查询条件须与首次查询保持一致, 修改查询条件需重新从首页查询
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/2
+ */
+@Setter
+@Getter
+@ToString
+@NoArgsConstructor
+public class TaskLogQueryReq implements Serializable {
+
+    /**
+     * 任务名
+     */
+    private String task;
+
+    /**
+     * 日志等级(INFO, WARN, ERROR)
+     *
+     * @see com.cg.quartz.annotaion.TaskLog.LogLevel
+     */
+    private String level;
+
+    /**
+     * 结构化日志事件名
+     */
+    private String event;
+
+    /**
+     * 开始时间(包含)
+     */
+    private Date startTime;
+
+    /**
+     * 结束时间(不包含)
+     */
+    private Date endTime;
+
+    /**
+     * 执行ID(查询某次执行的全部日志)
+     */
+    private String fireInstanceId;
+
+    /**
+     * 异常栈指纹(查询某类异常的全部日志)
+     */
+    private String traceFingerprint;
+
+    /**
+     * 是否按时间正序(默认false: 最新日志在前)
+     * <p>正序查询到最后一页时仍返回nextPageToken, 可用于持续拉取新日志(按写入顺序返回, 不按时间排序)</p>
+     */
+    private Boolean ascending;
+
+    /**
+     * 每页条数(默认100, 最大1000)
+     */
+    private Integer pageSize;
+
+    /**
+     * 分页游标(上一页返回的nextPageToken)
+     */
+    private String pageToken;
+
+    public TaskLogQueryReq(String task) {
+        this.task = task;
+    }
+}
@@ -0,0 +1,42 @@
+package com.cg.quartz.api.req;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 任务最近日志查询request bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/3
+ */
+@Setter
+@Getter
+@ToString
+@NoArgsConstructor
+public class TaskLogTailReq implements Serializable {
+
+    /**
+     * 任务名
+     */
+    private String task;
+
+    /**
+     * 从该序号之后开始读取(首次不传, 之后传入上次返回的nextSequence)
+     */
+    private Long sinceSequence;
+
+    /**
+     * 最多返回条数(默认100, 最大1000)
+     */
+    private Integer limit;
+
+    public TaskLogTailReq(String task, Long sinceSequence) {
+        this.task = task;
+        this.sinceSequence = sinceSequence;
+    }
+}
@@ -1,5 +1,6 @@
 package com.cg.quartz.api.resp;
 
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
 import com.cg.quartz.constant.em.TaskStatus;
 import lombok.Getter;
 import lombok.Setter;
@@ -59,6 +60,20 @@ public class JobResp implements Serializable {
      */
     private Boolean allowConcurrent;
 
+    /**
+     * 最大并发执行数(大于0时生效, 优先于allowConcurrent)
+     *
+     * @see com.cg.quartz.annotaion.Task#maxConcurrency()
+     */
+    private Integer maxConcurrency;
+
+    /**
+     * 达到最大并发执行数时本次触发的处理策略(SKIP, QUEUE, COALESCE, 为空为SKIP)
+     *
+     * @see ConcurrencyPolicy
+     */
+    private ConcurrencyPolicy concurrencyPolicy;
+
     /**
      * 任务状态
      */
@@ -69,6 +84,39 @@ public class JobResp implements Serializable {
      */
     private String description;
 
+    /**
+     * 任务日志最低收集等级(INFO, WARN, ERROR, 为空收集全部等级)
+     *
+     * @see com.cg.quartz.annotaion.TaskLog.LogLevel
+     */
+    private String logLevel;
+
+    /**
+     * 任务INFO日志收集比例(0~1, 如0.01收集1%, 为空全部收集)
+     */
+    private Double logSampleRate;
+
+    /**
+     * 任务独立执行器名(为空使用调度线程池)
+     *
+     * @see com.cg.quartz.annotaion.Task#executor()
+     */
+    private String executor;
+
+    /**
+     * 分片总数(大于1时一次触发拆分为多个分片并行执行, 仅@Task任务)
+     *
+     * @see com.cg.quartz.annotaion.Task#shards()
+     */
+    private Integer shards;
+
+    /**
+     * 上游任务名(逗号分隔, 为空时按cron独立调度)
+     *
+     * @see com.cg.quartz.annotaion.Task#dependsOn()
+     */
+    private String dependsOn;
+
     /**
      * 创建时间
      */
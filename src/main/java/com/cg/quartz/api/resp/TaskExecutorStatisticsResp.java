@@ -0,0 +1,66 @@
+package com.cg.quartz.api.resp;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 任务独立执行器统计response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ * @see ThreadPoolStatisticsResp#getExecutors()
+ */
+@Setter
+@Getter
+@ToString
+public class TaskExecutorStatisticsResp implements Serializable {
+
+    /**
+     * 执行器名
+     */
+    private String name;
+
+    /**
+     * 线程数
+     */
+    private Integer poolSize;
+
+    /**
+     * 执行中线程数
+     */
+    private Integer activeThreads;
+
+    /**
+     * 排队任务数
+     */
+    private Integer queued;
+
+    /**
+     * 排队上限
+     */
+    private Integer queueCapacity;
+
+    /**
+     * 已执行完成任务数
+     */
+    private Long completed;
+
+    /**
+     * 拒绝次数(执行器已满, 跳过执行)
+     */
+    private Long rejected;
+
+    /**
+     * 排队等待总时间(毫秒)
+     */
+    private Long waitMs;
+
+    /**
+     * 排队等待最长时间(毫秒)
+     */
+    private Long maxWaitMs;
+}
@@ -0,0 +1,36 @@
+package com.cg.quartz.api.resp;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 任务日志分页response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/2
+ */
+@Setter
+@Getter
+@ToString
+public class TaskLogPageResp implements Serializable {
+
+    /**
+     * 本页日志
+     */
+    private List<TaskLogResp> logs;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标(倒序查询到最后一页为null, 正序查询到最后一页为拉取新日志的游标)
+     */
+    private String nextPageToken;
+}
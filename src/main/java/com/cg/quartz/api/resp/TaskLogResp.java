@@ -0,0 +1,88 @@
+package com.cg.quartz.api.resp;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 任务日志response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/2
+ */
+@Setter
+@Getter
+@ToString
+public class TaskLogResp implements Serializable {
+
+    private Integer id;
+
+    /**
+     * 日志等级
+     */
+    private String type;
+
+    /**
+     * 日志线程
+     */
+    private String thread;
+
+    /**
+     * 任务类名
+     */
+    private String className;
+
+    /**
+     * 任务名
+     */
+    private String task;
+
+    /**
+     * 日志内容
+     */
+    private String content;
+
+    /**
+     * 结构化日志事件名
+     */
+    private String event;
+
+    /**
+     * 结构化日志键值对(JSON)
+     */
+    private String kv;
+
+    /**
+     * 结构化日志耗时(毫秒)
+     */
+    private Long elapsedMs;
+
+    /**
+     * 执行ID
+     */
+    private String fireInstanceId;
+
+    /**
+     * 本次执行内日志序号
+     */
+    private Integer sequence;
+
+    /**
+     * 异常栈指纹
+     */
+    private String traceFingerprint;
+
+    /**
+     * 该异常栈第几次出现
+     */
+    private Long traceOccurrence;
+
+    /**
+     * 日志时间
+     */
+    private Date createTime;
+}
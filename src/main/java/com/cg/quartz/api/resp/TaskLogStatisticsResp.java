@@ -0,0 +1,78 @@
+package com.cg.quartz.api.resp;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 异步日志统计response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/25
+ */
+@Setter
+@Getter
+@ToString
+public class TaskLogStatisticsResp implements Serializable {
+
+    /**
+     * 是否异步日志
+     */
+    private Boolean asyncLog;
+
+    /**
+     * 缓冲区已满处理策略
+     *
+     * @see com.cg.quartz.constant.em.TaskLogOverflowPolicy
+     */
+    private String overflowPolicy;
+
+    /**
+     * 缓冲区容量
+     */
+    private Integer capacity;
+
+    /**
+     * 缓冲区中待写入日志条数(近似值)
+     */
+    private Integer pending;
+
+    /**
+     * 溢出文件中未回放完的分段数(未启用溢出文件为null)
+     */
+    private Integer spillSegments;
+
+    /**
+     * 成功进入缓冲区条数(key: 日志等级)
+     */
+    private Map<String, Long> queued;
+
+    /**
+     * 缓冲区已满被丢弃条数(key: 日志等级)
+     */
+    private Map<String, Long> dropped;
+
+    /**
+     * 成功写入数据库条数(key: 日志等级)
+     */
+    private Map<String, Long> persisted;
+
+    /**
+     * 写入数据库失败且未写入溢出文件条数(key: 日志等级)
+     */
+    private Map<String, Long> failed;
+
+    /**
+     * 写入溢出文件条数(key: 日志等级)
+     */
+    private Map<String, Long> spilled;
+
+    /**
+     * 从溢出文件回放到数据库条数(key: 日志等级)
+     */
+    private Map<String, Long> replayed;
+}
@@ -0,0 +1,36 @@
+package com.cg.quartz.api.resp;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 任务最近日志response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/3
+ */
+@Setter
+@Getter
+@ToString
+public class TaskLogTailResp implements Serializable {
+
+    /**
+     * 日志(按写入顺序)
+     */
+    private List<TaskLogResp> logs;
+
+    /**
+     * 下次读取传入的序号
+     */
+    private Long nextSequence;
+
+    /**
+     * 读取前已被覆盖(未读取到)的日志条数
+     */
+    private Long missed;
+}
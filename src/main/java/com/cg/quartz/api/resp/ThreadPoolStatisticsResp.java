@@ -0,0 +1,111 @@
+package com.cg.quartz.api.resp;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 调度线程池统计response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/9
+ */
+@Setter
+@Getter
+@ToString
+public class ThreadPoolStatisticsResp implements Serializable {
+
+    /**
+     * 线程池类型
+     */
+    private String poolClass;
+
+    /**
+     * 核心线程数(非ElasticThreadPool为null)
+     */
+    private Integer corePoolSize;
+
+    /**
+     * 最大线程数
+     */
+    private Integer maxPoolSize;
+
+    /**
+     * 当前线程数(非ElasticThreadPool为null, 下同)
+     */
+    private Integer poolSize;
+
+    /**
+     * 历史最大线程数
+     */
+    private Integer largestPoolSize;
+
+    /**
+     * 执行中线程数
+     */
+    private Integer busyThreads;
+
+    /**
+     * 空闲线程数
+     */
+    private Integer idleThreads;
+
+    /**
+     * 已执行完成任务数
+     */
+    private Long completed;
+
+    /**
+     * 等待空闲线程次数(线程数已达上限)
+     */
+    private Long blocked;
+
+    /**
+     * 等待空闲线程总时间(毫秒)
+     */
+    private Long waitMs;
+
+    /**
+     * 等待空闲线程最长时间(毫秒)
+     */
+    private Long maxWaitMs;
+
+    /**
+     * 拒绝次数(无法创建线程且无已有线程)
+     */
+    private Long rejected;
+
+    /**
+     * 是否所有任务使用虚拟线程
+     */
+    private Boolean virtualThreads;
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    private Boolean virtualSupported;
+
+    /**
+     * 虚拟线程中执行中任务数
+     */
+    private Integer virtualRunning;
+
+    /**
+     * 虚拟线程并发执行上限
+     */
+    private Integer virtualMaxConcurrency;
+
+    /**
+     * 指定使用虚拟线程的任务达到并发执行上限后由平台线程执行的次数
+     */
+    private Long virtualOverflow;
+
+    /**
+     * 任务独立执行器统计(未配置为空)
+     */
+    private List<TaskExecutorStatisticsResp> executors;
+}
@@ -0,0 +1,59 @@
+package com.cg.quartz.api.resp;
+
+import com.cg.quartz.constant.em.WorkflowStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 任务依赖(工作流)运行中单个任务执行情况response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ * @see WorkflowRunResp#getNodes()
+ */
+@Setter
+@Getter
+@ToString
+public class WorkflowNodeResp implements Serializable {
+
+    /**
+     * 任务名
+     */
+    private String jobName;
+
+    /**
+     * 上游任务名
+     */
+    private List<String> dependsOn;
+
+    /**
+     * 执行状态
+     */
+    private WorkflowStatus status;
+
+    /**
+     * 执行ID(最近一次执行)
+     */
+    private String fireInstanceId;
+
+    /**
+     * 开始时间
+     */
+    private Date startTime;
+
+    /**
+     * 结束时间
+     */
+    private Date endTime;
+
+    /**
+     * 失败原因
+     */
+    private String error;
+}
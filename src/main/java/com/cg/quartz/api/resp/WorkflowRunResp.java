@@ -0,0 +1,58 @@
+package com.cg.quartz.api.resp;
+
+import com.cg.quartz.constant.em.WorkflowStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 任务依赖(工作流)运行response bo
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+@Setter
+@Getter
+@ToString
+public class WorkflowRunResp implements Serializable {
+
+    /**
+     * 运行ID
+     */
+    private String runId;
+
+    /**
+     * 工作流名(入口任务名, 逗号分隔)
+     */
+    private String workflow;
+
+    /**
+     * 运行状态(所有任务结束前为RUNNING, 有任务失败或跳过为FAILED)
+     */
+    private WorkflowStatus status;
+
+    /**
+     * 开始时间
+     */
+    private Date startTime;
+
+    /**
+     * 结束时间
+     */
+    private Date endTime;
+
+    /**
+     * 恢复次数
+     */
+    private Integer resumed;
+
+    /**
+     * 各任务执行情况(按依赖顺序)
+     */
+    private List<WorkflowNodeResp> nodes;
+}
@@ -1,6 +1,11 @@
 package com.cg.quartz.conf;
 
+import com.cg.quartz.constant.QuartzConstant;
 import com.cg.quartz.exception.QuartzException;
+import com.cg.quartz.listener.JobRegistryListener;
+import com.cg.quartz.listener.TaskExecutionJobListener;
+import com.cg.quartz.listener.WorkflowJobListener;
+import com.cg.quartz.utils.ObjectUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Scheduler;
 import org.quartz.spi.JobFactory;
@@ -8,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.PropertiesFactoryBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 
@@ -28,6 +34,18 @@ public class QuartzConfig {
     @Autowired
     private JobFactory jobFactory;
 
+    @Autowired
+    private TaskExecutionJobListener taskExecutionJobListener;
+
+    @Autowired
+    private JobRegistryListener jobRegistryListener;
+
+    @Autowired
+    private WorkflowJobListener workflowJobListener;
+
+    @Autowired
+    private Environment environment;
+
     @Bean
     public Scheduler scheduler() {
         return schedulerFactoryBean().getScheduler();
@@ -40,6 +58,10 @@ public class QuartzConfig {
             schedulerFactoryBean.setOverwriteExistingJobs(true);
             schedulerFactoryBean.setQuartzProperties(quartzProperties());
             schedulerFactoryBean.setJobFactory(jobFactory);
+            // jobRegistryListener须为第一个任务监听器: 监听器抛出异常时之后的监听器及triggerComplete不再回调, 先释放执行准入
+            schedulerFactoryBean.setGlobalJobListeners(jobRegistryListener, taskExecutionJobListener, workflowJobListener);
+            schedulerFactoryBean.setGlobalTriggerListeners(jobRegistryListener);
+            schedulerFactoryBean.setSchedulerListeners(jobRegistryListener, workflowJobListener);
         } catch (Exception e) {
             log.error("[quartz] SchedulerFactoryBean init catch a exception, caused by ==>", e.getMessage());
             throw new QuartzException(e);
@@ -52,7 +74,24 @@ public class QuartzConfig {
         PropertiesFactoryBean propertiesFactoryBean = new PropertiesFactoryBean();
         propertiesFactoryBean.setLocation(new ClassPathResource("quartz.properties"));
         propertiesFactoryBean.afterPropertiesSet();
-        return propertiesFactoryBean.getObject();
+        Properties properties = propertiesFactoryBean.getObject();
+
+        // spring配置的线程池大小优先(使用ElasticThreadPool时生效)
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_CORE_SIZE, "org.quartz.threadPool.corePoolSize");
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_MAX_SIZE, "org.quartz.threadPool.maxPoolSize");
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_KEEP_ALIVE_MS, "org.quartz.threadPool.keepAliveMs");
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_VIRTUAL_THREADS, "org.quartz.threadPool.virtualThreads");
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_VIRTUAL_MAX_CONCURRENCY, "org.quartz.threadPool.virtualMaxConcurrency");
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_EXECUTORS, "org.quartz.threadPool.executors");
+        overrideProperty(properties, QuartzConstant.THREAD_POOL_EXECUTOR_QUEUE_CAPACITY, "org.quartz.threadPool.executorQueueCapacity");
+        return properties;
+    }
+
+    private void overrideProperty(Properties properties, String configKey, String propertyKey) {
+        String value = environment.getProperty(configKey);
+        if (ObjectUtils.notBlank(value)) {
+            properties.setProperty(propertyKey, value.trim());
+        }
     }
 
 }
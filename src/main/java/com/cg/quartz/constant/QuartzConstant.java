@@ -29,6 +29,16 @@ public class QuartzConstant {
      */
     public static final String CONFIG_AUTO_REFRESH_TASK = "configAutoRefreshTask";
 
+    /**
+     * 任务日志清理定时任务
+     */
+    public static final String TASK_LOG_RETENTION_TASK = "taskLogRetentionTask";
+
+    /**
+     * 任务日志清理默认表达式(每天03:30)
+     */
+    public static final String TASK_LOG_RETENTION_CRON = "0 30 3 * * ?";
+
     /**
      * 默认表达式
      */
@@ -80,6 +90,182 @@ public class QuartzConstant {
      */
     public static final String ENABLE_ASYNC_LOG = "quartz.enable-async-log";
 
+    /**
+     * 异步日志单批写入条数(spring config)
+     */
+    public static final String ASYNC_LOG_BATCH_SIZE = "quartz.async-log-batch-size";
+
+    /**
+     * 异步日志攒批等待时间, 单位毫秒(spring config)
+     */
+    public static final String ASYNC_LOG_LINGER_MS = "quartz.async-log-linger-ms";
+
+    /**
+     * 异步日志队列容量(spring config)
+     */
+    public static final String ASYNC_LOG_QUEUE_CAPACITY = "quartz.async-log-queue-capacity";
+
+    /**
+     * 异步日志写入线程数(spring config)
+     */
+    public static final String ASYNC_LOG_WRITER_THREADS = "quartz.async-log-writer-threads";
+
+    /**
+     * 异步日志缓冲区已满处理策略(spring config)
+     * @see com.cg.quartz.constant.em.TaskLogOverflowPolicy
+     */
+    public static final String ASYNC_LOG_OVERFLOW_POLICY = "quartz.async-log-overflow-policy";
+
+    /**
+     * 异步日志BLOCK策略最长等待时间, 单位毫秒(spring config)
+     */
+    public static final String ASYNC_LOG_BLOCK_TIMEOUT_MS = "quartz.async-log-block-timeout-ms";
+
+    /**
+     * 异步日志DROP_BELOW_LEVEL策略保留的最低日志等级(spring config)
+     */
+    public static final String ASYNC_LOG_DROP_LEVEL = "quartz.async-log-drop-level";
+
+    /**
+     * 异步日志溢出文件目录(spring config)
+     */
+    public static final String ASYNC_LOG_SPILL_DIR = "quartz.async-log-spill-dir";
+
+    /**
+     * 异步日志溢出文件分段大小, 单位字节(spring config)
+     */
+    public static final String ASYNC_LOG_SPILL_SEGMENT_SIZE = "quartz.async-log-spill-segment-size";
+
+    /**
+     * 异步日志溢出文件最大分段数(spring config)
+     */
+    public static final String ASYNC_LOG_SPILL_MAX_SEGMENTS = "quartz.async-log-spill-max-segments";
+
+    /**
+     * 异步日志溢出文件回放重试间隔, 单位毫秒(spring config)
+     */
+    public static final String ASYNC_LOG_SPILL_REPLAY_INTERVAL_MS = "quartz.async-log-spill-replay-interval-ms";
+
+    /**
+     * 异常日志每个异常最多输出帧数(spring config)
+     */
+    public static final String LOG_TRACE_MAX_FRAMES = "quartz.log-trace-max-frames";
+
+    /**
+     * 异常日志最多输出cause层数(spring config)
+     */
+    public static final String LOG_TRACE_MAX_CAUSE_DEPTH = "quartz.log-trace-max-cause-depth";
+
+    /**
+     * 异常日志合并输出的包名前缀, 逗号分隔(spring config)
+     */
+    public static final String LOG_TRACE_COLLAPSED_PACKAGES = "quartz.log-trace-collapsed-packages";
+
+    /**
+     * 任务日志内容最大长度(spring config)
+     */
+    public static final String LOG_CONTENT_MAX_LENGTH = "quartz.log-content-max-length";
+
+    /**
+     * 任务日志内容压缩存储阈值(spring config)
+     */
+    public static final String LOG_CONTENT_OVERFLOW_THRESHOLD = "quartz.log-content-overflow-threshold";
+
+    /**
+     * 每个任务在内存中保留的最近日志条数, 小于等于0不启用(spring config)
+     */
+    public static final String LOG_RECENT_SIZE = "quartz.log-recent-size";
+
+    /**
+     * 内存中保留的最近日志总条数上限(spring config)
+     */
+    public static final String LOG_RECENT_MAX_ENTRIES = "quartz.log-recent-max-entries";
+
+    /**
+     * 任务日志默认保留天数, 小于等于0不清理(spring config)
+     */
+    public static final String LOG_RETENTION_DAYS = "quartz.log-retention-days";
+
+    /**
+     * 各日志等级保留天数, 格式: INFO:7,ERROR:90(spring config)
+     */
+    public static final String LOG_RETENTION_LEVEL_DAYS = "quartz.log-retention-level-days";
+
+    /**
+     * 各任务保留天数, 格式: taskName:3,taskName:180(spring config)
+     */
+    public static final String LOG_RETENTION_TASK_DAYS = "quartz.log-retention-task-days";
+
+    /**
+     * 任务日志清理单批条数(spring config)
+     */
+    public static final String LOG_RETENTION_CHUNK_SIZE = "quartz.log-retention-chunk-size";
+
+    /**
+     * 任务日志清理批次间暂停时间, 单位毫秒(spring config)
+     */
+    public static final String LOG_RETENTION_CHUNK_PAUSE_MS = "quartz.log-retention-chunk-pause-ms";
+
+    /**
+     * 任务日志清理归档目录, 为空不归档(spring config)
+     */
+    public static final String LOG_RETENTION_ARCHIVE_DIR = "quartz.log-retention-archive-dir";
+
+    /**
+     * 调度线程池核心线程数(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_CORE_SIZE = "quartz.thread-pool-core-size";
+
+    /**
+     * 调度线程池最大线程数(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_MAX_SIZE = "quartz.thread-pool-max-size";
+
+    /**
+     * 调度线程池超过核心线程数的线程空闲退出时间(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_KEEP_ALIVE_MS = "quartz.thread-pool-keep-alive-ms";
+
+    /**
+     * 调度线程池所有任务使用虚拟线程(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_VIRTUAL_THREADS = "quartz.thread-pool-virtual-threads";
+
+    /**
+     * 调度线程池指定使用虚拟线程任务的并发执行上限(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_VIRTUAL_MAX_CONCURRENCY = "quartz.thread-pool-virtual-max-concurrency";
+
+    /**
+     * 任务独立执行器定义, 执行器名:线程数, 逗号分隔(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_EXECUTORS = "quartz.thread-pool-executors";
+
+    /**
+     * 任务独立执行器排队上限(spring config, 优先于quartz.properties)
+     */
+    public static final String THREAD_POOL_EXECUTOR_QUEUE_CAPACITY = "quartz.thread-pool-executor-queue-capacity";
+
+    /**
+     * 任务达到最大并发执行数时(ConcurrencyPolicy.QUEUE)每个任务的排队上限(spring config)
+     */
+    public static final String CONCURRENCY_QUEUE_DEPTH = "quartz.concurrency-queue-depth";
+
+    /**
+     * 任务内并行处理(TaskContext#forEachParallel)线程池并行度(spring config)
+     */
+    public static final String TASK_PARALLELISM = "quartz.task-parallelism";
+
+    /**
+     * 分片执行(@Task#shards)线程池最大线程数(spring config)
+     */
+    public static final String SHARD_POOL_SIZE = "quartz.shard-pool-size";
+
+    /**
+     * 任务依赖(工作流)在内存中保留的运行记录数(spring config)
+     */
+    public static final String WORKFLOW_RUN_RETENTION = "quartz.workflow-run-retention";
+
     /**
      * 处理游离任务标识(spring config)
      */
@@ -90,6 +276,46 @@ public class QuartzConstant {
      */
     public static final String ERROR_PARSE_LOG = "Parse Log Template Error";
 
+    /**
+     * 任务日志内容最大长度(t_quartz_task_log.content字段长度)
+     */
+    public static final int TASK_LOG_CONTENT_MAX_LENGTH = 2048;
+
+    /**
+     * 结构化日志键值对最大长度(t_quartz_task_log.kv字段长度)
+     */
+    public static final int TASK_LOG_KV_MAX_LENGTH = 1024;
+
+    /**
+     * 任务日志等级最大长度(t_quartz_task_log.type字段长度)
+     */
+    public static final int TASK_LOG_TYPE_MAX_LENGTH = 6;
+
+    /**
+     * 任务日志线程名, 类名, 任务名, 执行ID最大长度(t_quartz_task_log对应字段长度)
+     */
+    public static final int TASK_LOG_NAME_MAX_LENGTH = 64;
+
+    /**
+     * 结构化日志事件名最大长度(t_quartz_task_log.event字段长度)
+     */
+    public static final int TASK_LOG_EVENT_MAX_LENGTH = 64;
+
+    /**
+     * 任务日志查询默认每页条数
+     */
+    public static final int TASK_LOG_PAGE_SIZE = 100;
+
+    /**
+     * 任务日志查询最大每页条数
+     */
+    public static final int TASK_LOG_MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 按id拉取新日志时仅返回写入超过该秒数的日志(多个写入线程并发提交时, 较小id可能晚于较大id可见)
+     */
+    public static final int TASK_LOG_TAIL_SETTLE_SECONDS = 2;
+
     /**
      * 异常日志头
      */
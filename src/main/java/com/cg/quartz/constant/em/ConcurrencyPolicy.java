@@ -0,0 +1,41 @@
+package com.cg.quartz.constant.em;
+
+/**
+ * 任务执行数达到并发上限(maxConcurrency)时本次触发的处理策略
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+public enum ConcurrencyPolicy {
+    /**
+     * 跳过本次执行(默认)
+     */
+    SKIP,
+    /**
+     * 排队等待, 有执行完成时补执行, 排队数超过上限(quartz.concurrency-queue-depth)时跳过
+     */
+    QUEUE,
+    /**
+     * 合并: 达到上限期间的多次触发合并为一次, 有执行完成时补执行一次
+     */
+    COALESCE;
+
+    /**
+     * 获取处理策略(忽略大小写)
+     *
+     * @param policy 策略名
+     * @return 处理策略(无法匹配返回SKIP)
+     */
+    public static ConcurrencyPolicy getPolicy(String policy) {
+        if (policy != null) {
+            String name = policy.trim();
+            for (ConcurrencyPolicy value : values()) {
+                if (value.name().equalsIgnoreCase(name)) {
+                    return value;
+                }
+            }
+        }
+        return SKIP;
+    }
+}
@@ -0,0 +1,45 @@
+package com.cg.quartz.constant.em;
+
+/**
+ * 异步日志缓冲区已满时的处理策略
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/25
+ */
+public enum TaskLogOverflowPolicy {
+    /**
+     * 阻塞等待空闲槽位, 超过等待时间(quartz.async-log-block-timeout-ms)后丢弃当前日志
+     */
+    BLOCK,
+    /**
+     * 丢弃当前日志(默认)
+     */
+    DROP_NEWEST,
+    /**
+     * 丢弃缓冲区中最早的日志, 保留当前日志
+     */
+    DROP_OLDEST,
+    /**
+     * 丢弃低于指定等级(quartz.async-log-drop-level)的当前日志, 不低于该等级的日志按BLOCK处理
+     */
+    DROP_BELOW_LEVEL;
+
+    /**
+     * 获取处理策略(忽略大小写, '-'等同'_')
+     *
+     * @param policy 策略名
+     * @return 处理策略(无法匹配返回DROP_NEWEST)
+     */
+    public static TaskLogOverflowPolicy getPolicy(String policy) {
+        if (policy != null) {
+            String name = policy.trim().replace('-', '_');
+            for (TaskLogOverflowPolicy value : values()) {
+                if (value.name().equalsIgnoreCase(name)) {
+                    return value;
+                }
+            }
+        }
+        return DROP_NEWEST;
+    }
+}
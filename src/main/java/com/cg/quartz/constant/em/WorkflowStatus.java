@@ -0,0 +1,40 @@
+package com.cg.quartz.constant.em;
+
+/**
+ * 任务依赖(工作流)执行状态, 用于单次运行及其中各任务节点
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+public enum WorkflowStatus {
+    /**
+     * 等待执行(上游未完成, 或入口任务等待自身触发)
+     */
+    PENDING,
+    /**
+     * 执行中(下游任务已触发)
+     */
+    RUNNING,
+    /**
+     * 执行成功
+     */
+    SUCCESS,
+    /**
+     * 执行失败(执行异常, 被否决或触发失败)
+     */
+    FAILED,
+    /**
+     * 上游失败, 未执行
+     */
+    SKIPPED;
+
+    /**
+     * 是否已结束
+     *
+     * @return 成功, 失败或跳过返回true
+     */
+    public boolean isFinished() {
+        return SUCCESS == this || FAILED == this || SKIPPED == this;
+    }
+}
@@ -0,0 +1,228 @@
+package com.cg.quartz.context;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务执行上下文
+ * <pre>
+ *     任务开始执行时绑定到执行线程, 执行结束后解绑(见TaskExecutionJobListener)
+ *     任务日志据此获取当前任务信息, 无需遍历调用栈
+ *     分片执行(@Task#shards)时每个分片线程绑定分片上下文(shardIndex, shardTotal), 与本次执行共用执行ID, 日志序号, 进度及取消标识
+ *     forEachParallel: 分块并行处理数据(见TaskParallel), 处理线程绑定本上下文, 进度累计到本次执行, 执行结束时记录到任务日志
+ *     取消: 任务方法调用cancel, 或通过SchedulerManagerService#interruptJob中断执行中的任务, 应用关闭时取消所有执行中的任务
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/22
+ * @see com.cg.quartz.listener.TaskExecutionJobListener
+ */
+@Getter
+@ToString
+public class TaskContext {
+
+    private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 执行上下文(JobExecutionContext)中任务上下文key
+     */
+    public static final String CONTEXT_KEY = "quartz.taskContext";
+
+    /**
+     * 本次启动标识(RAMJobStore的触发实例ID每次启动从头计数, 加启动标识前缀避免重启后重复)
+     */
+    private static final String BOOT_TOKEN = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /**
+     * 任务名(job name)
+     */
+    private final String jobName;
+
+    /**
+     * 任务类名(全路径)
+     */
+    private final String className;
+
+    /**
+     * 本次执行ID(启动标识-触发实例ID), 同一次执行的日志据此关联
+     *
+     * @see org.quartz.JobExecutionContext#getFireInstanceId()
+     */
+    private final String fireInstanceId;
+
+    /**
+     * 本次执行日志序号
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger logSequence;
+
+    /**
+     * 本次执行处理进度(forEachParallel累计)
+     */
+    private final TaskProgress progress;
+
+    /**
+     * 本次执行是否已取消
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean cancelled;
+
+    /**
+     * 分片序号(从0开始, 未分片为0)
+     */
+    private final int shardIndex;
+
+    /**
+     * 分片总数(未分片为1)
+     */
+    private final int shardTotal;
+
+    public TaskContext(String jobName, String className, String fireInstanceId) {
+        this.jobName = jobName;
+        this.className = className;
+        this.fireInstanceId = BOOT_TOKEN + "-" + fireInstanceId;
+        this.logSequence = new AtomicInteger();
+        this.progress = new TaskProgress();
+        this.cancelled = new AtomicBoolean();
+        this.shardIndex = 0;
+        this.shardTotal = 1;
+    }
+
+    private TaskContext(TaskContext parent, int shardIndex, int shardTotal) {
+        this.jobName = parent.jobName;
+        this.className = parent.className;
+        this.fireInstanceId = parent.fireInstanceId;
+        this.logSequence = parent.logSequence;
+        this.progress = parent.progress;
+        this.cancelled = parent.cancelled;
+        this.shardIndex = shardIndex;
+        this.shardTotal = shardTotal;
+    }
+
+    /**
+     * 创建分片上下文(共用执行ID及日志序号)
+     *
+     * @param shardIndex 分片序号(从0开始)
+     * @param shardTotal 分片总数
+     * @return 分片上下文
+     */
+    public TaskContext shard(int shardIndex, int shardTotal) {
+        return new TaskContext(this, shardIndex, shardTotal);
+    }
+
+    /**
+     * 是否为分片执行
+     *
+     * @return 分片总数大于1返回true
+     */
+    public boolean isSharded() {
+        return shardTotal > 1;
+    }
+
+    /**
+     * 获取本次执行下一条日志序号(从1开始)
+     *
+     * @return 日志序号
+     */
+    public int nextLogSequence() {
+        return logSequence.incrementAndGet();
+    }
+
+    /**
+     * 取消本次执行(包括所有分片), 并行处理中未开始的数据不再处理
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * 本次执行是否已取消
+     *
+     * @return 已取消返回true
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * 分块并行处理(任一数据处理失败即停止)
+     *
+     * @param source    待处理数据
+     * @param chunkSize 分块大小
+     * @param processor 数据处理
+     * @param <T>       数据类型
+     * @return 本次处理进度
+     * @throws com.cg.quartz.exception.TaskParallelException 处理失败, 任务被取消或调用线程被中断
+     * @see #forEachParallel(Collection, int, int, ItemProcessor)
+     */
+    public <T> TaskProgress forEachParallel(Collection<? extends T> source, int chunkSize, ItemProcessor<? super T> processor) {
+        return forEachParallel(source, chunkSize, 0, processor);
+    }
+
+    /**
+     * 分块并行处理
+     * <pre>
+     *     按chunkSize分块后由专用线程池并行处理, 所有分块结束后返回; 处理线程绑定本上下文, 日志归属于本次执行
+     *     失败数超过maxFailures, 任务被取消或调用线程被中断时未开始的数据不再处理, 抛出TaskParallelException(含处理进度)
+     * </pre>
+     *
+     * @param source      待处理数据
+     * @param chunkSize   分块大小
+     * @param maxFailures 允许失败数(如0: 任一数据处理失败即停止)
+     * @param processor   数据处理
+     * @param <T>         数据类型
+     * @return 本次处理进度
+     * @throws com.cg.quartz.exception.TaskParallelException 失败数超过上限, 任务被取消或调用线程被中断
+     */
+    public <T> TaskProgress forEachParallel(Collection<? extends T> source, int chunkSize, int maxFailures, ItemProcessor<? super T> processor) {
+        return TaskParallel.forEach(this, source, chunkSize, maxFailures, processor);
+    }
+
+    /**
+     * 获取当前线程任务上下文
+     *
+     * @return 任务上下文(非任务线程返回null)
+     */
+    public static TaskContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 绑定任务上下文到当前线程
+     *
+     * @param context 任务上下文
+     */
+    public static void bind(TaskContext context) {
+        CURRENT.set(context);
+    }
+
+    /**
+     * 解绑当前线程任务上下文
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 数据处理(可抛出受检异常)
+     *
+     * @param <T> 数据类型
+     */
+    @FunctionalInterface
+    public interface ItemProcessor<T> {
+
+        /**
+         * 处理单条数据
+         *
+         * @param item 数据
+         * @throws Exception 处理失败
+         */
+        void process(T item) throws Exception;
+    }
+}
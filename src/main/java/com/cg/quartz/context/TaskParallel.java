@@ -0,0 +1,195 @@
+package com.cg.quartz.context;
+
+import com.cg.quartz.exception.TaskParallelException;
+import com.cg.quartz.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.cg.quartz.annotaion.TaskLog.taskLog;
+
+/**
+ * 任务内并行处理
+ * <pre>
+ *     待处理数据按chunkSize分块, 由专用ForkJoinPool(与调度线程池, 公共ForkJoinPool隔离)并行处理, 调用线程等待所有分块结束
+ *     处理线程绑定调用方任务上下文, 日志归属于本次执行; 失败数超过上限, 任务被取消(TaskContext#cancel)或调用线程被中断时,
+ *     未开始的数据不再处理, 等待处理中的分块结束(处理完当前数据)后抛出TaskParallelException, 本次执行结束后不再有分块处理数据
+ *     并行度由quartz.task-parallelism配置(默认CPU核数), 首次使用时创建线程池; 应用关闭时关闭线程池, 之后的并行处理在调用线程中依次执行
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ * @see TaskContext#forEachParallel
+ */
+@Slf4j
+public final class TaskParallel {
+
+    private static volatile int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private static volatile ForkJoinPool pool;
+
+    private TaskParallel() {
+    }
+
+    /**
+     * 设置并行度(需在首次使用前设置)
+     *
+     * @param parallelism 并行度
+     */
+    public static void init(int parallelism) {
+        TaskParallel.parallelism = Math.max(parallelism, 1);
+        log.info("[quartz], task parallel processing initialized, parallelism={}", TaskParallel.parallelism);
+    }
+
+    /**
+     * 关闭并行处理线程池(执行中的任务已取消, 等待处理中的分块结束)
+     *
+     * @param timeoutMs 最长等待时间
+     */
+    public static synchronized void shutdown(long timeoutMs) {
+        ForkJoinPool current = pool;
+        if (ObjectUtils.isNull(current)) {
+            return;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("[quartz], task parallel pool is not terminated in {}ms, running chunks={}", timeoutMs, current.getActiveThreadCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ForkJoinPool pool() {
+        ForkJoinPool current = pool;
+        if (current == null) {
+            synchronized (TaskParallel.class) {
+                if ((current = pool) == null) {
+                    pool = current = new ForkJoinPool(parallelism, forkJoinPool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setName("quartz-parallel-" + thread.getPoolIndex());
+                        return thread;
+                    }, null, false);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 分块并行处理
+     *
+     * @param context     任务上下文
+     * @param source      待处理数据
+     * @param chunkSize   分块大小
+     * @param maxFailures 允许失败数(超过后停止)
+     * @param processor   数据处理
+     * @param <T>         数据类型
+     * @return 本次处理进度
+     */
+    static <T> TaskProgress forEach(TaskContext context, Collection<? extends T> source, int chunkSize, int maxFailures,
+                                    TaskContext.ItemProcessor<? super T> processor) {
+        long startTime = System.currentTimeMillis();
+        List<? extends T> items = source instanceof List && source instanceof RandomAccess ? (List<? extends T>) source : new ArrayList<>(source);
+        int size = items.size();
+        int chunk = Math.max(chunkSize, 1);
+        TaskProgress progress = new TaskProgress();
+        progress.addTotal(size);
+        context.getProgress().addTotal(size);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        int chunks = (size + chunk - 1) / chunk;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        ForkJoinPool executor = pool();
+        for (int from = 0; from < size; from += chunk) {
+            List<? extends T> part = items.subList(from, Math.min(from + chunk, size));
+            Runnable chunkTask = () -> processChunk(context, part, maxFailures, processor, progress, stop, firstError);
+            try {
+                tasks.add(executor.submit(chunkTask));
+            } catch (RejectedExecutionException e) {
+                // 线程池已关闭(应用关闭中), 在调用线程中执行
+                chunkTask.run();
+            }
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            stop.set(true);
+            // 取消未开始的分块, 等待处理中的分块结束, 避免本次执行结束后仍以本次执行的上下文处理数据及输出日志
+            for (ForkJoinTask<?> task : tasks) {
+                task.cancel(false);
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+            Thread.currentThread().interrupt();
+            throw new TaskParallelException("parallel processing was interrupted, progress=" + progress, progress, e);
+        } catch (ExecutionException e) {
+            // processChunk已捕获数据处理异常, 不会出现
+            throw new TaskParallelException("parallel processing failed, progress=" + progress, progress, e.getCause());
+        }
+
+        long costMs = System.currentTimeMillis() - startTime;
+        if (progress.getFailed() > maxFailures) {
+            taskLog.warn("[quartz], parallel processing stopped, too many failures, maxFailures={}, progress={}, costMs={}", maxFailures, progress, costMs);
+            throw new TaskParallelException("parallel processing stopped, failures exceed " + maxFailures + ", progress=" + progress, progress, firstError.get());
+        }
+        if (context.isCancelled()) {
+            taskLog.warn("[quartz], parallel processing cancelled, progress={}, costMs={}", progress, costMs);
+            throw new TaskParallelException("parallel processing cancelled, progress=" + progress, progress, firstError.get());
+        }
+        taskLog.info("[quartz], parallel processing finished, chunks={}, progress={}, costMs={}", chunks, progress, costMs);
+        return progress;
+    }
+
+    /**
+     * 处理分块(绑定任务上下文, 结束后恢复处理线程原上下文)
+     */
+    private static <T> void processChunk(TaskContext context, List<? extends T> part, int maxFailures, TaskContext.ItemProcessor<? super T> processor,
+                                         TaskProgress progress, AtomicBoolean stop, AtomicReference<Throwable> firstError) {
+        TaskContext previous = TaskContext.current();
+        TaskContext.bind(context);
+        try {
+            for (T item : part) {
+                if (stop.get() || context.isCancelled()) {
+                    return;
+                }
+                try {
+                    processor.process(item);
+                    progress.succeed();
+                    context.getProgress().succeed();
+                } catch (Throwable e) {
+                    progress.fail();
+                    context.getProgress().fail();
+                    firstError.compareAndSet(null, e);
+                    taskLog.error("[quartz], parallel processing item failed, item=" + item, e);
+                    if (progress.getFailed() > maxFailures) {
+                        stop.set(true);
+                    }
+                }
+            }
+        } finally {
+            if (ObjectUtils.notNull(previous)) {
+                TaskContext.bind(previous);
+            } else {
+                TaskContext.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cg.quartz.context;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务处理进度
+ * <pre>
+ *     TaskContext#getProgress: 本次执行(所有分片, 所有并行处理)累计进度, 执行中可读取
+ *     TaskContext#forEachParallel返回值: 本次并行处理进度
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+public class TaskProgress {
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    void addTotal(long count) {
+        total.add(count);
+    }
+
+    void succeed() {
+        succeeded.increment();
+    }
+
+    void fail() {
+        failed.increment();
+    }
+
+    /**
+     * 待处理总数
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * 处理成功数
+     */
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    /**
+     * 处理失败数
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * 已处理数(成功 + 失败, 提前停止时小于总数)
+     */
+    public long getProcessed() {
+        return getSucceeded() + getFailed();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskProgress(total=" + getTotal() + ", succeeded=" + getSucceeded() + ", failed=" + getFailed() + ")";
+    }
+}
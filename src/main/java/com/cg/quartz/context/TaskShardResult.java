@@ -0,0 +1,119 @@
+package com.cg.quartz.context;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 分片执行结果(每次触发汇总)
+ * <pre>
+ *     所有分片执行结束后作为本次执行结果(JobExecutionContext#getResult), 并记录到任务日志
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ * @see com.cg.quartz.annotaion.Task#shards()
+ */
+@Getter
+@ToString(exclude = "cause")
+public class TaskShardResult {
+
+    /**
+     * 分片总数
+     */
+    private final int shards;
+
+    /**
+     * 成功分片数
+     */
+    private int succeeded;
+
+    /**
+     * 失败分片数
+     */
+    private int failed;
+
+    /**
+     * 本次执行耗时(毫秒, 从开始执行到所有分片结束)
+     */
+    private long costMs;
+
+    /**
+     * 各分片耗时(毫秒, 按分片序号)
+     */
+    private final List<Long> shardCostMs;
+
+    /**
+     * 各分片返回值(按分片序号, void方法或失败为null)
+     */
+    private final List<Object> shardResults;
+
+    /**
+     * 失败分片异常<分片序号, 异常信息>
+     */
+    private final Map<Integer, String> errors = new TreeMap<>();
+
+    /**
+     * 首个失败分片异常(作为本次执行异常的cause)
+     */
+    private Throwable cause;
+
+    public TaskShardResult(int shards) {
+        this.shards = shards;
+        this.shardCostMs = new ArrayList<>(Collections.nCopies(shards, 0L));
+        this.shardResults = new ArrayList<>(Collections.nCopies(shards, null));
+    }
+
+    /**
+     * 记录分片成功
+     *
+     * @param shardIndex 分片序号
+     * @param result     分片返回值
+     * @param costMs     分片耗时(毫秒)
+     */
+    public synchronized void success(int shardIndex, Object result, long costMs) {
+        succeeded++;
+        shardResults.set(shardIndex, result);
+        shardCostMs.set(shardIndex, costMs);
+    }
+
+    /**
+     * 记录分片失败
+     *
+     * @param shardIndex 分片序号
+     * @param error      异常
+     * @param costMs     分片耗时(毫秒)
+     */
+    public synchronized void failure(int shardIndex, Throwable error, long costMs) {
+        failed++;
+        errors.put(shardIndex, error.toString());
+        if (cause == null) {
+            cause = error;
+        }
+        shardCostMs.set(shardIndex, costMs);
+    }
+
+    /**
+     * 所有分片结束
+     *
+     * @param costMs 本次执行耗时(毫秒)
+     */
+    public synchronized void complete(long costMs) {
+        this.costMs = costMs;
+    }
+
+    /**
+     * 是否所有分片成功
+     *
+     * @return 全部成功返回true
+     */
+    public synchronized boolean isSuccess() {
+        return failed == 0 && succeeded == shards;
+    }
+}
@@ -2,6 +2,10 @@ package com.cg.quartz.dao;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cg.quartz.entity.po.TaskLogPO;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 定时任务日志Dao
@@ -11,4 +15,23 @@ import com.cg.quartz.entity.po.TaskLogPO;
  * @date 2020/12/23
  */
 public interface TaskLogDao extends BaseMapper<TaskLogPO> {
-}
\ No newline at end of file
+
+    /**
+     * 批量写入日志, 跳过(fire_instance_id, sequence)重复的日志
+     * <p>使用ON DUPLICATE KEY UPDATE而不是INSERT IGNORE: INSERT IGNORE将超长, 非法值等所有错误降级为警告, 错误数据会被截断或置为默认值写入</p>
+     *
+     * @param logs 日志
+     * @return 写入条数
+     */
+    @Insert({"<script>",
+            "INSERT INTO t_quartz_task_log (type, thread, class_name, task, content, content_overflow, event, kv, elapsed_ms,",
+            "trace_fingerprint, trace_occurrence, fire_instance_id, sequence, create_time) VALUES",
+            "<foreach collection='logs' item='log' separator=','>",
+            "(#{log.type}, #{log.thread}, #{log.className}, #{log.task}, #{log.content}, #{log.contentOverflow}, #{log.event},",
+            "#{log.kv}, #{log.elapsedMs}, #{log.traceFingerprint}, #{log.traceOccurrence}, #{log.fireInstanceId}, #{log.sequence},",
+            "#{log.createTime})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE id = id",
+            "</script>"})
+    int insertSkipDuplicateBatch(@Param("logs") List<TaskLogPO> logs);
+}
@@ -0,0 +1,26 @@
+package com.cg.quartz.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cg.quartz.entity.po.TaskTracePO;
+import org.apache.ibatis.annotations.Insert;
+
+/**
+ * 定时任务异常栈Dao
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/27
+ */
+public interface TaskTraceDao extends BaseMapper<TaskTracePO> {
+
+    /**
+     * 写入异常栈, 指纹已存在时累加出现次数
+     *
+     * @param trace 异常栈(occurrences为新增次数)
+     * @return 影响行数
+     */
+    @Insert({"INSERT INTO t_quartz_task_trace (fingerprint, exception, trace, occurrences)",
+            "VALUES (#{fingerprint}, #{exception}, #{trace}, #{occurrences})",
+            "ON DUPLICATE KEY UPDATE occurrences = occurrences + VALUES(occurrences)"})
+    int upsertOccurrences(TaskTracePO trace);
+}
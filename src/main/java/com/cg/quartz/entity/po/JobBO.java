@@ -1,5 +1,6 @@
 package com.cg.quartz.entity.po;
 
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
 import com.cg.quartz.constant.em.TaskStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +15,7 @@ import org.quartz.Trigger;
  * @date 2020/8/12
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class JobBO {
@@ -62,8 +63,43 @@ public class JobBO {
      */
     private Boolean allowConcurrent;
 
+    /**
+     * 最大并发执行数(大于0时生效, 优先于allowConcurrent)
+     *
+     * @see com.cg.quartz.annotaion.Task#maxConcurrency()
+     */
+    private Integer maxConcurrency;
+
+    /**
+     * 达到最大并发执行数时本次触发的处理策略(SKIP, QUEUE, COALESCE, 为空为SKIP)
+     *
+     * @see ConcurrencyPolicy
+     */
+    private ConcurrencyPolicy concurrencyPolicy;
+
     /**
      * 任务描述
      */
     private String description;
+
+    /**
+     * 任务独立执行器名(为空使用调度线程池)
+     *
+     * @see com.cg.quartz.annotaion.Task#executor()
+     */
+    private String executor;
+
+    /**
+     * 分片总数(大于1时一次触发拆分为多个分片并行执行, 仅@Task任务)
+     *
+     * @see com.cg.quartz.annotaion.Task#shards()
+     */
+    private Integer shards;
+
+    /**
+     * 上游任务名(逗号分隔, 为空时按cron独立调度)
+     *
+     * @see com.cg.quartz.annotaion.Task#dependsOn()
+     */
+    private String dependsOn;
 }
\ No newline at end of file
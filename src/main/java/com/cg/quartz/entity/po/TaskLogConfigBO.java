@@ -0,0 +1,140 @@
+package com.cg.quartz.entity.po;
+
+import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.constant.em.TaskLogOverflowPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 任务日志配置BO
+ * <pre>
+ *     对应spring配置quartz.async-log-*, quartz.log-trace-*, quartz.log-content-*及quartz.log-recent-*, 未配置项使用默认值
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/20
+ */
+@Getter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskLogConfigBO {
+
+    /**
+     * 是否异步日志
+     */
+    @Builder.Default
+    private boolean asyncLog = true;
+
+    /**
+     * 单批写入条数
+     */
+    @Builder.Default
+    private int batchSize = 200;
+
+    /**
+     * 攒批等待时间(毫秒), 达到该时间即使未满一批也写入
+     */
+    @Builder.Default
+    private long lingerMs = 200;
+
+    /**
+     * 队列容量
+     */
+    @Builder.Default
+    private int queueCapacity = 8192;
+
+    /**
+     * 写入线程数
+     */
+    @Builder.Default
+    private int writerThreads = 1;
+
+    /**
+     * 缓冲区已满处理策略
+     */
+    @Builder.Default
+    private TaskLogOverflowPolicy overflowPolicy = TaskLogOverflowPolicy.DROP_NEWEST;
+
+    /**
+     * BLOCK策略最长等待时间(毫秒)
+     */
+    @Builder.Default
+    private long blockTimeoutMs = 100;
+
+    /**
+     * DROP_BELOW_LEVEL策略保留的最低日志等级
+     */
+    @Builder.Default
+    private TaskLog.LogLevel dropLevel = TaskLog.LogLevel.ERROR;
+
+    /**
+     * 溢出文件目录(为空不启用), 数据库写入失败的日志写入该目录, 数据库恢复后回放
+     */
+    private String spillDir;
+
+    /**
+     * 溢出文件单个分段大小(字节)
+     */
+    @Builder.Default
+    private int spillSegmentSize = 16 * 1024 * 1024;
+
+    /**
+     * 溢出文件最大分段数
+     */
+    @Builder.Default
+    private int spillMaxSegments = 64;
+
+    /**
+     * 溢出文件回放重试间隔(毫秒)
+     */
+    @Builder.Default
+    private long spillReplayIntervalMs = 5000;
+
+    /**
+     * 异常日志每个异常最多输出帧数
+     */
+    @Builder.Default
+    private int traceMaxFrames = 64;
+
+    /**
+     * 异常日志最多输出cause层数
+     */
+    @Builder.Default
+    private int traceMaxCauseDepth = 8;
+
+    /**
+     * 异常日志合并输出的包名前缀
+     */
+    @Builder.Default
+    private String[] traceCollapsedPackages = {"org.springframework.", "sun.reflect.", "jdk.internal.reflect.", "java.lang.reflect."};
+
+    /**
+     * 日志内容最大长度(字符), 超过截断
+     */
+    @Builder.Default
+    private int contentMaxLength = 65536;
+
+    /**
+     * 日志内容超过该长度(字符, 不超过content字段长度2048)时完整内容压缩存储, content仅保留前缀
+     */
+    @Builder.Default
+    private int overflowThreshold = 2048;
+
+    /**
+     * 每个任务在内存中保留的最近日志条数(小于等于0不启用)
+     */
+    @Builder.Default
+    private int recentSize = 128;
+
+    /**
+     * 内存中保留的最近日志总条数上限(任务数超过recentMaxEntries / recentSize时淘汰最久未写入日志的任务)
+     */
+    @Builder.Default
+    private int recentMaxEntries = 16384;
+}
@@ -40,15 +40,55 @@ public class TaskLogPO {
     private String className;
 
     /**
-     * 任务名
+     * 任务名(jobName; 非任务线程中为调用类的Spring bean名, 非bean类为首字母小写的简单类名)
      */
     private String task;
 
     /**
-     * 任务名
+     * 日志内容
      */
     private String content;
 
+    /**
+     * 超过content长度的完整日志内容(deflate压缩, 未超过为null)
+     */
+    private byte[] contentOverflow;
+
+    /**
+     * 结构化日志事件名
+     */
+    private String event;
+
+    /**
+     * 结构化日志键值对(JSON)
+     */
+    private String kv;
+
+    /**
+     * 结构化日志耗时(毫秒)
+     */
+    private Long elapsedMs;
+
+    /**
+     * 本次执行ID(启动标识-触发实例ID, 同一次执行的日志相同)
+     */
+    private String fireInstanceId;
+
+    /**
+     * 本次执行内日志序号(从1开始)
+     */
+    private Integer sequence;
+
+    /**
+     * 异常栈指纹(异常日志, 完整异常栈见t_quartz_task_trace)
+     */
+    private String traceFingerprint;
+
+    /**
+     * 该异常栈第几次出现
+     */
+    private Long traceOccurrence;
+
     /**
      * 创建时间
      */
@@ -72,4 +112,11 @@ public class TaskLogPO {
         this.thread = thread;
         this.className = className;
     }
+
+    public TaskLogPO(String type, String thread, String className, String task) {
+        this.type = type;
+        this.thread = thread;
+        this.className = className;
+        this.task = task;
+    }
 }
\ No newline at end of file
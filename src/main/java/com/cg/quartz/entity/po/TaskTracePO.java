@@ -0,0 +1,63 @@
+package com.cg.quartz.entity.po;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * 定时任务异常栈PO(按指纹去重存储)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/27
+ */
+@Setter
+@Getter
+@ToString(exclude = "trace")
+@NoArgsConstructor
+@TableName("t_quartz_task_trace")
+public class TaskTracePO {
+
+    /**
+     * pk
+     */
+    private Integer id;
+
+    /**
+     * 异常栈指纹(16位十六进制)
+     */
+    private String fingerprint;
+
+    /**
+     * 最外层异常类名
+     */
+    private String exception;
+
+    /**
+     * 完整异常栈(首次出现时的异常栈)
+     */
+    private String trace;
+
+    /**
+     * 出现次数
+     */
+    private Long occurrences;
+
+    /**
+     * 创建时间(首次出现时间)
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间(最近一次出现次数更新时间)
+     */
+    private Date updateTime;
+
+    public TaskTracePO(String fingerprint, String exception, String trace, Long occurrences) {
+        this.fingerprint = fingerprint;
+        this.exception = exception;
+        this.trace = trace;
+        this.occurrences = occurrences;
+    }
+}
@@ -0,0 +1,28 @@
+package com.cg.quartz.exception;
+
+import com.cg.quartz.context.TaskProgress;
+
+/**
+ * 并行处理提前停止异常(失败数超过上限, 任务被取消或等待时被中断)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ * @see com.cg.quartz.context.TaskContext#forEachParallel
+ */
+public class TaskParallelException extends QuartzException {
+
+    /**
+     * 停止时的处理进度
+     */
+    private final transient TaskProgress progress;
+
+    public TaskParallelException(String message, TaskProgress progress, Throwable cause) {
+        super(message, cause);
+        this.progress = progress;
+    }
+
+    public TaskProgress getProgress() {
+        return progress;
+    }
+}
@@ -94,6 +94,6 @@ public class QuartzJobFactory extends AdaptableJobFactory {
      */
     private void recordJobInvoker(String jobName, Object job, boolean isJobInstanceEmpty) {
         Object targetJob = isJobInstanceEmpty ? taskInstanceContainer.getOrDefault(jobName, QuartzConstant.EMPTY_STRING) : job;
-        taskLog.onlyWrite("invoker:" + jobName, targetJob.getClass().getName());
+        taskLog.onlyWrite("invoker:" + jobName, targetJob.getClass().getName(), jobName);
     }
 }
\ No newline at end of file
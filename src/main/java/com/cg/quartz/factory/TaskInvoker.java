@@ -0,0 +1,115 @@
+package com.cg.quartz.factory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ * &#64;Task任务方法调用器
+ * <pre>
+ *     注册任务时绑定一次目标bean及方法(无参public方法), 每次执行直接调用, 不再查找bean及反射调用
+ *     目标类及方法均为public时由LambdaMetafactory生成Runnable(void方法)/Supplier(有返回值方法), 调用与普通接口调用相同
+ *     生成失败(非public类, 类加载器不可见等)时退化为绑定目标对象的MethodHandle
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/8
+ * @see TaskInvokingJob
+ */
+@Slf4j
+public final class TaskInvoker {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType RUNNABLE_TYPE = MethodType.methodType(void.class);
+
+    private static final MethodType SUPPLIER_TYPE = MethodType.methodType(Object.class);
+
+    private final String targetClass;
+
+    private final String targetMethod;
+
+    private final Runnable runnable;
+
+    private final Supplier<Object> supplier;
+
+    private final MethodHandle methodHandle;
+
+    private TaskInvoker(String targetClass, String targetMethod, Runnable runnable, Supplier<Object> supplier, MethodHandle methodHandle) {
+        this.targetClass = targetClass;
+        this.targetMethod = targetMethod;
+        this.runnable = runnable;
+        this.supplier = supplier;
+        this.methodHandle = methodHandle;
+    }
+
+    /**
+     * 绑定任务方法
+     *
+     * @param target       任务bean
+     * @param targetMethod 方法名(无参public方法)
+     * @return 调用器
+     * @throws NoSuchMethodException  方法不存在
+     * @throws IllegalAccessException 方法不可访问
+     */
+    @SuppressWarnings("unchecked")
+    public static TaskInvoker bind(Object target, String targetMethod) throws NoSuchMethodException, IllegalAccessException {
+        Class<?> targetClass = target.getClass();
+        Method method = targetClass.getMethod(targetMethod);
+        String className = ClassUtils.getUserClass(targetClass).getName();
+        if (Modifier.isPublic(targetClass.getModifiers())) {
+            try {
+                MethodHandle implementation = LOOKUP.unreflect(method);
+                boolean isVoid = void.class == method.getReturnType();
+                CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, isVoid ? "run" : "get",
+                        MethodType.methodType(isVoid ? Runnable.class : Supplier.class, targetClass),
+                        isVoid ? RUNNABLE_TYPE : SUPPLIER_TYPE, implementation,
+                        isVoid ? RUNNABLE_TYPE : MethodType.methodType(method.getReturnType()).wrap());
+                Object function = callSite.getTarget().invoke(target);
+                return isVoid ? new TaskInvoker(className, targetMethod, (Runnable) function, null, null)
+                        : new TaskInvoker(className, targetMethod, null, (Supplier<Object>) function, null);
+            } catch (Throwable e) {
+                log.info("[quartz], generate invoker failed, use method handle instead, class={}, method={}, caused by ==> {}",
+                        className, targetMethod, e.toString());
+            }
+        }
+        // 非public类的public方法(与MethodInvoker相同, 设置可访问)
+        method.setAccessible(true);
+        MethodHandle methodHandle = LOOKUP.unreflect(method).bindTo(target).asType(SUPPLIER_TYPE);
+        return new TaskInvoker(className, targetMethod, null, null, methodHandle);
+    }
+
+    /**
+     * 调用任务方法
+     *
+     * @return 方法返回值(void方法返回null)
+     * @throws Throwable 任务方法抛出的异常
+     */
+    public Object invoke() throws Throwable {
+        if (runnable != null) {
+            runnable.run();
+            return null;
+        }
+        if (supplier != null) {
+            return supplier.get();
+        }
+        return methodHandle.invokeExact();
+    }
+
+    public String getTargetClass() {
+        return targetClass;
+    }
+
+    public String getTargetMethod() {
+        return targetMethod;
+    }
+}
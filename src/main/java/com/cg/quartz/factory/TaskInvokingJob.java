@@ -0,0 +1,101 @@
+package com.cg.quartz.factory;
+
+import com.cg.quartz.context.TaskShardResult;
+import com.cg.quartz.pool.ElasticThreadPool;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.PersistJobDataAfterExecution;
+
+/**
+ * &#64;Task任务Job(替代MethodInvokingJob)
+ * <pre>
+ *     调用器在注册任务时放入JobDataMap, 执行时直接调用, 不再每次执行时通过BeanWrapper注入MethodInvoker并反射调用
+ *     允许并发执行使用TaskInvokingJob, 不允许并发执行使用StatefulTaskInvokingJob(与StatefulMethodInvokingJob语义相同)
+ *     分片总数大于1时一次触发拆分为多个分片并行执行(见TaskShards)
+ *     独立执行器已满的执行由JobRegistryListener否决, 未被否决(监听器顺序变化或之前的监听器抛出异常)时此处同样跳过, 任务方法不在执行器外执行
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/8
+ * @see TaskInvoker
+ */
+@Slf4j
+public class TaskInvokingJob implements Job {
+
+    /**
+     * JobDataMap中调用器key
+     */
+    public static final String INVOKER_KEY = "taskInvoker";
+
+    /**
+     * JobDataMap中虚拟线程标识key(@Task#virtualThread)
+     */
+    public static final String VIRTUAL_THREAD_KEY = "virtualThread";
+
+    /**
+     * JobDataMap中独立执行器名key(@Task#executor, Job接口任务同样使用)
+     */
+    public static final String EXECUTOR_KEY = "executor";
+
+    /**
+     * JobDataMap中最大并发执行数key(Job接口任务同样使用)
+     */
+    public static final String MAX_CONCURRENCY_KEY = "maxConcurrency";
+
+    /**
+     * JobDataMap中达到最大并发执行数时处理策略key(ConcurrencyPolicy名)
+     */
+    public static final String CONCURRENCY_POLICY_KEY = "concurrencyPolicy";
+
+    /**
+     * JobDataMap中分片总数key(@Task#shards)
+     */
+    public static final String SHARDS_KEY = "shards";
+
+    /**
+     * JobDataMap中上游任务名key(逗号分隔, Job接口任务同样使用)
+     */
+    public static final String DEPENDS_ON_KEY = "dependsOn";
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        Object rejectedExecutor = context.get(ElasticThreadPool.EXECUTOR_REJECTED_KEY);
+        if (rejectedExecutor != null) {
+            log.warn("[quartz], executor {} is saturated and this execution was not vetoed, skip it, job={}", rejectedExecutor, context.getJobDetail().getKey());
+            return;
+        }
+        JobDataMap jobDataMap = context.getJobDetail().getJobDataMap();
+        TaskInvoker invoker = (TaskInvoker) jobDataMap.get(INVOKER_KEY);
+        int shards = jobDataMap.containsKey(SHARDS_KEY) ? jobDataMap.getInt(SHARDS_KEY) : 1;
+        if (shards > 1) {
+            TaskShardResult result = TaskShards.execute(context, invoker, shards);
+            context.setResult(result);
+            if (!result.isSuccess()) {
+                throw new JobExecutionException(result.getFailed() + " of " + shards + " shards of method '" + invoker.getTargetMethod()
+                        + "' on target class [" + invoker.getTargetClass() + "] failed", result.getCause());
+            }
+            return;
+        }
+        try {
+            context.setResult(invoker.invoke());
+        } catch (JobExecutionException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JobExecutionException("Invocation of method '" + invoker.getTargetMethod()
+                    + "' on target class [" + invoker.getTargetClass() + "] failed", e);
+        }
+    }
+
+    /**
+     * 不允许并发执行的&#64;Task任务Job
+     */
+    @PersistJobDataAfterExecution
+    @DisallowConcurrentExecution
+    public static class StatefulTaskInvokingJob extends TaskInvokingJob {
+    }
+}
@@ -0,0 +1,153 @@
+package com.cg.quartz.factory;
+
+import com.cg.quartz.context.TaskContext;
+import com.cg.quartz.context.TaskShardResult;
+import com.cg.quartz.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.cg.quartz.annotaion.TaskLog.taskLog;
+
+/**
+ * &#64;Task任务分片执行
+ * <pre>
+ *     一次触发拆分为shards个分片并行执行: 分片0在当前执行线程中执行, 其余分片由分片线程池执行
+ *     分片线程池有界(quartz.shard-pool-size, 默认32, 所有任务共用), 首次使用时创建, 线程按需创建, 空闲60秒后退出;
+ *     线程池已满或已关闭时分片在当前执行线程中依次执行(不排队, 不丢弃)
+ *     每个分片线程绑定分片上下文(TaskContext#getShardIndex, TaskContext#getShardTotal), 任务方法据此处理本分片数据
+ *     所有分片结束后本次执行才结束, 汇总成功/失败分片数及耗时(TaskShardResult)作为执行结果并记录到任务日志; 存在失败分片时本次执行失败
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ * @see TaskInvokingJob
+ */
+@Slf4j
+public final class TaskShards {
+
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+
+    private static volatile int poolSize = 32;
+
+    /**
+     * 分片线程池(不排队, 已满时由当前执行线程执行)
+     */
+    private static volatile ExecutorService executor;
+
+    private TaskShards() {
+    }
+
+    /**
+     * 设置分片线程池大小(需在首次使用前设置)
+     *
+     * @param poolSize 最大线程数
+     */
+    public static void init(int poolSize) {
+        TaskShards.poolSize = Math.max(poolSize, 1);
+        log.info("[quartz], task shard executor initialized, poolSize={}", TaskShards.poolSize);
+    }
+
+    /**
+     * 关闭分片线程池(执行中的分片继续执行, 之后的分片在当前执行线程中执行)
+     */
+    public static synchronized void shutdown() {
+        if (ObjectUtils.notNull(executor)) {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService executor() {
+        ExecutorService current = executor;
+        if (current == null) {
+            synchronized (TaskShards.class) {
+                if ((current = executor) == null) {
+                    executor = current = new ThreadPoolExecutor(0, poolSize, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "quartz-shard-" + THREAD_SEQUENCE.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, (runnable, pool) -> runnable.run());
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 分片执行
+     *
+     * @param context 执行上下文
+     * @param invoker 任务方法调用器
+     * @param shards  分片总数(大于1)
+     * @return 分片执行结果
+     * @throws JobExecutionException 存在失败分片或等待分片时被中断
+     */
+    static TaskShardResult execute(JobExecutionContext context, TaskInvoker invoker, int shards) throws JobExecutionException {
+        long startTime = System.currentTimeMillis();
+        TaskContext parent = TaskContext.current();
+        TaskContext root = ObjectUtils.notNull(parent) ? parent
+                : new TaskContext(context.getJobDetail().getKey().getName(), invoker.getTargetClass(), context.getFireInstanceId());
+        TaskShardResult result = new TaskShardResult(shards);
+        List<Future<?>> futures = new ArrayList<>(shards - 1);
+        try {
+            for (int i = 1; i < shards; i++) {
+                TaskContext shardContext = root.shard(i, shards);
+                futures.add(executor().submit(() -> runShard(shardContext, invoker, result)));
+            }
+            runShard(root.shard(0, shards), invoker, result);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new JobExecutionException("sharded execution of '" + invoker.getTargetMethod() + "' was interrupted", e);
+        } catch (ExecutionException e) {
+            // runShard已捕获任务异常, 不会出现
+            throw new JobExecutionException(e.getCause());
+        } finally {
+            // 分片0占用了当前线程的任务上下文, 恢复为本次执行上下文
+            if (ObjectUtils.notNull(parent)) {
+                TaskContext.bind(parent);
+            } else {
+                TaskContext.clear();
+            }
+        }
+        result.complete(System.currentTimeMillis() - startTime);
+        if (result.isSuccess()) {
+            taskLog.info("[quartz], sharded execution finished, shards={}, costMs={}, shardCostMs={}", shards, result.getCostMs(), result.getShardCostMs());
+        } else {
+            taskLog.warn("[quartz], sharded execution finished with failures, shards={}, succeeded={}, failed={}, costMs={}, errors={}",
+                    shards, result.getSucceeded(), result.getFailed(), result.getCostMs(), result.getErrors());
+        }
+        return result;
+    }
+
+    /**
+     * 执行分片(绑定分片上下文, 记录结果)
+     */
+    private static void runShard(TaskContext shardContext, TaskInvoker invoker, TaskShardResult result) {
+        TaskContext.bind(shardContext);
+        long startTime = System.currentTimeMillis();
+        try {
+            result.success(shardContext.getShardIndex(), invoker.invoke(), System.currentTimeMillis() - startTime);
+        } catch (Throwable e) {
+            log.error("[quartz], shard {}/{} of {} failed, caused by ==>", shardContext.getShardIndex(), shardContext.getShardTotal(),
+                    shardContext.getJobName(), e);
+            result.failure(shardContext.getShardIndex(), e, System.currentTimeMillis() - startTime);
+        } finally {
+            TaskContext.clear();
+        }
+    }
+}
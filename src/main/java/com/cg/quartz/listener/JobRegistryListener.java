@@ -0,0 +1,480 @@
+package com.cg.quartz.listener;
+
+import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
+import com.cg.quartz.constant.em.TaskStatus;
+import com.cg.quartz.entity.po.JobBO;
+import com.cg.quartz.factory.TaskInvokingJob;
+import com.cg.quartz.pool.ElasticThreadPool;
+import com.cg.quartz.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务信息登记(全局调度监听器 + 触发器监听器 + 任务监听器)
+ * <pre>
+ *     按JobKey缓存任务信息快照, 查询任务信息时不再访问JobStore(RAMJobStore每次访问均持有全局锁)
+ *     任务添加, 删除, 暂停, 恢复, 更新表达式时由调度事件触发, 从调度器重新加载该任务快照(分组/全部暂停恢复时重新加载全部任务)
+ *     不允许并发的任务执行中触发器状态为BLOCKED, 由触发器监听器按执行中数量计算, 不重新加载
+ *     依赖任务没有触发器, Scheduler#pauseJob对其无效: 暂停状态由任务暂停/恢复事件登记在内存中(不写入JobDataMap, 避免@PersistJobDataAfterExecution任务执行完成时覆盖), 工作流中跳过已暂停的任务
+ *     限制最大并发执行数(maxConcurrency)的任务在执行前准入: 执行中数量达到上限时否决本次执行, 按ConcurrencyPolicy跳过, 排队或合并,
+ *     排队/合并的触发在有执行完成时通过Scheduler#triggerJob补执行
+ *     准入按fireInstanceId登记, 在jobWasExecuted, jobExecutionVetoed(准入后被其他监听器否决)及triggerComplete中释放(仅释放一次),
+ *     任一回调被跳过(其他监听器抛出异常)时执行中数量不会泄漏
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/7
+ */
+@Slf4j
+@Component
+public class JobRegistryListener extends SchedulerListenerSupport implements TriggerListener, JobListener {
+
+    /**
+     * 补执行触发器JobDataMap中排队标识key
+     */
+    private static final String QUEUED_FIRE_KEY = "quartz.queuedFire";
+
+    @Lazy
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private Environment environment;
+
+    /**
+     * 任务快照<jobKey, 快照>
+     */
+    private final Map<JobKey, Registration> jobs = new ConcurrentHashMap<>(256);
+
+    /**
+     * 触发器所属任务<triggerKey, jobKey>
+     */
+    private final Map<TriggerKey, JobKey> triggerJobs = new ConcurrentHashMap<>(256);
+
+    /**
+     * 已准入未释放的执行<fireInstanceId, 任务快照>
+     */
+    private final Map<String, Registration> admitted = new ConcurrentHashMap<>(64);
+
+    /**
+     * 已暂停的任务(Scheduler#pauseJob登记, Scheduler#resumeJob移除)
+     */
+    private final Set<JobKey> pausedJobs = ConcurrentHashMap.newKeySet(16);
+
+    @Override
+    public String getName() {
+        return JobRegistryListener.class.getSimpleName();
+    }
+
+    /**
+     * 获取任务信息
+     *
+     * @param jobKey jobKey
+     * @return 任务信息(未加载或无cron触发器返回null)
+     */
+    public JobBO get(JobKey jobKey) {
+        Registration registration = jobs.get(jobKey);
+        return ObjectUtils.isNull(registration) ? null : registration.snapshot();
+    }
+
+    /**
+     * 获取所有任务信息
+     *
+     * @return 任务信息(副本)
+     */
+    public List<JobBO> list() {
+        List<JobBO> jobBos = new ArrayList<>(jobs.size());
+        for (Registration registration : jobs.values()) {
+            jobBos.add(registration.snapshot());
+        }
+        return jobBos;
+    }
+
+    /**
+     * 任务是否已暂停(无触发器的依赖任务据此跳过执行)
+     *
+     * @param jobKey jobKey
+     * @return 是否已暂停
+     */
+    public boolean isPaused(JobKey jobKey) {
+        return pausedJobs.contains(jobKey);
+    }
+
+    // ----------------------------- SchedulerListener -----------------------------
+
+    @Override
+    public void jobScheduled(Trigger trigger) {
+        refresh(trigger.getJobKey());
+    }
+
+    @Override
+    public void jobUnscheduled(TriggerKey triggerKey) {
+        JobKey jobKey = triggerJobs.remove(triggerKey);
+        if (ObjectUtils.notNull(jobKey)) {
+            refresh(jobKey);
+        }
+    }
+
+    @Override
+    public void triggerFinalized(Trigger trigger) {
+        refresh(trigger.getJobKey());
+    }
+
+    @Override
+    public void triggerPaused(TriggerKey triggerKey) {
+        refreshByTrigger(triggerKey);
+    }
+
+    @Override
+    public void triggersPaused(String triggerGroup) {
+        refreshAll();
+    }
+
+    @Override
+    public void triggerResumed(TriggerKey triggerKey) {
+        refreshByTrigger(triggerKey);
+    }
+
+    @Override
+    public void triggersResumed(String triggerGroup) {
+        refreshAll();
+    }
+
+    @Override
+    public void jobAdded(JobDetail jobDetail) {
+        refresh(jobDetail.getKey());
+    }
+
+    @Override
+    public void jobDeleted(JobKey jobKey) {
+        pausedJobs.remove(jobKey);
+        remove(jobKey);
+    }
+
+    @Override
+    public void jobPaused(JobKey jobKey) {
+        pausedJobs.add(jobKey);
+        refresh(jobKey);
+    }
+
+    @Override
+    public void jobsPaused(String jobGroup) {
+        refreshAll();
+    }
+
+    @Override
+    public void jobResumed(JobKey jobKey) {
+        pausedJobs.remove(jobKey);
+        refresh(jobKey);
+    }
+
+    @Override
+    public void jobsResumed(String jobGroup) {
+        refreshAll();
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+        jobs.clear();
+        triggerJobs.clear();
+        pausedJobs.clear();
+    }
+
+    // ----------------------------- TriggerListener -----------------------------
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        // 执行中数量在vetoJobExecution准入时计数(被否决的执行不会回调triggerComplete)
+    }
+
+    /**
+     * 执行准入
+     * <pre>
+     *     任务独立执行器已满时跳过本次执行(执行器拒绝后JobRunShell由调度线程池执行, 由此处否决, 不执行任务)
+     *     执行中数量达到最大并发执行数时否决本次执行, 按处理策略跳过, 排队或合并
+     * </pre>
+     */
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        Object rejectedExecutor = context.get(ElasticThreadPool.EXECUTOR_REJECTED_KEY);
+        if (ObjectUtils.notNull(rejectedExecutor)) {
+            log.warn("[quartz], executor {} is saturated, skip this execution, job={}, fireTime={}", rejectedExecutor, trigger.getJobKey(), context.getFireTime());
+            return true;
+        }
+        Registration registration = jobs.get(trigger.getJobKey());
+        if (ObjectUtils.isNull(registration)) {
+            return false;
+        }
+        if (registration.tryAcquire()) {
+            admitted.put(context.getFireInstanceId(), registration);
+            return false;
+        }
+        boolean queuedFire = Boolean.TRUE.equals(trigger.getJobDataMap().get(QUEUED_FIRE_KEY));
+        JobBO jobBo = registration.jobBo;
+        switch (jobBo.getConcurrencyPolicy()) {
+            case QUEUE:
+                // 补执行再次被否决时重新排队, 不受排队上限限制
+                int queueDepth = queuedFire ? Integer.MAX_VALUE : environment.getProperty(QuartzConstant.CONCURRENCY_QUEUE_DEPTH, Integer.class, 16);
+                if (registration.enqueue(queueDepth)) {
+                    log.info("[quartz], job {} reached max concurrency {}, queue this execution, pending={}", trigger.getJobKey(),
+                            jobBo.getMaxConcurrency(), registration.pending.get());
+                } else {
+                    log.warn("[quartz], job {} reached max concurrency {} and the queue is full, skip this execution, fireTime={}",
+                            trigger.getJobKey(), jobBo.getMaxConcurrency(), context.getFireTime());
+                }
+                break;
+            case COALESCE:
+                registration.pending.set(1);
+                log.info("[quartz], job {} reached max concurrency {}, coalesce this execution", trigger.getJobKey(), jobBo.getMaxConcurrency());
+                break;
+            default:
+                log.warn("[quartz], job {} reached max concurrency {}, skip this execution, fireTime={}", trigger.getJobKey(),
+                        jobBo.getMaxConcurrency(), context.getFireTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+        release(context);
+    }
+
+    // ----------------------------- JobListener -----------------------------
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    /**
+     * 准入后被其他触发器监听器否决(不会回调triggerComplete)
+     */
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        release(context);
+    }
+
+    /**
+     * 执行完成(先于triggerComplete回调, 之后的监听器抛出异常时triggerComplete可能被跳过)
+     */
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        release(context);
+    }
+
+    /**
+     * 释放准入(同一次执行仅释放一次), 有排队/合并的触发时补执行一次
+     *
+     * @param context 执行上下文
+     */
+    private void release(JobExecutionContext context) {
+        Registration registration = admitted.remove(context.getFireInstanceId());
+        if (ObjectUtils.isNull(registration)) {
+            return;
+        }
+        registration.executing.updateAndGet(count -> Math.max(count - 1, 0));
+        if (registration.pending.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            JobKey jobKey = context.getJobDetail().getKey();
+            try {
+                scheduler.triggerJob(jobKey, new JobDataMap(Collections.singletonMap(QUEUED_FIRE_KEY, Boolean.TRUE)));
+            } catch (Exception e) {
+                log.error("[quartz], trigger queued execution catch a exception, job={}, caused by ==>", jobKey, e);
+            }
+        }
+    }
+
+    // ----------------------------- refresh -----------------------------
+
+    private void refreshByTrigger(TriggerKey triggerKey) {
+        JobKey jobKey = triggerJobs.get(triggerKey);
+        if (ObjectUtils.notNull(jobKey)) {
+            refresh(jobKey);
+        }
+    }
+
+    private void refreshAll() {
+        try {
+            for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyJobGroup())) {
+                refresh(jobKey);
+            }
+        } catch (SchedulerException e) {
+            log.error("[quartz], refresh job registry catch a exception, caused by ==>", e);
+        }
+    }
+
+    /**
+     * 从调度器重新加载任务快照(同一任务串行加载, 保留执行中及排队数量)
+     *
+     * @param jobKey jobKey
+     */
+    private void refresh(JobKey jobKey) {
+        if (ObjectUtils.isNull(jobKey)) {
+            return;
+        }
+        try {
+            jobs.compute(jobKey, (key, registration) -> {
+                JobBO jobBo = load(key);
+                if (ObjectUtils.isNull(jobBo)) {
+                    return null;
+                }
+                if (ObjectUtils.notNull(jobBo.getTrigger())) {
+                    triggerJobs.put(TriggerKey.triggerKey(jobBo.getTrigger(), jobBo.getTriggerGroup()), key);
+                }
+                return new Registration(jobBo, registration);
+            });
+        } catch (Exception e) {
+            log.error("[quartz], refresh job registry catch a exception, job={}, caused by ==>", jobKey, e);
+            remove(jobKey);
+        }
+    }
+
+    private void remove(JobKey jobKey) {
+        jobs.remove(jobKey);
+        triggerJobs.values().removeIf(jobKey::equals);
+    }
+
+    /**
+     * 获取当前Job信息
+     * <p>获取JobKey及其cron触发器包含job信息, 触发器状态BLOCKED视为NORMAL(由执行中数量计算)</p>
+     * <p>指定上游任务的任务没有cron触发器(由上游完成时触发), 触发器信息为空, 已暂停时状态为PAUSED, 否则为NORMAL</p>
+     *
+     * @param jobKey jobKey
+     * @return Job信息(任务不存在或无cron触发器且未指定上游任务返回null)
+     */
+    private JobBO load(JobKey jobKey) {
+        try {
+            JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+            if (ObjectUtils.isNull(jobDetail)) {
+                return null;
+            }
+            CronTrigger trigger = null;
+            for (Trigger candidate : scheduler.getTriggersOfJob(jobKey)) {
+                if (candidate instanceof CronTrigger) {
+                    trigger = (CronTrigger) candidate;
+                    break;
+                }
+            }
+            String dependsOn = jobDetail.getJobDataMap().getString(TaskInvokingJob.DEPENDS_ON_KEY);
+            if (ObjectUtils.isNull(trigger) && ObjectUtils.isBlank(dependsOn)) {
+                return null;
+            }
+            TriggerKey triggerKey = ObjectUtils.isNull(trigger) ? null : trigger.getKey();
+            Trigger.TriggerState triggerState = ObjectUtils.notNull(triggerKey) ? scheduler.getTriggerState(triggerKey)
+                    : pausedJobs.contains(jobKey) ? Trigger.TriggerState.PAUSED : Trigger.TriggerState.NORMAL;
+            if (Trigger.TriggerState.BLOCKED == triggerState) {
+                triggerState = Trigger.TriggerState.NORMAL;
+            }
+
+            // Job类标注@DisallowConcurrentExecution表示不允许并发执行
+            boolean disallowConcurrent = jobDetail.isConcurrentExectionDisallowed();
+            Object maxConcurrency = jobDetail.getJobDataMap().get(TaskInvokingJob.MAX_CONCURRENCY_KEY);
+            boolean bounded = !disallowConcurrent && maxConcurrency instanceof Integer && (Integer) maxConcurrency > 0;
+            return JobBO.builder()
+                    .jobName(jobKey.getName()).jobGroup(jobKey.getGroup())
+                    .trigger(ObjectUtils.isNull(triggerKey) ? null : triggerKey.getName())
+                    .triggerGroup(ObjectUtils.isNull(triggerKey) ? null : triggerKey.getGroup())
+                    .cronExpression(ObjectUtils.isNull(trigger) ? null : trigger.getCronExpression())
+                    .triggerState(triggerState)
+                    .description(jobDetail.getDescription())
+                    .allowConcurrent(!disallowConcurrent)
+                    .executor(jobDetail.getJobDataMap().getString(TaskInvokingJob.EXECUTOR_KEY))
+                    .shards((Integer) jobDetail.getJobDataMap().get(TaskInvokingJob.SHARDS_KEY))
+                    .maxConcurrency(bounded ? (Integer) maxConcurrency : null)
+                    .concurrencyPolicy(bounded ? ConcurrencyPolicy.getPolicy(jobDetail.getJobDataMap().getString(TaskInvokingJob.CONCURRENCY_POLICY_KEY)) : null)
+                    .dependsOn(dependsOn)
+                    .build();
+        } catch (SchedulerException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 任务快照及执行中, 排队数量
+     */
+    private static final class Registration {
+
+        private final JobBO jobBo;
+
+        private final AtomicInteger executing;
+
+        /**
+         * 达到最大并发执行数时排队/合并的触发数
+         */
+        private final AtomicInteger pending;
+
+        private Registration(JobBO jobBo, Registration previous) {
+            this.jobBo = jobBo;
+            this.executing = ObjectUtils.isNull(previous) ? new AtomicInteger() : previous.executing;
+            this.pending = ObjectUtils.isNull(previous) ? new AtomicInteger() : previous.pending;
+        }
+
+        /**
+         * 执行准入(执行中数量加1)
+         *
+         * @return 是否准入(执行中数量已达最大并发执行数返回false)
+         */
+        private boolean tryAcquire() {
+            int limit = ObjectUtils.isNull(jobBo.getMaxConcurrency()) ? 0 : jobBo.getMaxConcurrency();
+            for (; ; ) {
+                int count = executing.get();
+                if (limit > 0 && count >= limit) {
+                    return false;
+                }
+                if (executing.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 排队
+         *
+         * @param queueDepth 排队上限
+         * @return 是否已排队(排队已满返回false)
+         */
+        private boolean enqueue(int queueDepth) {
+            for (; ; ) {
+                int count = pending.get();
+                if (count >= queueDepth) {
+                    return false;
+                }
+                if (pending.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 任务信息副本(不允许并发的任务执行中或执行中数量达到最大并发执行数, 且未暂停时触发器状态为BLOCKED)
+         */
+        private JobBO snapshot() {
+            Trigger.TriggerState triggerState = jobBo.getTriggerState();
+            int running = executing.get();
+            boolean saturated = jobBo.getAllowConcurrent() ? ObjectUtils.notNull(jobBo.getMaxConcurrency()) && running >= jobBo.getMaxConcurrency() : running > 0;
+            if (Trigger.TriggerState.NORMAL == triggerState && saturated) {
+                triggerState = Trigger.TriggerState.BLOCKED;
+            }
+            boolean enable = Trigger.TriggerState.NORMAL == triggerState || Trigger.TriggerState.BLOCKED == triggerState;
+            return jobBo.toBuilder().triggerState(triggerState).status(enable ? TaskStatus.ENABLE : TaskStatus.DISABLE).build();
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.cg.quartz.listener;
 
+import com.cg.quartz.annotaion.TaskLog;
 import com.cg.quartz.api.service.TaskManagerApiRmiService;
 import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.context.TaskParallel;
+import com.cg.quartz.constant.em.TaskLogOverflowPolicy;
+import com.cg.quartz.entity.po.TaskLogConfigBO;
 import com.cg.quartz.factory.QuartzJobFactory;
+import com.cg.quartz.factory.TaskShards;
 import com.cg.quartz.log.TaskLogHandler;
 import com.cg.quartz.service.SchedulerManagerService;
 import com.cg.quartz.service.TaskLogStoreService;
+import com.cg.quartz.service.TaskTraceStoreService;
 import com.cg.quartz.utils.SpringContextUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 /**
  * describe:定时任务监听器
  * <pre>
@@ -39,24 +48,60 @@ public class QuartzJobListener implements ApplicationListener<ContextRefreshedEv
     @Autowired(required = false)
     private TaskLogStoreService logStoreService;
 
+    @Autowired(required = false)
+    private TaskTraceStoreService traceStoreService;
+
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
         long startTime = System.currentTimeMillis();
-        schedulerManager.registerJobs();
-        log.info("[quartz] all tasks and jobs load completed, consume {}ms", System.currentTimeMillis() - startTime);
+        Map<String, Long> phases = schedulerManager.registerJobs();
+        log.info("[quartz] all tasks and jobs load completed, consume {}ms, phases(ms)={}", System.currentTimeMillis() - startTime, phases);
 
         // JobFactory容器初始化
         jobFactory.initJobContainer();
         loadLogService();
+        loadParallelService();
         loadRmiService();
     }
 
+    /**
+     * 加载任务内并行处理及分片执行配置(线程池首次使用时创建)
+     */
+    private void loadParallelService() {
+        Environment environment = SpringContextUtils.getApplicationContext().getEnvironment();
+        TaskParallel.init(environment.getProperty(QuartzConstant.TASK_PARALLELISM, Integer.class, Runtime.getRuntime().availableProcessors()));
+        TaskShards.init(environment.getProperty(QuartzConstant.SHARD_POOL_SIZE, Integer.class, 32));
+    }
+
     /**
      * 加载日志服务(默认异步日志)
      */
     private void loadLogService() {
-        String asyncLog = SpringContextUtils.getApplicationContext().getEnvironment().getProperty(QuartzConstant.ENABLE_ASYNC_LOG, Boolean.TRUE.toString());
-        TaskLogHandler.init(logStoreService, Boolean.parseBoolean(asyncLog));
+        Environment environment = SpringContextUtils.getApplicationContext().getEnvironment();
+        TaskLogConfigBO defaultConfig = TaskLogConfigBO.builder().build();
+        TaskLogConfigBO logConfig = TaskLogConfigBO.builder()
+                .asyncLog(environment.getProperty(QuartzConstant.ENABLE_ASYNC_LOG, Boolean.class, defaultConfig.isAsyncLog()))
+                .batchSize(environment.getProperty(QuartzConstant.ASYNC_LOG_BATCH_SIZE, Integer.class, defaultConfig.getBatchSize()))
+                .lingerMs(environment.getProperty(QuartzConstant.ASYNC_LOG_LINGER_MS, Long.class, defaultConfig.getLingerMs()))
+                .queueCapacity(environment.getProperty(QuartzConstant.ASYNC_LOG_QUEUE_CAPACITY, Integer.class, defaultConfig.getQueueCapacity()))
+                .writerThreads(environment.getProperty(QuartzConstant.ASYNC_LOG_WRITER_THREADS, Integer.class, defaultConfig.getWriterThreads()))
+                .overflowPolicy(TaskLogOverflowPolicy.getPolicy(environment.getProperty(QuartzConstant.ASYNC_LOG_OVERFLOW_POLICY)))
+                .blockTimeoutMs(environment.getProperty(QuartzConstant.ASYNC_LOG_BLOCK_TIMEOUT_MS, Long.class, defaultConfig.getBlockTimeoutMs()))
+                .dropLevel(TaskLog.LogLevel.valueOf(environment.getProperty(QuartzConstant.ASYNC_LOG_DROP_LEVEL,
+                        defaultConfig.getDropLevel().name()).trim().toUpperCase()))
+                .spillDir(environment.getProperty(QuartzConstant.ASYNC_LOG_SPILL_DIR))
+                .spillSegmentSize(environment.getProperty(QuartzConstant.ASYNC_LOG_SPILL_SEGMENT_SIZE, Integer.class, defaultConfig.getSpillSegmentSize()))
+                .spillMaxSegments(environment.getProperty(QuartzConstant.ASYNC_LOG_SPILL_MAX_SEGMENTS, Integer.class, defaultConfig.getSpillMaxSegments()))
+                .spillReplayIntervalMs(environment.getProperty(QuartzConstant.ASYNC_LOG_SPILL_REPLAY_INTERVAL_MS, Long.class, defaultConfig.getSpillReplayIntervalMs()))
+                .traceMaxFrames(environment.getProperty(QuartzConstant.LOG_TRACE_MAX_FRAMES, Integer.class, defaultConfig.getTraceMaxFrames()))
+                .traceMaxCauseDepth(environment.getProperty(QuartzConstant.LOG_TRACE_MAX_CAUSE_DEPTH, Integer.class, defaultConfig.getTraceMaxCauseDepth()))
+                .traceCollapsedPackages(environment.getProperty(QuartzConstant.LOG_TRACE_COLLAPSED_PACKAGES, String[].class, defaultConfig.getTraceCollapsedPackages()))
+                .contentMaxLength(environment.getProperty(QuartzConstant.LOG_CONTENT_MAX_LENGTH, Integer.class, defaultConfig.getContentMaxLength()))
+                .overflowThreshold(environment.getProperty(QuartzConstant.LOG_CONTENT_OVERFLOW_THRESHOLD, Integer.class, defaultConfig.getOverflowThreshold()))
+                .recentSize(environment.getProperty(QuartzConstant.LOG_RECENT_SIZE, Integer.class, defaultConfig.getRecentSize()))
+                .recentMaxEntries(environment.getProperty(QuartzConstant.LOG_RECENT_MAX_ENTRIES, Integer.class, defaultConfig.getRecentMaxEntries()))
+                .build();
+        TaskLogHandler.init(logStoreService, traceStoreService, logConfig);
     }
 
     /**
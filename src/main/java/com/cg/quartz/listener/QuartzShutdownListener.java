@@ -0,0 +1,53 @@
+package com.cg.quartz.listener;
+
+import com.cg.quartz.context.TaskParallel;
+import com.cg.quartz.factory.TaskShards;
+import com.cg.quartz.log.TaskLogHandler;
+import com.cg.quartz.service.SchedulerManagerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时任务关闭监听器
+ * <pre>
+ *     监听spring容器关闭, 取消执行中的任务(TaskContext#cancel), 关闭并行处理及分片线程池, 在数据源等bean销毁前写完异步日志队列中剩余日志
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/20
+ */
+@Slf4j
+@Component
+public class QuartzShutdownListener implements ApplicationListener<ContextClosedEvent> {
+
+    /**
+     * 等待日志写完的最长时间
+     */
+    private static final long LOG_FLUSH_TIMEOUT_MS = 10000L;
+
+    /**
+     * 等待并行处理中的分块结束的最长时间
+     */
+    private static final long PARALLEL_SHUTDOWN_TIMEOUT_MS = 5000L;
+
+    @Autowired
+    private SchedulerManagerService schedulerManager;
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        try {
+            schedulerManager.interruptAll();
+        } catch (Exception e) {
+            log.error("[quartz], interrupt executing jobs on shutdown catch a exception, caused by ==>", e);
+        }
+        TaskParallel.shutdown(PARALLEL_SHUTDOWN_TIMEOUT_MS);
+        TaskShards.shutdown();
+        long startTime = System.currentTimeMillis();
+        TaskLogHandler.shutdown(LOG_FLUSH_TIMEOUT_MS);
+        log.info("[quartz] task log flushed on shutdown, consume {}ms", System.currentTimeMillis() - startTime);
+    }
+}
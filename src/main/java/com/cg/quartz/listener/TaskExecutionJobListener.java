@@ -0,0 +1,82 @@
+package com.cg.quartz.listener;
+
+import com.cg.quartz.context.TaskContext;
+import com.cg.quartz.context.TaskProgress;
+import com.cg.quartz.utils.ObjectUtils;
+import com.cg.quartz.utils.SpringContextUtils;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.cg.quartz.annotaion.TaskLog.taskLog;
+
+/**
+ * 任务执行监听器(全局)
+ * <pre>
+ *     Job执行前将任务上下文绑定到执行线程并放入执行上下文(用于中断执行中的任务), 执行后解绑
+ *     本次执行使用了并行处理(TaskContext#forEachParallel)时, 执行结束时将累计进度记录到任务日志(与本次执行的其他日志关联)
+ *     @Task任务的Job实例为TaskInvokingJob, 任务类名取自Spring容器中同名bean(按任务名缓存)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/22
+ * @see TaskContext
+ */
+@Component
+public class TaskExecutionJobListener implements JobListener {
+
+    /**
+     * 任务类名缓存<jobName, className>
+     */
+    private final Map<String, String> classNameCache = new ConcurrentHashMap<>(64);
+
+    @Override
+    public String getName() {
+        return TaskExecutionJobListener.class.getSimpleName();
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        String jobName = context.getJobDetail().getKey().getName();
+        String className = classNameCache.computeIfAbsent(jobName, k -> resolveClassName(k, context.getJobInstance()));
+        TaskContext taskContext = new TaskContext(jobName, className, context.getFireInstanceId());
+        context.put(TaskContext.CONTEXT_KEY, taskContext);
+        TaskContext.bind(taskContext);
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        TaskContext.clear();
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        Object taskContext = context.get(TaskContext.CONTEXT_KEY);
+        if (taskContext instanceof TaskContext && ((TaskContext) taskContext).getProgress().getTotal() > 0) {
+            TaskProgress progress = ((TaskContext) taskContext).getProgress();
+            taskLog.info("[quartz], task execution finished, progress={}, cancelled={}, failed={}", progress,
+                    ((TaskContext) taskContext).isCancelled(), ObjectUtils.notNull(jobException));
+        }
+        TaskContext.clear();
+    }
+
+    /**
+     * 获取任务类名(Spring容器bean优先, 去除CGLIB代理)
+     *
+     * @param jobName     任务名
+     * @param jobInstance job实例
+     * @return 任务类名
+     */
+    private String resolveClassName(String jobName, Object jobInstance) {
+        Class<?> beanType = SpringContextUtils.getApplicationContext().containsBean(jobName)
+                ? SpringContextUtils.getApplicationContext().getType(jobName) : null;
+        Class<?> taskClass = ObjectUtils.notNull(beanType) ? beanType : jobInstance.getClass();
+        return ClassUtils.getUserClass(taskClass).getName();
+    }
+}
@@ -0,0 +1,620 @@
+package com.cg.quartz.listener;
+
+import com.cg.quartz.api.resp.WorkflowNodeResp;
+import com.cg.quartz.api.resp.WorkflowRunResp;
+import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.constant.em.WorkflowStatus;
+import com.cg.quartz.factory.TaskInvokingJob;
+import com.cg.quartz.utils.Assert;
+import com.cg.quartz.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 任务依赖(工作流)监听器(全局Job监听器 + 调度监听器)
+ * <pre>
+ *     任务通过@Task#dependsOn或t_quartz_task.depends_on指定上游任务, 有依赖关系的任务组成一个工作流(有向无环图), 依赖关系由任务添加/删除事件维护
+ *     未加载(不存在或已删除)的上游任务不参与工作流, 构建工作流时忽略并输出警告, 上游任务加载后自动生效
+ *     入口任务(无上游)由自身触发器触发时开始一次运行, 若已有运行在等待该入口任务则加入该运行(多入口工作流)
+ *     任务执行成功后, 所有上游均已成功的下游任务通过Scheduler#triggerJob触发(触发器JobDataMap携带运行ID), 无依赖关系的分支同时触发并行执行
+ *     任务执行失败(抛出异常, 被否决或触发失败)时其下游任务标记为跳过, 其他分支继续执行; 所有任务结束后运行结束
+ *     已暂停的下游任务(JobRegistryListener登记的暂停状态)不触发, 与其下游一同标记为跳过, 本次运行失败(恢复任务后可从该任务恢复运行)
+ *     失败的运行可从失败任务恢复: 失败及跳过的任务重新等待, 失败任务在本次运行中重新触发, 已成功的任务不再执行
+ *     运行记录保存在内存中, 最多保留quartz.workflow-run-retention条(优先淘汰已结束的运行)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+@Slf4j
+@Component
+public class WorkflowJobListener extends SchedulerListenerSupport implements JobListener {
+
+    /**
+     * 下游任务触发器JobDataMap及执行上下文中运行ID key
+     */
+    private static final String RUN_ID_KEY = "quartz.workflowRunId";
+
+    @Lazy
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JobRegistryListener jobRegistry;
+
+    /**
+     * 上游任务<jobKey, 上游jobKey>(声明的依赖, 含未加载的上游任务)
+     */
+    private final Map<JobKey, Set<JobKey>> upstreams = new ConcurrentHashMap<>(64);
+
+    /**
+     * 已加载的任务
+     */
+    private final Set<JobKey> jobs = ConcurrentHashMap.newKeySet(256);
+
+    /**
+     * 运行记录<runId, 运行>(按开始顺序, 由自身加锁)
+     */
+    private final Map<String, WorkflowRun> runs = new LinkedHashMap<>(64);
+
+    @Override
+    public String getName() {
+        return WorkflowJobListener.class.getSimpleName();
+    }
+
+    /**
+     * 获取所有运行记录
+     *
+     * @return 运行记录(最近开始的在前)
+     */
+    public List<WorkflowRunResp> listRuns() {
+        List<WorkflowRun> copies;
+        synchronized (runs) {
+            copies = new ArrayList<>(runs.values());
+        }
+        Collections.reverse(copies);
+        return copies.stream().map(WorkflowRun::snapshot).collect(Collectors.toList());
+    }
+
+    /**
+     * 获取运行记录
+     *
+     * @param runId 运行ID
+     * @return 运行记录(不存在或已淘汰返回null)
+     */
+    public WorkflowRunResp getRun(String runId) {
+        WorkflowRun run = findRun(runId);
+        return ObjectUtils.isNull(run) ? null : run.snapshot();
+    }
+
+    /**
+     * 从失败任务恢复运行(失败任务及因暂停被跳过的任务重新触发)
+     *
+     * @param runId 运行ID
+     * @return 重新触发的任务名
+     */
+    public List<String> resume(String runId) {
+        WorkflowRun run = findRun(runId);
+        Assert.notNull(run, "workflow run not found, runId=" + runId);
+        List<JobKey> ready = new ArrayList<>();
+        synchronized (run) {
+            Assert.isTrue(WorkflowStatus.FAILED == run.status, "only failed workflow run can be resumed, runId=" + runId + ", status=" + run.status);
+            for (Map.Entry<JobKey, WorkflowNode> entry : run.nodes.entrySet()) {
+                WorkflowNode node = entry.getValue();
+                if (WorkflowStatus.FAILED == node.status) {
+                    ready.add(entry.getKey());
+                    node.trigger();
+                } else if (WorkflowStatus.SKIPPED == node.status) {
+                    node.reset();
+                }
+            }
+            // 因暂停被跳过的任务上游均已成功, 直接重新触发
+            for (Map.Entry<JobKey, WorkflowNode> entry : run.nodes.entrySet()) {
+                if (WorkflowStatus.PENDING == entry.getValue().status && !run.graph.get(entry.getKey()).isEmpty()
+                        && run.upstreamsSucceeded(entry.getKey())) {
+                    ready.add(entry.getKey());
+                    entry.getValue().trigger();
+                }
+            }
+            run.status = WorkflowStatus.RUNNING;
+            run.endTime = null;
+            run.resumed++;
+        }
+        log.info("[quartz], resume workflow run, workflow={}, runId={}, nodes={}", run.workflow, runId, ready);
+        for (JobKey jobKey : ready) {
+            trigger(run, jobKey);
+        }
+        return ready.stream().map(JobKey::getName).collect(Collectors.toList());
+    }
+
+    // ----------------------------- SchedulerListener -----------------------------
+
+    @Override
+    public void jobAdded(JobDetail jobDetail) {
+        JobKey jobKey = jobDetail.getKey();
+        jobs.add(jobKey);
+        Set<JobKey> dependsOn = parseDependsOn(jobKey, jobDetail.getJobDataMap().getString(TaskInvokingJob.DEPENDS_ON_KEY));
+        if (dependsOn.isEmpty()) {
+            upstreams.remove(jobKey);
+            return;
+        }
+        synchronized (upstreams) {
+            if (reaches(dependsOn, jobKey)) {
+                upstreams.remove(jobKey);
+                log.error("[quartz], dependencies of job {} form a cycle and are ignored, dependsOn={}", jobKey, dependsOn);
+                return;
+            }
+            upstreams.put(jobKey, dependsOn);
+        }
+    }
+
+    @Override
+    public void jobDeleted(JobKey jobKey) {
+        jobs.remove(jobKey);
+        upstreams.remove(jobKey);
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+        jobs.clear();
+        upstreams.clear();
+    }
+
+    // ----------------------------- JobListener -----------------------------
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        JobKey jobKey = context.getJobDetail().getKey();
+        String runId = context.getTrigger().getJobDataMap().getString(RUN_ID_KEY);
+        WorkflowRun run = ObjectUtils.notNull(runId) ? startTriggered(runId, jobKey, context.getFireInstanceId())
+                : startEntry(jobKey, context.getFireInstanceId());
+        if (ObjectUtils.notNull(run)) {
+            context.put(RUN_ID_KEY, run.runId);
+        }
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        // 入口任务被否决时未加入运行, 下游任务被否决视为失败
+        WorkflowRun run = findRun(context.getTrigger().getJobDataMap().getString(RUN_ID_KEY));
+        if (ObjectUtils.notNull(run)) {
+            complete(run, context.getJobDetail().getKey(), null, "execution vetoed");
+        }
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        WorkflowRun run = findRun((String) context.get(RUN_ID_KEY));
+        if (ObjectUtils.notNull(run)) {
+            String error = ObjectUtils.isNull(jobException) ? null
+                    : String.valueOf(ObjectUtils.notNull(jobException.getCause()) ? jobException.getCause() : jobException.getMessage());
+            complete(run, context.getJobDetail().getKey(), context.getFireInstanceId(), error);
+        }
+    }
+
+    // ----------------------------- run -----------------------------
+
+    /**
+     * 入口任务开始执行(由自身触发器触发)
+     *
+     * @return 所属运行(非入口任务或不属于任何工作流返回null)
+     */
+    private WorkflowRun startEntry(JobKey jobKey, String fireInstanceId) {
+        if (upstreams.isEmpty()) {
+            return null;
+        }
+        if (!upstreamsOf(jobKey).isEmpty()) {
+            // 下游任务单独触发(如立即执行), 不属于任何运行
+            log.info("[quartz], job {} has upstream jobs and is fired alone, not attached to any workflow run", jobKey);
+            return null;
+        }
+        if (downstreamsOf(jobKey).isEmpty()) {
+            return null;
+        }
+        Map<JobKey, Set<JobKey>> graph = graphOf(jobKey);
+        String workflow = graph.entrySet().stream().filter(entry -> entry.getValue().isEmpty())
+                .map(entry -> entry.getKey().getName()).sorted().collect(Collectors.joining(","));
+        synchronized (runs) {
+            // 多入口工作流: 加入最近一次等待该入口任务的运行
+            List<WorkflowRun> candidates = new ArrayList<>(runs.values());
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                WorkflowRun run = candidates.get(i);
+                if (!run.workflow.equals(workflow)) {
+                    continue;
+                }
+                synchronized (run) {
+                    WorkflowNode node = run.nodes.get(jobKey);
+                    if (WorkflowStatus.RUNNING == run.status && ObjectUtils.notNull(node) && WorkflowStatus.PENDING == node.status) {
+                        node.start(fireInstanceId);
+                        return run;
+                    }
+                }
+            }
+            WorkflowRun run = new WorkflowRun(UUID.randomUUID().toString().replace("-", ""), workflow, graph);
+            run.nodes.get(jobKey).start(fireInstanceId);
+            runs.put(run.runId, run);
+            evict();
+            log.info("[quartz], workflow run started, workflow={}, runId={}, jobs={}", workflow, run.runId, run.nodes.size());
+            return run;
+        }
+    }
+
+    /**
+     * 下游任务(或恢复的任务)开始执行
+     *
+     * @return 所属运行(运行已淘汰返回null)
+     */
+    private WorkflowRun startTriggered(String runId, JobKey jobKey, String fireInstanceId) {
+        WorkflowRun run = findRun(runId);
+        if (ObjectUtils.isNull(run)) {
+            log.warn("[quartz], workflow run {} not found, job {} executes alone", runId, jobKey);
+            return null;
+        }
+        synchronized (run) {
+            WorkflowNode node = run.nodes.get(jobKey);
+            if (ObjectUtils.isNull(node) || WorkflowStatus.RUNNING != node.status) {
+                return null;
+            }
+            node.start(fireInstanceId);
+        }
+        return run;
+    }
+
+    /**
+     * 任务结束: 成功时触发所有上游均已成功的下游任务, 失败时跳过下游任务
+     *
+     * @param fireInstanceId 执行ID(被否决为null)
+     * @param error          失败原因(成功为null)
+     */
+    private void complete(WorkflowRun run, JobKey jobKey, String fireInstanceId, String error) {
+        boolean success = ObjectUtils.isNull(error);
+        List<JobKey> ready = new ArrayList<>();
+        synchronized (run) {
+            WorkflowNode node = run.nodes.get(jobKey);
+            // 执行ID不一致为同一任务的其他执行(如排队补执行), 不影响本次运行
+            if (ObjectUtils.isNull(node) || WorkflowStatus.RUNNING != node.status
+                    || (ObjectUtils.notNull(fireInstanceId) && ObjectUtils.notNull(node.fireInstanceId) && !fireInstanceId.equals(node.fireInstanceId))) {
+                return;
+            }
+            node.finish(success ? WorkflowStatus.SUCCESS : WorkflowStatus.FAILED, error);
+            if (success) {
+                for (Map.Entry<JobKey, Set<JobKey>> entry : run.graph.entrySet()) {
+                    WorkflowNode downstream = run.nodes.get(entry.getKey());
+                    if (entry.getValue().contains(jobKey) && WorkflowStatus.PENDING == downstream.status && run.upstreamsSucceeded(entry.getKey())) {
+                        downstream.trigger();
+                        ready.add(entry.getKey());
+                    }
+                }
+            } else {
+                log.warn("[quartz], workflow job failed, downstream jobs skipped, workflow={}, runId={}, job={}, error={}", run.workflow, run.runId, jobKey, error);
+                run.skipDownstreams(jobKey);
+            }
+            run.checkFinished();
+        }
+        for (JobKey downstream : ready) {
+            trigger(run, downstream);
+        }
+    }
+
+    /**
+     * 在运行中触发任务(触发失败视为任务失败, 任务已暂停时跳过)
+     */
+    private void trigger(WorkflowRun run, JobKey jobKey) {
+        if (jobRegistry.isPaused(jobKey)) {
+            skip(run, jobKey, "job paused");
+            return;
+        }
+        try {
+            scheduler.triggerJob(jobKey, new JobDataMap(Collections.singletonMap(RUN_ID_KEY, run.runId)));
+        } catch (SchedulerException e) {
+            log.error("[quartz], trigger workflow job catch a exception, runId={}, job={}, caused by ==>", run.runId, jobKey, e);
+            complete(run, jobKey, null, "trigger failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 跳过已触发的任务及其下游任务
+     */
+    private void skip(WorkflowRun run, JobKey jobKey, String reason) {
+        synchronized (run) {
+            WorkflowNode node = run.nodes.get(jobKey);
+            if (ObjectUtils.isNull(node) || WorkflowStatus.RUNNING != node.status) {
+                return;
+            }
+            log.warn("[quartz], workflow job skipped, workflow={}, runId={}, job={}, reason={}", run.workflow, run.runId, jobKey, reason);
+            node.finish(WorkflowStatus.SKIPPED, reason);
+            run.skipDownstreams(jobKey);
+            run.checkFinished();
+        }
+    }
+
+    private WorkflowRun findRun(String runId) {
+        if (ObjectUtils.isNull(runId)) {
+            return null;
+        }
+        synchronized (runs) {
+            return runs.get(runId);
+        }
+    }
+
+    /**
+     * 淘汰超出保留数的运行记录(优先淘汰已结束的运行, 调用方持有runs锁)
+     */
+    private void evict() {
+        int retention = Math.max(environment.getProperty(QuartzConstant.WORKFLOW_RUN_RETENTION, Integer.class, 100), 1);
+        Iterator<WorkflowRun> iterator = runs.values().iterator();
+        while (runs.size() > retention && iterator.hasNext()) {
+            if (iterator.next().status.isFinished()) {
+                iterator.remove();
+            }
+        }
+        iterator = runs.values().iterator();
+        while (runs.size() > retention && iterator.hasNext()) {
+            WorkflowRun run = iterator.next();
+            iterator.remove();
+            log.warn("[quartz], unfinished workflow run evicted, workflow={}, runId={}", run.workflow, run.runId);
+        }
+    }
+
+    // ----------------------------- graph -----------------------------
+
+    /**
+     * 解析上游任务名(与下游任务同组)
+     */
+    private Set<JobKey> parseDependsOn(JobKey jobKey, String dependsOn) {
+        if (ObjectUtils.isBlank(dependsOn)) {
+            return Collections.emptySet();
+        }
+        Set<JobKey> jobKeys = new LinkedHashSet<>();
+        for (String name : dependsOn.split(",")) {
+            if (ObjectUtils.notBlank(name.trim())) {
+                jobKeys.add(JobKey.jobKey(name.trim(), jobKey.getGroup()));
+            }
+        }
+        return jobKeys;
+    }
+
+    /**
+     * 沿上游方向是否可到达目标任务(用于检查环)
+     */
+    private boolean reaches(Set<JobKey> from, JobKey target) {
+        Deque<JobKey> stack = new ArrayDeque<>(from);
+        Set<JobKey> visited = new HashSet<>();
+        while (!stack.isEmpty()) {
+            JobKey current = stack.pop();
+            if (current.equals(target)) {
+                return true;
+            }
+            if (visited.add(current)) {
+                stack.addAll(upstreams.getOrDefault(current, Collections.emptySet()));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已加载的上游任务(忽略未加载的上游任务)
+     */
+    private Set<JobKey> upstreamsOf(JobKey jobKey) {
+        Set<JobKey> dependsOn = upstreams.getOrDefault(jobKey, Collections.emptySet());
+        if (jobs.containsAll(dependsOn)) {
+            return dependsOn;
+        }
+        return dependsOn.stream().filter(jobs::contains).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private List<JobKey> downstreamsOf(JobKey jobKey) {
+        List<JobKey> downstreams = new ArrayList<>();
+        if (!jobs.contains(jobKey)) {
+            return downstreams;
+        }
+        for (Map.Entry<JobKey, Set<JobKey>> entry : upstreams.entrySet()) {
+            if (entry.getValue().contains(jobKey) && jobs.contains(entry.getKey())) {
+                downstreams.add(entry.getKey());
+            }
+        }
+        return downstreams;
+    }
+
+    /**
+     * 获取任务所在工作流(连通的所有任务)的依赖关系
+     *
+     * @return <jobKey, 上游jobKey>(按依赖顺序)
+     */
+    private Map<JobKey, Set<JobKey>> graphOf(JobKey jobKey) {
+        Set<JobKey> members = new HashSet<>();
+        Deque<JobKey> queue = new ArrayDeque<>(Collections.singleton(jobKey));
+        while (!queue.isEmpty()) {
+            JobKey current = queue.poll();
+            if (members.add(current)) {
+                queue.addAll(upstreamsOf(current));
+                queue.addAll(downstreamsOf(current));
+            }
+        }
+        for (JobKey member : members) {
+            for (JobKey upstream : upstreams.getOrDefault(member, Collections.emptySet())) {
+                if (!jobs.contains(upstream)) {
+                    log.warn("[quartz], upstream job {} of job {} is not loaded, dependency ignored", upstream, member);
+                }
+            }
+        }
+        // 按依赖顺序排列(上游在前)
+        Map<JobKey, Set<JobKey>> graph = new LinkedHashMap<>(members.size() * 2);
+        while (graph.size() < members.size()) {
+            int size = graph.size();
+            for (JobKey member : members) {
+                Set<JobKey> dependsOn = upstreamsOf(member);
+                if (!graph.containsKey(member) && graph.keySet().containsAll(dependsOn)) {
+                    graph.put(member, dependsOn);
+                }
+            }
+            if (size == graph.size()) {
+                break;
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * 工作流的一次运行
+     */
+    private static final class WorkflowRun {
+
+        private final String runId;
+
+        private final String workflow;
+
+        private final Date startTime = new Date();
+
+        /**
+         * 运行开始时的依赖关系<jobKey, 上游jobKey>, 运行期间任务依赖变更不影响本次运行
+         */
+        private final Map<JobKey, Set<JobKey>> graph;
+
+        private final Map<JobKey, WorkflowNode> nodes;
+
+        private volatile WorkflowStatus status = WorkflowStatus.RUNNING;
+
+        private Date endTime;
+
+        private int resumed;
+
+        private WorkflowRun(String runId, String workflow, Map<JobKey, Set<JobKey>> graph) {
+            this.runId = runId;
+            this.workflow = workflow;
+            this.graph = graph;
+            this.nodes = new LinkedHashMap<>(graph.size() * 2);
+            for (JobKey jobKey : graph.keySet()) {
+                nodes.put(jobKey, new WorkflowNode());
+            }
+        }
+
+        private boolean upstreamsSucceeded(JobKey jobKey) {
+            for (JobKey upstream : graph.get(jobKey)) {
+                WorkflowNode node = nodes.get(upstream);
+                if (ObjectUtils.notNull(node) && WorkflowStatus.SUCCESS != node.status) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skipDownstreams(JobKey jobKey) {
+            Deque<JobKey> queue = new ArrayDeque<>(Collections.singleton(jobKey));
+            while (!queue.isEmpty()) {
+                JobKey current = queue.poll();
+                for (Map.Entry<JobKey, Set<JobKey>> entry : graph.entrySet()) {
+                    WorkflowNode node = nodes.get(entry.getKey());
+                    if (entry.getValue().contains(current) && WorkflowStatus.PENDING == node.status) {
+                        node.finish(WorkflowStatus.SKIPPED, "upstream job " + current.getName() + " failed");
+                        queue.add(entry.getKey());
+                    }
+                }
+            }
+        }
+
+        /**
+         * 所有任务结束时结束本次运行(调用方持有运行锁)
+         */
+        private void checkFinished() {
+            boolean failed = false;
+            for (WorkflowNode node : nodes.values()) {
+                if (!node.status.isFinished()) {
+                    return;
+                }
+                failed |= WorkflowStatus.SUCCESS != node.status;
+            }
+            status = failed ? WorkflowStatus.FAILED : WorkflowStatus.SUCCESS;
+            endTime = new Date();
+            long costMs = endTime.getTime() - startTime.getTime();
+            if (failed) {
+                log.warn("[quartz], workflow run failed, workflow={}, runId={}, costMs={}", workflow, runId, costMs);
+            } else {
+                log.info("[quartz], workflow run succeeded, workflow={}, runId={}, costMs={}", workflow, runId, costMs);
+            }
+        }
+
+        private synchronized WorkflowRunResp snapshot() {
+            WorkflowRunResp resp = new WorkflowRunResp();
+            resp.setRunId(runId);
+            resp.setWorkflow(workflow);
+            resp.setStatus(status);
+            resp.setStartTime(startTime);
+            resp.setEndTime(endTime);
+            resp.setResumed(resumed);
+            List<WorkflowNodeResp> nodeResps = new ArrayList<>(nodes.size());
+            for (Map.Entry<JobKey, WorkflowNode> entry : nodes.entrySet()) {
+                WorkflowNode node = entry.getValue();
+                WorkflowNodeResp nodeResp = new WorkflowNodeResp();
+                nodeResp.setJobName(entry.getKey().getName());
+                nodeResp.setDependsOn(graph.get(entry.getKey()).stream().map(JobKey::getName).collect(Collectors.toList()));
+                nodeResp.setStatus(node.status);
+                nodeResp.setFireInstanceId(node.fireInstanceId);
+                nodeResp.setStartTime(node.startTime);
+                nodeResp.setEndTime(node.endTime);
+                nodeResp.setError(node.error);
+                nodeResps.add(nodeResp);
+            }
+            resp.setNodes(nodeResps);
+            return resp;
+        }
+    }
+
+    /**
+     * 运行中的单个任务(由所属运行加锁)
+     */
+    private static final class WorkflowNode {
+
+        private WorkflowStatus status = WorkflowStatus.PENDING;
+
+        private String fireInstanceId;
+
+        private Date startTime;
+
+        private Date endTime;
+
+        private String error;
+
+        /**
+         * 已触发(下游任务或恢复的任务)
+         */
+        private void trigger() {
+            status = WorkflowStatus.RUNNING;
+            fireInstanceId = null;
+            startTime = new Date();
+            endTime = null;
+            error = null;
+        }
+
+        private void start(String fireInstanceId) {
+            this.status = WorkflowStatus.RUNNING;
+            this.fireInstanceId = fireInstanceId;
+            this.startTime = new Date();
+        }
+
+        private void finish(WorkflowStatus status, String error) {
+            this.status = status;
+            this.endTime = new Date();
+            this.error = error;
+        }
+
+        private void reset() {
+            status = WorkflowStatus.PENDING;
+            endTime = null;
+            error = null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.cg.quartz.log;
+
+/**
+ * 调用者类解析
+ * <pre>
+ *     仅在非任务线程(无任务上下文)打印任务日志时使用
+ *     SecurityManager#getClassContext直接返回调用栈Class数组, 无需像new Throwable().getStackTrace()那样构建整个StackTraceElement数组
+ *     仅继承以访问getClassContext, 不会被安装为系统SecurityManager
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/22
+ */
+final class CallerClassResolver extends SecurityManager {
+
+    /**
+     * 日志包前缀(该包内的类不视为调用者)
+     */
+    private static final String LOG_PACKAGE_PREFIX = CallerClassResolver.class.getPackage().getName() + '.';
+
+    private static class ResolverHolder {
+        private final static CallerClassResolver INSTANCE = new CallerClassResolver();
+    }
+
+    private CallerClassResolver() {
+    }
+
+    /**
+     * 获取日志包外第一个调用者类
+     *
+     * @return 调用者类(未找到返回null)
+     */
+    static Class<?> getCallerClass() {
+        Class<?>[] classes = ResolverHolder.INSTANCE.getClassContext();
+        for (Class<?> clazz : classes) {
+            if (!clazz.getName().startsWith(LOG_PACKAGE_PREFIX)) {
+                return clazz;
+            }
+        }
+        return null;
+    }
+}
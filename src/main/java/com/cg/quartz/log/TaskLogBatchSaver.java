@@ -0,0 +1,183 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.entity.po.TaskLogPO;
+import com.cg.quartz.service.TaskLogStoreService;
+import com.cg.quartz.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.DataTruncation;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 任务日志批量写入数据库
+ * <pre>
+ *     写入前按t_quartz_task_log字段长度截断字符串字段, 避免超长字段导致整批写入失败
+ *     整批写入出现非瞬时异常(SQLNonTransientException, DataTruncation, Spring NonTransientDataAccessException)时逐条重试,
+ *     仍失败的日志写入死信文件(溢出文件目录下的dead-letter.log, 未启用溢出文件时输出错误日志), 其余日志正常写入
+ *     瞬时异常(数据库不可用等)由调用方写入溢出文件或等待重试
+ *     回放时跳过(fire_instance_id, sequence)重复的日志(uk_fire_instance_sequence); 逐条重试使用普通insert, 仅唯一键重复(1062)视为已写入,
+ *     已部分写入的批次重试不会产生重复日志, 其他错误(超长, 非法值, 非空约束等)的日志写入死信, 不会被截断或置为默认值写入
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/26
+ */
+final class TaskLogBatchSaver {
+
+    private final Logger log = LoggerFactory.getLogger(TaskLogBatchSaver.class);
+
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    /**
+     * Spring非瞬时数据访问异常(按类名判断, 不依赖spring-tx)
+     */
+    private static final String NON_TRANSIENT_DATA_ACCESS_EXCEPTION = "org.springframework.dao.NonTransientDataAccessException";
+
+    /**
+     * MySQL唯一键重复错误码(ER_DUP_ENTRY)
+     */
+    private static final int DUPLICATE_ENTRY_ERROR_CODE = 1062;
+
+    private final TaskLogStoreService logStoreService;
+
+    private final int batchSize;
+
+    /**
+     * 死信文件(未启用溢出文件为null)
+     */
+    private final File deadLetterFile;
+
+    TaskLogBatchSaver(TaskLogStoreService logStoreService, int batchSize, File spillDir) {
+        this.logStoreService = logStoreService;
+        this.batchSize = batchSize;
+        this.deadLetterFile = ObjectUtils.isNull(spillDir) ? null : new File(spillDir, DEAD_LETTER_FILE);
+    }
+
+    /**
+     * 批量写入
+     *
+     * @param logs            日志
+     * @param ignoreDuplicate 是否忽略已写入的日志(回放溢出文件)
+     * @return 写入死信的日志下标(整批写入失败且不是非瞬时异常返回null, 由调用方处理)
+     */
+    BitSet save(List<TaskLogPO> logs, boolean ignoreDuplicate) {
+        for (TaskLogPO logPo : logs) {
+            clamp(logPo);
+        }
+        try {
+            if (ignoreDuplicate) {
+                logStoreService.saveBatchIgnoreDuplicate(logs, batchSize);
+                return new BitSet();
+            }
+            return logStoreService.saveBatch(logs, batchSize) ? new BitSet() : null;
+        } catch (Exception e) {
+            if (!isNonTransient(e)) {
+                log.error("[quartz], save {} logs to database catch a exception, caused by ==>", logs.size(), e);
+                return null;
+            }
+            log.warn("[quartz], save {} logs to database catch a non-transient exception, retry one by one, caused by ==> {}",
+                    logs.size(), e.toString());
+        }
+        return saveOneByOne(logs);
+    }
+
+    /**
+     * 逐条写入, 非瞬时异常的日志写入死信
+     *
+     * @return 写入死信的日志下标(出现瞬时异常返回null)
+     */
+    private BitSet saveOneByOne(List<TaskLogPO> logs) {
+        BitSet deadLetters = new BitSet(logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            try {
+                logStoreService.save(logs.get(i));
+            } catch (Exception e) {
+                if (isDuplicateKey(e)) {
+                    // 整批写入失败前已写入该日志
+                    continue;
+                }
+                if (!isNonTransient(e)) {
+                    log.error("[quartz], save task log to database catch a exception, caused by ==>", e);
+                    return null;
+                }
+                deadLetter(logs.get(i), e);
+                deadLetters.set(i);
+            }
+        }
+        return deadLetters;
+    }
+
+    /**
+     * 写入死信文件(写入失败时输出错误日志)
+     */
+    private synchronized void deadLetter(TaskLogPO logPo, Exception e) {
+        if (ObjectUtils.notNull(deadLetterFile)) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(deadLetterFile, true), StandardCharsets.UTF_8)) {
+                writer.write(logPo + " caused by ==> " + e + System.lineSeparator());
+                return;
+            } catch (IOException ex) {
+                log.error("[quartz], write task log dead letter file {} catch a exception, caused by ==>", deadLetterFile, ex);
+            }
+        }
+        log.error("[quartz], task log can not be saved to database, dropped, log={}, caused by ==> {}", logPo, e.toString());
+    }
+
+    /**
+     * 异常链中是否有唯一键重复异常(日志已写入)
+     */
+    private static boolean isDuplicateKey(Throwable t) {
+        for (int depth = 0; ObjectUtils.notNull(t) && depth < 16; depth++) {
+            // 唯一键重复为SQLIntegrityConstraintViolationException, 其错误码区分非空约束等其他完整性错误
+            if (t instanceof SQLException && ((SQLException) t).getErrorCode() == DUPLICATE_ENTRY_ERROR_CODE) {
+                return true;
+            }
+            t = t.getCause() == t ? null : t.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * 异常链中是否有非瞬时异常(重试也不会成功)
+     */
+    private static boolean isNonTransient(Throwable t) {
+        for (int depth = 0; ObjectUtils.notNull(t) && depth < 16; depth++) {
+            if (t instanceof SQLNonTransientException || t instanceof DataTruncation) {
+                return true;
+            }
+            for (Class<?> type = t.getClass(); ObjectUtils.notNull(type); type = type.getSuperclass()) {
+                if (NON_TRANSIENT_DATA_ACCESS_EXCEPTION.equals(type.getName())) {
+                    return true;
+                }
+            }
+            Throwable next = t instanceof SQLException ? ((SQLException) t).getNextException() : null;
+            t = ObjectUtils.notNull(next) && next != t ? next : (t.getCause() == t ? null : t.getCause());
+        }
+        return false;
+    }
+
+    /**
+     * 按t_quartz_task_log字段长度截断字符串字段
+     */
+    static void clamp(TaskLogPO logPo) {
+        logPo.setType(TaskLogFormatter.truncate(logPo.getType(), QuartzConstant.TASK_LOG_TYPE_MAX_LENGTH));
+        logPo.setThread(TaskLogFormatter.truncate(logPo.getThread(), QuartzConstant.TASK_LOG_NAME_MAX_LENGTH));
+        logPo.setClassName(TaskLogFormatter.truncate(logPo.getClassName(), QuartzConstant.TASK_LOG_NAME_MAX_LENGTH));
+        logPo.setTask(TaskLogFormatter.truncate(logPo.getTask(), QuartzConstant.TASK_LOG_NAME_MAX_LENGTH));
+        logPo.setContent(TaskLogFormatter.truncate(logPo.getContent(), QuartzConstant.TASK_LOG_CONTENT_MAX_LENGTH));
+        logPo.setEvent(TaskLogFormatter.truncate(logPo.getEvent(), QuartzConstant.TASK_LOG_EVENT_MAX_LENGTH));
+        logPo.setKv(TaskLogFormatter.truncate(logPo.getKv(), QuartzConstant.TASK_LOG_KV_MAX_LENGTH));
+        logPo.setFireInstanceId(TaskLogFormatter.truncate(logPo.getFireInstanceId(), QuartzConstant.TASK_LOG_NAME_MAX_LENGTH));
+    }
+}
@@ -0,0 +1,183 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.constant.em.TaskLogTemplateEnum;
+
+/**
+ * 任务日志事件(可复用)
+ * <pre>
+ *     环形缓冲区预分配的日志槽位, 生产者仅复制级别, 线程, 任务及参数引用, 渲染和持久化在写入线程完成
+ *     同步日志模式下为一次性实例
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/24
+ * @see TaskLogRingBuffer
+ */
+final class TaskLogEvent {
+
+    /**
+     * 槽位序号(环形缓冲区状态)
+     */
+    volatile long sequence;
+
+    /**
+     * 当前占用该槽位的位置
+     */
+    long cursor;
+
+    /**
+     * 是否环形缓冲区槽位(false: 同步日志一次性实例)
+     */
+    final boolean pooled;
+
+    TaskLog.LogLevel level;
+
+    TaskLogTemplateEnum template;
+
+    /**
+     * 日志线程(写入线程中取线程名, 避免生产者复制线程名)
+     */
+    Thread thread;
+
+    String className;
+
+    String task;
+
+    /**
+     * 本次执行ID及日志序号(非任务线程为null, 0)
+     */
+    String fireInstanceId;
+
+    int logSequence;
+
+    /**
+     * 简单日志内容或日志格式
+     */
+    String message;
+
+    Object arg1;
+
+    Object arg2;
+
+    /**
+     * 3个及以上参数(引用调用方数组)
+     */
+    Object[] args;
+
+    int argCount;
+
+    Throwable throwable;
+
+    /**
+     * 结构化日志事件名, 键值对JSON, 耗时(非结构化日志为null, null, NO_ELAPSED)
+     */
+    String eventName;
+
+    String kv;
+
+    long elapsedMs = TaskLogRecord.NO_ELAPSED;
+
+    long timestamp;
+
+    TaskLogEvent(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * 设置日志来源
+     */
+    TaskLogEvent source(TaskLog.LogLevel level, String className, String task) {
+        this.level = level;
+        this.className = className;
+        this.task = task;
+        this.thread = Thread.currentThread();
+        this.timestamp = System.currentTimeMillis();
+        return this;
+    }
+
+    /**
+     * 设置执行信息
+     */
+    TaskLogEvent execution(String fireInstanceId, int logSequence) {
+        this.fireInstanceId = fireInstanceId;
+        this.logSequence = logSequence;
+        return this;
+    }
+
+    /**
+     * 简单日志
+     */
+    TaskLogEvent simple(String content) {
+        this.template = TaskLogTemplateEnum.SIMPLE;
+        this.message = content;
+        return this;
+    }
+
+    /**
+     * 模版日志(1~2个参数)
+     */
+    TaskLogEvent format(String format, Object arg1, Object arg2, int argCount) {
+        this.template = TaskLogTemplateEnum.MORE;
+        this.message = format;
+        this.arg1 = arg1;
+        this.arg2 = arg2;
+        this.argCount = argCount;
+        return this;
+    }
+
+    /**
+     * 模版日志(多个参数)
+     */
+    TaskLogEvent format(String format, Object[] args) {
+        this.template = TaskLogTemplateEnum.MORE;
+        this.message = format;
+        this.args = args;
+        this.argCount = args == null ? 0 : args.length;
+        return this;
+    }
+
+    /**
+     * 异常日志
+     */
+    TaskLogEvent exception(Throwable throwable) {
+        this.template = TaskLogTemplateEnum.EXCEPTION;
+        this.throwable = throwable;
+        return this;
+    }
+
+    /**
+     * 结构化日志(内容已在生产者线程渲染)
+     */
+    TaskLogEvent structured(String content, String eventName, String kv, long elapsedMs) {
+        this.template = TaskLogTemplateEnum.SIMPLE;
+        this.message = content;
+        this.eventName = eventName;
+        this.kv = kv;
+        this.elapsedMs = elapsedMs;
+        return this;
+    }
+
+    /**
+     * 释放引用(槽位归还前调用)
+     */
+    void clear() {
+        level = null;
+        template = null;
+        thread = null;
+        className = null;
+        task = null;
+        fireInstanceId = null;
+        logSequence = 0;
+        message = null;
+        arg1 = null;
+        arg2 = null;
+        args = null;
+        argCount = 0;
+        throwable = null;
+        eventName = null;
+        kv = null;
+        elapsedMs = TaskLogRecord.NO_ELAPSED;
+    }
+}
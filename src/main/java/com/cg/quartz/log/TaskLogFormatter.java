@@ -0,0 +1,248 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.constant.QuartzConstant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务日志模版格式化
+ * <pre>
+ *     与SLF4J占位符语义一致: {}为占位符, \{}输出{}, \\{}输出\后接占位符, 参数不足时保留{}, 多余参数忽略
+ *     最后一个参数为Throwable时视为异常, 不参与填充(由调用方输出异常栈)
+ *     日志格式解析后按格式缓存(字面量片段 + 占位符位置), 单次遍历写入线程复用的StringBuilder, 结果截断至日志内容最大长度
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/23
+ */
+final class TaskLogFormatter {
+
+    private static final String DELIM = "{}";
+
+    private static final char ESCAPE_CHAR = '\\';
+
+    /**
+     * 缓存格式数量上限(日志格式通常是常量, 超过上限后不再缓存)
+     */
+    private static final int MAX_CACHED_FORMATS = 4096;
+
+    /**
+     * 线程复用StringBuilder容量上限(超过后丢弃重建, 避免长期占用大块内存)
+     */
+    private static final int MAX_REUSED_CAPACITY = QuartzConstant.TASK_LOG_CONTENT_MAX_LENGTH * 4;
+
+    private static final Map<String, CompiledFormat> FORMAT_CACHE = new ConcurrentHashMap<>(256);
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private TaskLogFormatter() {
+    }
+
+    /**
+     * 填充日志模版
+     *
+     * @param format 日志格式
+     * @param args   填充参数
+     * @return 日志内容(不超过maxLength)
+     */
+    static String format(String format, Object[] args, int maxLength) {
+        return format(format, null, null, args, args == null ? 0 : args.length, maxLength);
+    }
+
+    /**
+     * 填充日志模版
+     * <pre>
+     *     1~2个参数时直接传入arg1, arg2(args为null), 无需构建参数数组
+     * </pre>
+     *
+     * @param format    日志格式
+     * @param arg1      第一个参数
+     * @param arg2      第二个参数
+     * @param args      参数数组(优先于arg1, arg2)
+     * @param argCount  参数个数
+     * @param maxLength 最大长度
+     * @return 日志内容(不超过maxLength)
+     */
+    static String format(String format, Object arg1, Object arg2, Object[] args, int argCount, int maxLength) {
+        if (format == null) {
+            return null;
+        }
+        StringBuilder builder = acquireBuilder();
+        compile(format).appendTo(builder, arg1, arg2, args, argCount, maxLength);
+        return truncate(builder, maxLength);
+    }
+
+    /**
+     * 获取末尾异常参数
+     * <pre>
+     *     与SLF4J(MessageFormatter.getThrowableCandidate)一致: 最后一个参数为Throwable时视为异常, 填充时参数个数减一
+     * </pre>
+     *
+     * @param arg1     第一个参数
+     * @param arg2     第二个参数
+     * @param args     参数数组(优先于arg1, arg2)
+     * @param argCount 参数个数
+     * @return 异常(最后一个参数不是Throwable时返回null)
+     */
+    static Throwable throwableCandidate(Object arg1, Object arg2, Object[] args, int argCount) {
+        if (argCount == 0) {
+            return null;
+        }
+        Object last = args != null ? args[argCount - 1] : (argCount == 1 ? arg1 : arg2);
+        return last instanceof Throwable ? (Throwable) last : null;
+    }
+
+    /**
+     * 截断日志内容
+     *
+     * @param content   日志内容
+     * @param maxLength 最大长度
+     * @return 截断后日志内容
+     */
+    static String truncate(String content, int maxLength) {
+        return content == null || content.length() <= maxLength ? content : content.substring(0, maxLength);
+    }
+
+    /**
+     * 获取线程复用的StringBuilder
+     */
+    static StringBuilder acquireBuilder() {
+        StringBuilder builder = BUILDER.get();
+        if (builder.capacity() > MAX_REUSED_CAPACITY) {
+            builder = new StringBuilder(256);
+            BUILDER.set(builder);
+        }
+        builder.setLength(QuartzConstant.ZERO);
+        return builder;
+    }
+
+    /**
+     * 截断并输出StringBuilder内容
+     */
+    static String truncate(StringBuilder builder, int maxLength) {
+        if (builder.length() > maxLength) {
+            builder.setLength(maxLength);
+        }
+        return builder.toString();
+    }
+
+    private static CompiledFormat compile(String format) {
+        CompiledFormat compiled = FORMAT_CACHE.get(format);
+        if (compiled != null) {
+            return compiled;
+        }
+        compiled = CompiledFormat.parse(format);
+        if (FORMAT_CACHE.size() < MAX_CACHED_FORMATS) {
+            FORMAT_CACHE.putIfAbsent(format, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * 参数转字符串(数组展开, toString异常不影响日志输出)
+     */
+    static void appendParam(StringBuilder builder, Object param) {
+        if (param == null || !param.getClass().isArray()) {
+            try {
+                builder.append(param);
+            } catch (Throwable t) {
+                builder.append("[FAILED toString()]");
+            }
+            return;
+        }
+        if (param instanceof Object[]) {
+            builder.append(Arrays.deepToString((Object[]) param));
+        } else if (param instanceof int[]) {
+            builder.append(Arrays.toString((int[]) param));
+        } else if (param instanceof long[]) {
+            builder.append(Arrays.toString((long[]) param));
+        } else if (param instanceof byte[]) {
+            builder.append(Arrays.toString((byte[]) param));
+        } else if (param instanceof short[]) {
+            builder.append(Arrays.toString((short[]) param));
+        } else if (param instanceof char[]) {
+            builder.append(Arrays.toString((char[]) param));
+        } else if (param instanceof boolean[]) {
+            builder.append(Arrays.toString((boolean[]) param));
+        } else if (param instanceof float[]) {
+            builder.append(Arrays.toString((float[]) param));
+        } else {
+            builder.append(Arrays.toString((double[]) param));
+        }
+    }
+
+    /**
+     * 预解析日志格式
+     * <pre>
+     *     literals[i]为第i个占位符前的字面量, 最后一个元素为末尾字面量, 占位符数量 = literals.length - 1
+     *     literalStarts[i]为literals[i]在原格式中的起始位置(参数用尽后SLF4J按原格式输出剩余部分)
+     * </pre>
+     */
+    private static final class CompiledFormat {
+
+        private final String format;
+
+        private final String[] literals;
+
+        private final int[] literalStarts;
+
+        private CompiledFormat(String format, String[] literals, int[] literalStarts) {
+            this.format = format;
+            this.literals = literals;
+            this.literalStarts = literalStarts;
+        }
+
+        private static CompiledFormat parse(String format) {
+            List<String> literals = new ArrayList<>(4);
+            List<Integer> literalStarts = new ArrayList<>(4);
+            StringBuilder literal = new StringBuilder(format.length());
+            int from = 0;
+            int index;
+            literalStarts.add(from);
+            while ((index = format.indexOf(DELIM, from)) >= 0) {
+                boolean escaped = index > 0 && format.charAt(index - 1) == ESCAPE_CHAR;
+                boolean doubleEscaped = escaped && index > 1 && format.charAt(index - 2) == ESCAPE_CHAR;
+                if (escaped && !doubleEscaped) {
+                    // \{} 输出{}
+                    literal.append(format, from, index - 1).append(DELIM);
+                } else {
+                    // \\{} 输出\ + 占位符
+                    literal.append(format, from, doubleEscaped ? index - 1 : index);
+                    literals.add(literal.toString());
+                    literalStarts.add(index + DELIM.length());
+                    literal.setLength(QuartzConstant.ZERO);
+                }
+                from = index + DELIM.length();
+            }
+            literals.add(literal.append(format, from, format.length()).toString());
+            int[] starts = new int[literalStarts.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = literalStarts.get(i);
+            }
+            return new CompiledFormat(format, literals.toArray(new String[0]), starts);
+        }
+
+        private void appendTo(StringBuilder builder, Object arg1, Object arg2, Object[] args, int argCount, int maxLength) {
+            int slots = literals.length - 1;
+            if (argCount == 0) {
+                builder.append(format);
+                return;
+            }
+            builder.append(literals[0]);
+            for (int i = 1; i <= slots && builder.length() < maxLength; i++) {
+                appendParam(builder, args != null ? args[i - 1] : (i == 1 ? arg1 : arg2));
+                if (i == argCount && i < slots) {
+                    // 参数用尽, 剩余部分按原格式输出
+                    builder.append(format, literalStarts[i], format.length());
+                    return;
+                }
+                builder.append(literals[i]);
+            }
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package com.cg.quartz.log;
 
 import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.api.resp.TaskLogStatisticsResp;
 import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.context.TaskContext;
 import com.cg.quartz.constant.em.TaskLogTemplateEnum;
-import com.cg.quartz.entity.po.TaskLogBO;
+import com.cg.quartz.entity.po.TaskLogConfigBO;
 import com.cg.quartz.entity.po.TaskLogPO;
 import com.cg.quartz.service.TaskLogStoreService;
+import com.cg.quartz.service.TaskTraceStoreService;
 import com.cg.quartz.utils.Assert;
+import com.cg.quartz.utils.CompressUtils;
 import com.cg.quartz.utils.ExceptionUtils;
 import com.cg.quartz.utils.ObjectUtils;
+import com.cg.quartz.utils.SpringContextUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ClassUtils;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.beans.Introspector;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 定时任务日志Handler
@@ -36,12 +44,57 @@ public class TaskLogHandler {
     /**
      * 是否异步日志
      */
-    private static boolean asyncLog;
+    private static volatile boolean asyncLog;
 
     /**
-     * 填充日志正则表达式
+     * 异步日志批量写入器(非异步模式为null)
      */
-    private Pattern pattern = Pattern.compile("\\{[^}]*\\}");
+    private static volatile TaskLogWriter logWriter;
+
+    /**
+     * 异常栈去重登记(未启用持久化为null)
+     */
+    private static volatile TaskTraceRegistry traceRegistry;
+
+    /**
+     * 任务最近日志(未启用为null, 内存模式同样可用)
+     */
+    private static volatile TaskRecentLogs recentLogs;
+
+    /**
+     * 日志内容最大长度(超过overflowThreshold部分压缩存储)
+     */
+    private static volatile int contentMaxLength = TaskLogConfigBO.builder().build().getContentMaxLength();
+
+    /**
+     * 日志内容超过该长度时完整内容压缩写入content_overflow, content仅保留该长度前缀
+     */
+    private static volatile int overflowThreshold = QuartzConstant.TASK_LOG_CONTENT_MAX_LENGTH;
+
+    /**
+     * 异常日志输出选项(日志内容最大长度内输出)
+     */
+    private static volatile ExceptionUtils.TraceOptions traceOptions = traceOptions(TaskLogConfigBO.builder().build());
+
+    /**
+     * 任务日志收集策略(任务名 -> 策略, 未配置的任务收集全部日志)
+     */
+    private static final Map<String, TaskLogPolicy> LOG_POLICIES = new ConcurrentHashMap<>(16);
+
+    /**
+     * 非任务线程调用类对应的任务名(类名 -> 任务名)
+     */
+    private static final Map<String, String> INVOKER_TASKS = new ConcurrentHashMap<>(64);
+
+    /**
+     * 调用类对应的任务名是否可缓存(Spring容器初始化完成(ContextRefreshedEvent)后加载日志服务时开启, 关闭时停止)
+     */
+    private static volatile boolean invokerTaskCacheable;
+
+    /**
+     * 异步日志统计(写入器关闭后保留)
+     */
+    private static final TaskLogStatistics STATISTICS = new TaskLogStatistics();
 
     /**
      * 日志分隔符
@@ -51,9 +104,114 @@ public class TaskLogHandler {
     private TaskLogHandler() {
     }
 
-    public static void init(TaskLogStoreService logStoreService, boolean asyncLog) {
+    public static synchronized void init(TaskLogStoreService logStoreService, TaskTraceStoreService traceStoreService, TaskLogConfigBO config) {
         TaskLogHandler.logStoreService = logStoreService;
-        TaskLogHandler.asyncLog = asyncLog;
+        TaskLogHandler.contentMaxLength = Math.max(config.getContentMaxLength(), QuartzConstant.ONE);
+        TaskLogHandler.overflowThreshold = Math.min(Math.max(config.getOverflowThreshold(), QuartzConstant.ONE), QuartzConstant.TASK_LOG_CONTENT_MAX_LENGTH);
+        TaskLogHandler.traceOptions = traceOptions(config);
+        if (ObjectUtils.notNull(logStoreService) && ObjectUtils.notNull(traceStoreService) && ObjectUtils.isNull(traceRegistry)) {
+            traceRegistry = new TaskTraceRegistry(traceStoreService);
+        }
+        if (config.getRecentSize() > 0 && ObjectUtils.isNull(recentLogs)) {
+            recentLogs = new TaskRecentLogs(config.getRecentSize(), config.getRecentMaxEntries());
+        }
+        TaskLogHandler.asyncLog = config.isAsyncLog();
+        if (asyncLog && ObjectUtils.notNull(logStoreService) && ObjectUtils.isNull(logWriter)) {
+            logWriter = new TaskLogWriter(config, logStoreService, getInstance()::toLogPo, STATISTICS);
+        }
+        invokerTaskCacheable = true;
+    }
+
+    private static ExceptionUtils.TraceOptions traceOptions(TaskLogConfigBO config) {
+        return ExceptionUtils.TraceOptions.builder()
+                .maxFrames(config.getTraceMaxFrames())
+                .maxCauseDepth(config.getTraceMaxCauseDepth())
+                .collapsedPackages(config.getTraceCollapsedPackages())
+                .maxChars(Math.max(config.getContentMaxLength() - QuartzConstant.ERROR_LOG_MARK_HEAD.length(), QuartzConstant.ONE))
+                .build();
+    }
+
+    /**
+     * 关闭异步日志, 写完队列中剩余日志(之后的日志同步写入)
+     *
+     * @param timeoutMs 最长等待时间
+     */
+    public static synchronized void shutdown(long timeoutMs) {
+        asyncLog = false;
+        invokerTaskCacheable = false;
+        if (ObjectUtils.notNull(logWriter)) {
+            logWriter.close(timeoutMs);
+            logWriter = null;
+        }
+        if (ObjectUtils.notNull(traceRegistry)) {
+            traceRegistry.close();
+            traceRegistry = null;
+        }
+    }
+
+    /**
+     * 获取异步日志统计
+     *
+     * @return 异步日志统计(按日志等级)
+     */
+    public static TaskLogStatisticsResp getStatistics() {
+        TaskLogStatisticsResp statistics = new TaskLogStatisticsResp();
+        TaskLogWriter writer = logWriter;
+        statistics.setAsyncLog(asyncLog && ObjectUtils.notNull(writer));
+        if (ObjectUtils.notNull(writer)) {
+            statistics.setOverflowPolicy(writer.getOverflowPolicy().name());
+            statistics.setCapacity(writer.capacity());
+            statistics.setPending(writer.pending());
+            statistics.setSpillSegments(writer.spillSegments());
+        }
+        statistics.setQueued(STATISTICS.queued());
+        statistics.setDropped(STATISTICS.dropped());
+        statistics.setPersisted(STATISTICS.persisted());
+        statistics.setFailed(STATISTICS.failed());
+        statistics.setSpilled(STATISTICS.spilled());
+        statistics.setReplayed(STATISTICS.replayed());
+        return statistics;
+    }
+
+    /**
+     * 更新任务日志收集策略(持久化模式由配置自动刷新任务同步t_quartz_task.log_level, log_sample_rate)
+     * <pre>
+     *     仅作用于任务线程(有任务上下文)中的日志, 低于最低等级或未被INFO采样的日志不写入数据库及最近日志
+     * </pre>
+     *
+     * @param task           任务名
+     * @param minLevel       最低收集等级(INFO, WARN, ERROR, 为空不限)
+     * @param infoSampleRate INFO日志收集比例(0~1, 为空全部收集)
+     */
+    public static void updateLogPolicy(String task, String minLevel, Double infoSampleRate) {
+        TaskLog.LogLevel level = TaskLog.LogLevel.INFO;
+        if (ObjectUtils.notBlank(minLevel)) {
+            try {
+                level = TaskLog.LogLevel.valueOf(minLevel.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                getInstance().log.warn("[quartz], ignore illegal task log level {} of {}", minLevel, task);
+            }
+        }
+        TaskLogPolicy policy = new TaskLogPolicy(level, ObjectUtils.isNull(infoSampleRate) ? 1 : infoSampleRate);
+        TaskLogPolicy current = policy.isDefault() ? LOG_POLICIES.remove(task) : LOG_POLICIES.put(task, policy);
+        if (policy.isDefault() ? ObjectUtils.notNull(current) : !policy.sameAs(current)) {
+            getInstance().log.info("[quartz], task log policy changed, task={}, {}", task, policy);
+        }
+    }
+
+    /**
+     * 读取任务最近日志(内存, 不查询数据库)
+     * <pre>
+     *     序号为该任务在内存中的日志序号(从1开始), 首次读取传入0, 之后传入迭代器getSequence()继续读取
+     * </pre>
+     *
+     * @param task          任务名
+     * @param sinceSequence 从该序号之后开始读取
+     * @return 日志迭代器(未启用最近日志或任务无日志时为空迭代器)
+     */
+    public static TaskRecentLogIterator recentLogs(String task, long sinceSequence) {
+        TaskRecentLogs logs = recentLogs;
+        return ObjectUtils.notNull(logs) ? logs.iterator(task, sinceSequence) : new TaskRecentLogIterator(null, sinceSequence);
     }
 
     /**
@@ -68,109 +226,319 @@ public class TaskLogHandler {
     }
 
     /**
-     * 获取外层调用者文件名(即调用本类 info, warn, error方法者)
+     * 获取调用类对应的任务名
+     * <pre>
+     *     t_quartz_task_log.task统一为任务名(jobName, 即任务的Spring bean名), 仅在无任务上下文时按调用类解析:
+     *     调用类为Spring bean时取bean名(@Task, Job任务类即为jobName), 非bean类按Spring默认bean命名规则取首字母小写的简单类名
+     *     按类名缓存(Spring容器初始化完成前及容器关闭后不缓存, 解析bean名失败按类名处理时不缓存)
+     * </pre>
      *
-     * @return 外层调用者文件名
+     * @param invokerClass 调用类
+     * @return 任务名
      */
-    private String getInvokerClassName() {
-        StackTraceElement[] stack = (new Throwable()).getStackTrace();
-        StackTraceElement ste;
-        String invokerFileName = null;
-
-        // 0层调用:getInvokerFileName(), 1层调用: info()/warn()/error(), 2层调用: 外部调用者
-        if (ObjectUtils.notEmpty(stack) && ObjectUtils.notNull(ste = stack[QuartzConstant.TWO])) {
-            invokerFileName = ste.getClassName();
+    private static String getInvokerTask(Class<?> invokerClass) {
+        if (ObjectUtils.isNull(invokerClass)) {
+            return QuartzConstant.EMPTY_STRING;
+        }
+        String task = INVOKER_TASKS.get(invokerClass.getName());
+        if (ObjectUtils.notNull(task)) {
+            return task;
+        }
+        Class<?> userClass = ClassUtils.getUserClass(invokerClass);
+        ApplicationContext applicationContext = SpringContextUtils.getApplicationContext();
+        boolean cacheable = invokerTaskCacheable;
+        if (ObjectUtils.isNull(applicationContext)) {
+            return Introspector.decapitalize(ClassUtils.getShortName(userClass));
         }
-        return ObjectUtils.notBlank(invokerFileName) ? invokerFileName : QuartzConstant.EMPTY_STRING;
+        String[] beanNames;
+        try {
+            beanNames = applicationContext.getBeanNamesForType(userClass, true, false);
+        } catch (Exception e) {
+            // 容器关闭中等情况按类名处理(不缓存)
+            return Introspector.decapitalize(ClassUtils.getShortName(userClass));
+        }
+        task = beanNames.length == 1 ? beanNames[0] : Introspector.decapitalize(ClassUtils.getShortName(userClass));
+        if (cacheable) {
+            INVOKER_TASKS.put(invokerClass.getName(), task);
+        }
+        return task;
     }
 
     /**
-     * 获取简短任务名
+     * 占用日志事件
+     * <pre>
+     *     任务线程从任务上下文获取任务信息及本次执行ID, 日志序号, 并按任务日志收集策略过滤, 非任务线程解析调用者类名
+     * </pre>
      *
-     * @param invokerClassName 调用类名
-     * @return 简短任务名
+     * @param level 日志等级
+     * @return 日志事件(未启用持久化及最近日志或日志被丢弃返回null)
      */
-    private String getInvokerTask(String invokerClassName) {
-        if (ObjectUtils.isBlank(invokerClassName)) {
-            return QuartzConstant.EMPTY_STRING;
+    private TaskLogEvent claimEvent(TaskLog.LogLevel level) {
+        if (ObjectUtils.isNull(logStoreService) && ObjectUtils.isNull(recentLogs)) {
+            return null;
         }
-        int index = invokerClassName.lastIndexOf('.');
-        return invokerClassName.substring(index + 1);
+        TaskContext context = TaskContext.current();
+        if (ObjectUtils.notNull(context)) {
+            // 按任务策略过滤(先于占用事件, 过滤的日志无开销)
+            TaskLogPolicy policy = LOG_POLICIES.get(context.getJobName());
+            if (ObjectUtils.notNull(policy) && !policy.accept(level)) {
+                return null;
+            }
+            TaskLogEvent event = claimEvent(level, context.getClassName(), context.getJobName());
+            return ObjectUtils.notNull(event) ? event.execution(context.getFireInstanceId(), context.nextLogSequence()) : null;
+        }
+        Class<?> invokerClass = CallerClassResolver.getCallerClass();
+        String className = ObjectUtils.notNull(invokerClass) ? invokerClass.getName() : QuartzConstant.EMPTY_STRING;
+        return claimEvent(level, className, getInvokerTask(invokerClass));
     }
 
     /**
-     * 日志持久化
+     * 占用日志事件
+     * <pre>
+     *     异步模式占用环形缓冲区槽位(已满时按overflowPolicy处理), 同步模式(或写入器关闭期间)创建一次性事件
+     * </pre>
      *
-     * @param type 日志类型
+     * @param level 日志等级
      * @param className 任务名(全限定类名)
-     * @param logBo 日志BO
-     * @see com.cg.quartz.annotaion.TaskLog.LogLevel
+     * @param task 任务名
+     * @return 日志事件(未启用持久化及最近日志或日志被丢弃返回null)
      */
-    private void storeLog(String type, String className, TaskLogBO logBo) {
-        boolean canStoreLog = ObjectUtils.notNull(logStoreService);
-        if (!canStoreLog) {
-            return;
+    private TaskLogEvent claimEvent(TaskLog.LogLevel level, String className, String task) {
+        if (ObjectUtils.isNull(logStoreService) && ObjectUtils.isNull(recentLogs)) {
+            return null;
+        }
+        TaskLogWriter writer = logWriter;
+        TaskLogEvent event = null;
+        if (asyncLog && ObjectUtils.notNull(writer)) {
+            event = writer.claim(level);
+            // 日志已按缓冲区策略丢弃, 写入器关闭期间的日志转为同步写入
+            if (ObjectUtils.isNull(event) && asyncLog) {
+                return null;
+            }
+        }
+        return (ObjectUtils.notNull(event) ? event : new TaskLogEvent(false)).source(level, className, task);
+    }
+
+    /**
+     * 日志持久化(内存模式仅写入最近日志)
+     *
+     * @param event 已填充的日志事件
+     */
+    private void storeLog(TaskLogEvent event) {
+        if (event.pooled) {
+            TaskLogWriter writer = logWriter;
+            if (ObjectUtils.notNull(writer)) {
+                writer.publish(event);
+                return;
+            }
+            // 写入器已关闭(关闭期间占用的槽位不再读取), 同步写入
+        }
+        TaskLogPO logPo = toLogPo(event);
+        if (ObjectUtils.notNull(logPo) && ObjectUtils.notNull(logStoreService)) {
+            logStoreService.save(logPo);
+        }
+    }
+
+    /**
+     * 日志事件转换为日志PO并写入最近日志(异步模式在写入线程中执行)
+     *
+     * @param event 日志事件
+     * @return 日志PO(解析日志模版失败返回null)
+     */
+    private TaskLogPO toLogPo(TaskLogEvent event) {
+        TaskLogPO logPo = renderLogPo(event);
+        TaskRecentLogs logs = recentLogs;
+        if (ObjectUtils.notNull(logPo) && ObjectUtils.notNull(logs)) {
+            logs.append(logPo);
+        }
+        return logPo;
+    }
+
+    /**
+     * 渲染日志PO
+     *
+     * @param event 日志事件
+     * @return 日志PO(解析日志模版失败返回null)
+     */
+    private TaskLogPO renderLogPo(TaskLogEvent event) {
+        TaskLogPO logPo = new TaskLogPO(event.level.name(), event.thread.getName(), event.className, event.task);
+        logPo.setCreateTime(new Date(event.timestamp));
+        if (ObjectUtils.notNull(event.fireInstanceId)) {
+            logPo.setFireInstanceId(event.fireInstanceId);
+            logPo.setSequence(event.logSequence);
+        }
+        if (ObjectUtils.notNull(event.eventName)) {
+            logPo.setEvent(event.eventName);
+            logPo.setKv(event.kv);
+            logPo.setElapsedMs(event.elapsedMs == TaskLogRecord.NO_ELAPSED ? null : event.elapsedMs);
+        }
+        // 模版日志最后一个参数为Throwable时与SLF4J一致按异常输出
+        Throwable throwable = TaskLogTemplateEnum.EXCEPTION == event.template ? event.throwable
+                : TaskLogTemplateEnum.MORE == event.template ? TaskLogFormatter.throwableCandidate(event.arg1, event.arg2, event.args, event.argCount) : null;
+        if (ObjectUtils.notNull(throwable) && ObjectUtils.notNull(traceRegistry) && recordTrace(event, throwable, logPo)) {
+            return logPo;
         }
-        if (asyncLog) {
-            CompletableFuture.runAsync(new TaskLogRunnable(new TaskLogPO(type, Thread.currentThread().getName(), className), logBo));
+        String content = parseLogTemplate(event, throwable);
+        if (QuartzConstant.ERROR_PARSE_LOG.equals(content)) {
+            return null;
+        }
+        setContent(logPo, content);
+        return logPo;
+    }
+
+    /**
+     * 设置日志内容
+     * <pre>
+     *     超过overflowThreshold时content保留前缀, 完整内容deflate压缩写入content_overflow(查询时解压)
+     * </pre>
+     *
+     * @param logPo   日志PO
+     * @param content 日志内容(不超过contentMaxLength)
+     */
+    private void setContent(TaskLogPO logPo, String content) {
+        int threshold = overflowThreshold;
+        if (content.length() <= threshold) {
+            logPo.setContent(content);
             return;
         }
-        logStoreService.save(new TaskLogPO(type, Thread.currentThread().getName(), className, getInvokerTask(className), parseLogTemplate(logBo)));
+        try {
+            logPo.setContentOverflow(CompressUtils.deflate(content));
+        } catch (Exception e) {
+            log.error("[quartz], compress task log content catch a exception, content truncated, caused by==>", e);
+        }
+        logPo.setContent(content.substring(0, threshold));
+    }
+
+    /**
+     * 异常日志仅记录异常信息及异常栈指纹, 完整异常栈按指纹去重写入t_quartz_task_trace
+     *
+     * @param event 日志事件(模版日志时日志内容前输出填充后的日志)
+     * @param t     异常
+     * @param logPo 日志PO
+     * @return 是否登记成功(失败时日志内容为完整异常栈)
+     */
+    private boolean recordTrace(TaskLogEvent event, Throwable t, TaskLogPO logPo) {
+        try {
+            TaskTraceRegistry.Occurrence occurrence = traceRegistry.record(t);
+            if (ObjectUtils.isNull(occurrence)) {
+                return false;
+            }
+            logPo.setTraceFingerprint(occurrence.fingerprint);
+            logPo.setTraceOccurrence(occurrence.occurrence);
+            String message = TaskLogTemplateEnum.MORE == event.template ? formatMessage(event) + ' ' : "";
+            StringBuilder content = TaskLogFormatter.acquireBuilder().append(message).append(QuartzConstant.ERROR_LOG_MARK_HEAD).append(t)
+                    .append(" [trace=").append(occurrence.fingerprint).append(", occurrence=").append(occurrence.occurrence).append(']');
+            logPo.setContent(TaskLogFormatter.truncate(content, QuartzConstant.TASK_LOG_CONTENT_MAX_LENGTH));
+            return true;
+        } catch (Exception e) {
+            log.error("[quartz], record exception trace catch a exception, caused by==>", e);
+            return false;
+        }
     }
 
     /**
      * 解析日志
      *
-     * @param logBo 日志BO
+     * @param event     日志事件
+     * @param throwable 异常(模版日志末尾异常参数, 无异常为null)
      * @return 解析日志模版内容
      */
-    private String parseLogTemplate(TaskLogBO logBo) {
+    private String parseLogTemplate(TaskLogEvent event, Throwable throwable) {
         try {
-            Assert.notNull(logBo.getTemplateEnum(), "日志模版类型为空");
-            if (TaskLogTemplateEnum.SIMPLE == logBo.getTemplateEnum()) {
-                return logBo.getContent();
+            Assert.notNull(event.template, "日志模版类型为空");
+            if (TaskLogTemplateEnum.SIMPLE == event.template) {
+                return TaskLogFormatter.truncate(event.message, contentMaxLength);
             }
-            if (TaskLogTemplateEnum.EXCEPTION == logBo.getTemplateEnum()) {
-                return QuartzConstant.ERROR_LOG_MARK_HEAD + ExceptionUtils.getStackTrace(logBo.getThrowable(), null);
+            if (TaskLogTemplateEnum.EXCEPTION == event.template) {
+                // 直接输出到线程复用的StringBuilder, 达到日志内容最大长度后停止
+                StringBuilder builder = TaskLogFormatter.acquireBuilder().append(QuartzConstant.ERROR_LOG_MARK_HEAD);
+                return TaskLogFormatter.truncate(ExceptionUtils.appendStackTrace(event.throwable, builder, traceOptions),
+                        contentMaxLength);
             }
 
-            // 遍历参数, 按顺序查找{}占位符, 替换为参数
-            Object[] params = logBo.getObjects();
-            String tempFormat = QuartzConstant.EMPTY_STRING;
-            if (ObjectUtils.notEmpty(params)) {
-                Matcher matcher = pattern.matcher(logBo.getFormat());
-                for (Object param : params) {
-                    matcher.reset(tempFormat = matcher.replaceFirst(String.valueOf(param)));
-                }
+            if (ObjectUtils.isNull(throwable)) {
+                // 按顺序填充{}占位符(预解析格式, 单次遍历)
+                return TaskLogFormatter.format(event.message, event.arg1, event.arg2, event.args, event.argCount, contentMaxLength);
             }
-            return tempFormat;
+            // 填充后的日志换行输出异常栈(与控制台输出一致)
+            String message = formatMessage(event);
+            StringBuilder builder = TaskLogFormatter.acquireBuilder().append(message).append(System.lineSeparator())
+                    .append(QuartzConstant.ERROR_LOG_MARK_HEAD);
+            return TaskLogFormatter.truncate(ExceptionUtils.appendStackTrace(throwable, builder, traceOptions), contentMaxLength);
         } catch (Exception e) {
             log.error("[quartz], parse log template catch a exception, caused by==>", e);
         }
         return QuartzConstant.ERROR_PARSE_LOG;
     }
 
-    class TaskLogRunnable implements Runnable {
-        private TaskLogPO logPo;
-        private TaskLogBO logBo;
+    /**
+     * 填充末尾为异常参数的模版日志(异常参数不参与填充)
+     *
+     * @param event 日志事件
+     * @return 日志内容
+     */
+    private String formatMessage(TaskLogEvent event) {
+        return TaskLogFormatter.format(event.message, event.arg1, event.arg2, event.args, event.argCount - 1, contentMaxLength);
+    }
 
-        private TaskLogRunnable(TaskLogPO logPo, TaskLogBO logBo) {
-            this.logPo = logPo;
-            this.logBo = logBo;
-        }
+    /**
+     * 结构化日志
+     * <pre>
+     *     taskLog.event("order.sync").kv("batch", n).elapsedMs(t).info();
+     *     键值对写入kv字段(JSON), 耗时写入elapsed_ms字段, 可直接按字段统计, 无需解析日志内容
+     * </pre>
+     *
+     * @param name 事件名(超过64个字符时event字段截断)
+     * @return 结构化日志(线程复用, 须在当前线程输出)
+     */
+    public TaskLogRecord event(String name) {
+        return TaskLogRecord.acquire(this, name);
+    }
 
-        @Override
-        public void run() {
+    /**
+     * 输出结构化日志
+     * <pre>
+     *     先按任务日志策略占用日志事件, 被过滤且日志框架未启用该等级时不渲染
+     *     内容在当前线程渲染(复用实例输出后即释放), 渲染失败的日志不写入数据库
+     * </pre>
+     *
+     * @param level  日志等级
+     * @param record 结构化日志
+     */
+    void storeRecord(TaskLog.LogLevel level, TaskLogRecord record) {
+        try {
+            boolean logEnabled = TaskLog.LogLevel.INFO == level ? log.isInfoEnabled() :
+                    TaskLog.LogLevel.WARN == level ? log.isWarnEnabled() : log.isErrorEnabled();
+            TaskLogEvent event = claimEvent(level);
+            if (ObjectUtils.isNull(event) && !logEnabled) {
+                return;
+            }
+            String content;
+            String kv = null;
             try {
-                String content = parseLogTemplate(logBo);
-                if (!QuartzConstant.ERROR_PARSE_LOG.equals(content)) {
-                    logPo.setContent(content);
-                    logPo.setTask(getInvokerTask(logPo.getClassName()));
-                    logStoreService.save(logPo);
-                }
+                content = record.content();
+                kv = record.kvJson();
             } catch (Exception e) {
-                log.error("[quartz], save log to database catch a exception, caused by ==>", e);
+                log.error("[quartz], render structured task log catch a exception, caused by==>", e);
+                content = QuartzConstant.ERROR_PARSE_LOG;
+            }
+            if (logEnabled) {
+                if (TaskLog.LogLevel.INFO == level) {
+                    log.info(content);
+                } else if (TaskLog.LogLevel.WARN == level) {
+                    log.warn(content);
+                } else {
+                    log.error(content);
+                }
             }
+            // 已占用的槽位必须发布
+            if (ObjectUtils.notNull(event)) {
+                // 事件名超过event字段长度时截断(日志内容中保留完整事件名)
+                String name = TaskLogFormatter.truncate(record.name(), QuartzConstant.TASK_LOG_EVENT_MAX_LENGTH);
+                storeLog(event.structured(content, name, kv, record.elapsed()));
+            }
+        } finally {
+            record.release();
         }
     }
 
@@ -181,7 +549,10 @@ public class TaskLogHandler {
      */
     public void info(String msg) {
         log.info(msg);
-        storeLog(TaskLog.LogLevel.INFO.name(), getInvokerClassName(), new TaskLogBO(msg, TaskLogTemplateEnum.SIMPLE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.INFO);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.simple(msg));
+        }
     }
 
     /**
@@ -196,7 +567,10 @@ public class TaskLogHandler {
      */
     public void info(String format, Object arg) {
         log.info(format, arg);
-        storeLog(TaskLog.LogLevel.INFO.name(), getInvokerClassName(), new TaskLogBO(format, new Object[]{arg}, TaskLogTemplateEnum.MORE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.INFO);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.format(format, arg, null, QuartzConstant.ONE));
+        }
     }
 
     /**
@@ -212,7 +586,10 @@ public class TaskLogHandler {
      */
     public void info(String format, Object arg1, Object arg2) {
         log.info(format, arg1, arg2);
-        storeLog(TaskLog.LogLevel.INFO.name(), getInvokerClassName(), new TaskLogBO(format, new Object[]{arg1, arg2}, TaskLogTemplateEnum.MORE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.INFO);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.format(format, arg1, arg2, QuartzConstant.TWO));
+        }
     }
 
     /**
@@ -231,7 +608,10 @@ public class TaskLogHandler {
      */
     public void info(String format, Object... arguments) {
         log.info(format, arguments);
-        storeLog(TaskLog.LogLevel.INFO.name(), getInvokerClassName(), new TaskLogBO(format, arguments, TaskLogTemplateEnum.MORE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.INFO);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.format(format, arguments));
+        }
     }
 
     /**
@@ -243,7 +623,10 @@ public class TaskLogHandler {
      */
     public void info(String msg, Throwable t) {
         log.info(msg, t);
-        storeLog(TaskLog.LogLevel.INFO.name(), getInvokerClassName(), new TaskLogBO(t, TaskLogTemplateEnum.EXCEPTION));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.INFO);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.exception(t));
+        }
     }
 
     /**
@@ -314,7 +697,10 @@ public class TaskLogHandler {
      */
     public void warn(String msg) {
         log.warn(msg);
-        storeLog(TaskLog.LogLevel.WARN.name(), getInvokerClassName(), new TaskLogBO(msg, TaskLogTemplateEnum.SIMPLE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.WARN);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.simple(msg));
+        }
     }
 
     /**
@@ -329,7 +715,10 @@ public class TaskLogHandler {
      */
     public void warn(String format, Object arg) {
         log.warn(format, arg);
-        storeLog(TaskLog.LogLevel.WARN.name(), getInvokerClassName(), new TaskLogBO(format, new Object[]{arg}, TaskLogTemplateEnum.MORE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.WARN);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.format(format, arg, null, QuartzConstant.ONE));
+        }
     }
 
     /**
@@ -348,7 +737,10 @@ public class TaskLogHandler {
      */
     public void warn(String format, Object... arguments) {
         log.warn(format, arguments);
-        storeLog(TaskLog.LogLevel.WARN.name(), getInvokerClassName(), new TaskLogBO(format, arguments, TaskLogTemplateEnum.MORE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.WARN);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.format(format, arguments));
+        }
     }
 
     /**
@@ -364,7 +756,10 @@ public class TaskLogHandler {
      */
     public void warn(String format, Object arg1, Object arg2) {
         log.warn(format, arg1, arg2);
-        storeLog(TaskLog.LogLevel.WARN.name(), getInvokerClassName(), new TaskLogBO(format, new Object[]{arg1, arg2}, TaskLogTemplateEnum.MORE));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.WARN);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.format(format, arg1, arg2, QuartzConstant.TWO));
+        }
     }
 
     /**
@@ -376,7 +771,10 @@ public class TaskLogHandler {
      */
     public void warn(String msg, Throwable t) {
         log.warn(msg, t);
-        storeLog(TaskLog.LogLevel.WARN.name(), getInvokerClassName(), new TaskLogBO(t, TaskLogTemplateEnum.EXCEPTION));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.WARN);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.exception(t));
+        }
     }
 
     /**
@@ -505,7 +903,10 @@ public class TaskLogHandler {
      */
     public void error(String msg, Throwable t) {
         log.error(msg, t);
-        storeLog(TaskLog.LogLevel.ERROR.name(), getInvokerClassName(), new TaskLogBO(t, TaskLogTemplateEnum.EXCEPTION));
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.ERROR);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.exception(t));
+        }
     }
 
     /**
@@ -575,8 +976,12 @@ public class TaskLogHandler {
      *
      * @param msg log message
      * @param invoker invoker class name
+     * @param task    task name(job name)
      */
-    public void onlyWrite(String msg, String invoker){
-        storeLog(TaskLog.LogLevel.INFO.name(), invoker, new TaskLogBO(msg, TaskLogTemplateEnum.SIMPLE));
+    public void onlyWrite(String msg, String invoker, String task) {
+        TaskLogEvent event = claimEvent(TaskLog.LogLevel.INFO, invoker, task);
+        if (ObjectUtils.notNull(event)) {
+            storeLog(event.simple(msg));
+        }
     }
 }
\ No newline at end of file
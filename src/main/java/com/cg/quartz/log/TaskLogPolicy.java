@@ -0,0 +1,55 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 任务日志收集策略(不可变)
+ * <pre>
+ *     minLevel: 低于该等级的日志不收集
+ *     infoSampleRate: INFO日志收集比例(0~1), WARN, ERROR日志不采样
+ *     在占用日志事件之前判断, 未收集的日志不占用缓冲区槽位, 不创建对象
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/4
+ */
+final class TaskLogPolicy {
+
+    private final TaskLog.LogLevel minLevel;
+
+    private final double infoSampleRate;
+
+    TaskLogPolicy(TaskLog.LogLevel minLevel, double infoSampleRate) {
+        this.minLevel = minLevel;
+        this.infoSampleRate = Math.min(Math.max(infoSampleRate, 0), 1);
+    }
+
+    /**
+     * 是否收集该等级日志
+     */
+    boolean accept(TaskLog.LogLevel level) {
+        if (level.ordinal() < minLevel.ordinal()) {
+            return false;
+        }
+        return TaskLog.LogLevel.INFO != level || infoSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < infoSampleRate;
+    }
+
+    /**
+     * 是否为默认策略(收集全部日志)
+     */
+    boolean isDefault() {
+        return TaskLog.LogLevel.INFO == minLevel && infoSampleRate >= 1;
+    }
+
+    boolean sameAs(TaskLogPolicy other) {
+        return other != null && minLevel == other.minLevel && infoSampleRate == other.infoSampleRate;
+    }
+
+    @Override
+    public String toString() {
+        return "minLevel=" + minLevel + ", infoSampleRate=" + infoSampleRate;
+    }
+}
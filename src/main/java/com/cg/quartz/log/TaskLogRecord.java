@@ -0,0 +1,252 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.constant.QuartzConstant;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * 结构化任务日志
+ * <pre>
+ *     taskLog.event("order.sync").kv("batch", n).kv("size", size).elapsedMs(t).info();
+ *     事件名写入event字段, 键值对编码为JSON写入kv字段, 耗时写入elapsed_ms字段(可按任务, 事件统计耗时分布)
+ *     content为可读文本: order.sync batch=10 size=200 elapsedMs=35
+ *     实例线程复用(同一线程嵌套使用时创建新实例), 输出日志(info, warn, error)后释放, 未输出前不可跨线程使用
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/6
+ */
+public final class TaskLogRecord {
+
+    /**
+     * 未设置耗时
+     */
+    static final long NO_ELAPSED = Long.MIN_VALUE;
+
+    private static final ThreadLocal<TaskLogRecord> RECORD = ThreadLocal.withInitial(TaskLogRecord::new);
+
+    private static final byte KIND_OBJECT = 0;
+
+    private static final byte KIND_LONG = 1;
+
+    private static final byte KIND_DOUBLE = 2;
+
+    private TaskLogHandler handler;
+
+    private String name;
+
+    private String[] keys = new String[8];
+
+    private Object[] values = new Object[8];
+
+    /**
+     * 基本类型值(避免装箱, double按位存储)
+     */
+    private long[] numbers = new long[8];
+
+    private byte[] kinds = new byte[8];
+
+    private int size;
+
+    private long elapsedMs = NO_ELAPSED;
+
+    private boolean inUse;
+
+    private TaskLogRecord() {
+    }
+
+    /**
+     * 获取线程复用实例
+     */
+    static TaskLogRecord acquire(TaskLogHandler handler, String name) {
+        TaskLogRecord record = RECORD.get();
+        if (record.inUse) {
+            record = new TaskLogRecord();
+        }
+        record.inUse = true;
+        record.handler = handler;
+        record.name = name;
+        return record;
+    }
+
+    public TaskLogRecord kv(String key, Object value) {
+        add(key, KIND_OBJECT).values[size++] = value;
+        return this;
+    }
+
+    public TaskLogRecord kv(String key, long value) {
+        add(key, KIND_LONG).numbers[size++] = value;
+        return this;
+    }
+
+    public TaskLogRecord kv(String key, double value) {
+        add(key, KIND_DOUBLE).numbers[size++] = Double.doubleToRawLongBits(value);
+        return this;
+    }
+
+    /**
+     * 耗时(毫秒, 写入elapsed_ms字段)
+     */
+    public TaskLogRecord elapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+        return this;
+    }
+
+    public void info() {
+        handler.storeRecord(TaskLog.LogLevel.INFO, this);
+    }
+
+    public void warn() {
+        handler.storeRecord(TaskLog.LogLevel.WARN, this);
+    }
+
+    public void error() {
+        handler.storeRecord(TaskLog.LogLevel.ERROR, this);
+    }
+
+    private TaskLogRecord add(String key, byte kind) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            numbers = Arrays.copyOf(numbers, size * 2);
+            kinds = Arrays.copyOf(kinds, size * 2);
+        }
+        keys[size] = key;
+        kinds[size] = kind;
+        return this;
+    }
+
+    String name() {
+        return name;
+    }
+
+    long elapsed() {
+        return elapsedMs;
+    }
+
+    /**
+     * 可读日志内容: name k1=v1 k2=v2 elapsedMs=n
+     */
+    String content() {
+        StringBuilder builder = TaskLogFormatter.acquireBuilder().append(name);
+        for (int i = 0; i < size; i++) {
+            builder.append(' ').append(keys[i]).append('=');
+            if (kinds[i] == KIND_LONG) {
+                builder.append(numbers[i]);
+            } else if (kinds[i] == KIND_DOUBLE) {
+                builder.append(Double.longBitsToDouble(numbers[i]));
+            } else {
+                TaskLogFormatter.appendParam(builder, values[i]);
+            }
+        }
+        if (elapsedMs != NO_ELAPSED) {
+            builder.append(" elapsedMs=").append(elapsedMs);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 键值对JSON(超过kv字段长度的键值对不写入, 保证JSON完整)
+     *
+     * @return JSON(无键值对返回null)
+     */
+    String kvJson() {
+        if (size == 0) {
+            return null;
+        }
+        StringBuilder builder = TaskLogFormatter.acquireBuilder().append('{');
+        for (int i = 0; i < size; i++) {
+            int mark = builder.length();
+            if (mark > 1) {
+                builder.append(',');
+            }
+            appendJsonString(builder, keys[i]);
+            builder.append(':');
+            if (kinds[i] == KIND_LONG) {
+                builder.append(numbers[i]);
+            } else if (kinds[i] == KIND_DOUBLE) {
+                appendJsonNumber(builder, Double.longBitsToDouble(numbers[i]));
+            } else {
+                appendJsonValue(builder, values[i]);
+            }
+            if (builder.length() + 1 > QuartzConstant.TASK_LOG_KV_MAX_LENGTH) {
+                builder.setLength(mark);
+            }
+        }
+        return builder.length() == 1 ? null : builder.append('}').toString();
+    }
+
+    /**
+     * 释放引用
+     */
+    void release() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        elapsedMs = NO_ELAPSED;
+        name = null;
+        handler = null;
+        inUse = false;
+    }
+
+    private static void appendJsonValue(StringBuilder builder, Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte || value instanceof BigInteger || value instanceof BigDecimal) {
+            builder.append(value);
+        } else if (value instanceof Double || value instanceof Float) {
+            appendJsonNumber(builder, ((Number) value).doubleValue());
+        } else {
+            int start = builder.length();
+            TaskLogFormatter.appendParam(builder, value);
+            String text = builder.substring(start);
+            builder.setLength(start);
+            appendJsonString(builder, text);
+        }
+    }
+
+    private static void appendJsonNumber(StringBuilder builder, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.append('"').append(value).append('"');
+        } else {
+            builder.append(value);
+        }
+    }
+
+    private static void appendJsonString(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,130 @@
+package com.cg.quartz.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务日志环形缓冲区(有界, 多生产者多消费者)
+ * <pre>
+ *     槽位预分配且可复用, 每个槽位通过序号标识状态(参考Disruptor及Vyukov有界队列):
+ *     sequence == pos       槽位空闲, 生产者可占用pos
+ *     sequence == pos + 1   槽位已发布, 消费者可读取pos
+ *     消费者读取完成后sequence = pos + capacity, 供下一轮生产者使用
+ *     占用/发布/读取/归还均不分配对象
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/24
+ */
+final class TaskLogRingBuffer {
+
+    private final TaskLogEvent[] events;
+
+    private final int mask;
+
+    /**
+     * 生产者位置
+     */
+    private final AtomicLong producerCursor = new AtomicLong();
+
+    /**
+     * 消费者位置
+     */
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    TaskLogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.events = new TaskLogEvent[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            events[i] = new TaskLogEvent(true);
+            events[i].sequence = i;
+        }
+    }
+
+    /**
+     * 生产者占用槽位
+     *
+     * @return 空闲槽位(缓冲区已满返回null)
+     */
+    TaskLogEvent tryClaim() {
+        long pos = producerCursor.get();
+        for (; ; ) {
+            TaskLogEvent event = events[(int) pos & mask];
+            long diff = event.sequence - pos;
+            if (diff == 0) {
+                if (producerCursor.compareAndSet(pos, pos + 1)) {
+                    event.cursor = pos;
+                    return event;
+                }
+                pos = producerCursor.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = producerCursor.get();
+            }
+        }
+    }
+
+    /**
+     * 生产者发布槽位
+     *
+     * @param event 已填充的槽位
+     */
+    static void publish(TaskLogEvent event) {
+        event.sequence = event.cursor + 1;
+    }
+
+    /**
+     * 消费者读取槽位
+     *
+     * @return 已发布槽位(缓冲区为空返回null)
+     */
+    TaskLogEvent tryTake() {
+        long pos = consumerCursor.get();
+        for (; ; ) {
+            TaskLogEvent event = events[(int) pos & mask];
+            long diff = event.sequence - (pos + 1);
+            if (diff == 0) {
+                if (consumerCursor.compareAndSet(pos, pos + 1)) {
+                    event.cursor = pos;
+                    return event;
+                }
+                pos = consumerCursor.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = consumerCursor.get();
+            }
+        }
+    }
+
+    /**
+     * 消费者归还槽位
+     *
+     * @param event 已读取的槽位
+     */
+    void release(TaskLogEvent event) {
+        event.clear();
+        event.sequence = event.cursor + events.length;
+    }
+
+    /**
+     * 是否有已发布未读取的槽位(已占用未发布的槽位不计入)
+     */
+    boolean hasPublished() {
+        long pos = consumerCursor.get();
+        return events[(int) pos & mask].sequence == pos + 1;
+    }
+
+    /**
+     * 已占用槽位数(近似值)
+     */
+    int size() {
+        return (int) Math.max(producerCursor.get() - consumerCursor.get(), 0);
+    }
+
+    int capacity() {
+        return events.length;
+    }
+}
@@ -0,0 +1,462 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.entity.po.TaskLogPO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * 任务日志溢出日志文件(本地磁盘, 分段内存映射)
+ * <pre>
+ *     数据库写入失败(或已有待回放日志)时, 写入线程将日志追加到当前分段文件, 由回放线程在数据库恢复后批量写回t_quartz_task_log
+ *     分段文件: task-log-{分段号}.seg, 固定大小, 整段映射到内存, 写满后切换到新分段
+ *     分段头: [魔数(int)][格式版本(int)], 魔数或版本不一致的分段(其他程序写入或不兼容的旧格式)跳过不回放
+ *     日志记录: [长度(int)][CRC32(int)][创建时间(long)][type][thread][className][task][content][traceFingerprint][fireInstanceId][traceOccurrence(long, -1为null)][sequence(int, -1为null)][contentOverflow][event][kv][elapsedMs(long, Long.MIN_VALUE为null)]
+ *     字符串为[长度(int, -1为null)][UTF-8]
+ *     先写内容及CRC再写长度, 长度为0表示分段中后续无数据, CRC不一致或无法解析视为损坏的记录, 跳过该分段剩余部分
+ *     检查点(checkpoint): 已回放到的分段号及偏移量, 批次写入数据库成功后更新(临时文件 + 原子替换), 已回放完的分段文件删除
+ *     应用重启后从检查点继续回放, 新日志写入新分段
+ *     注意: 同一目录仅允许一个应用实例使用(文件锁)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/26
+ */
+final class TaskLogSpillJournal {
+
+    private final Logger log = LoggerFactory.getLogger(TaskLogSpillJournal.class);
+
+    private static final String SEGMENT_PREFIX = "task-log-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final String LOCK_FILE = "journal.lock";
+
+    /**
+     * 分段头: 魔数("QTLS") + 格式版本(记录格式变更时递增)
+     */
+    private static final int SEGMENT_MAGIC = 0x51544C53;
+
+    private static final int SEGMENT_VERSION = 1;
+
+    private static final int SEGMENT_HEADER_LENGTH = 8;
+
+    /**
+     * 记录头长度: 长度(int) + CRC32(int)
+     */
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    /**
+     * 未回放完的分段(分段号 -> 文件)
+     */
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+
+    private final FileChannel lockChannel;
+
+    private final FileLock lock;
+
+    /**
+     * 当前写入分段
+     */
+    private long writeSegment;
+
+    private MappedByteBuffer writeBuffer;
+
+    /**
+     * 检查点(已回放位置)
+     */
+    private long checkpointSegment;
+
+    private int checkpointOffset;
+
+    /**
+     * 当前读取分段映射缓存
+     */
+    private long readSegment = -1;
+
+    private ByteBuffer readBuffer;
+
+    private boolean closed;
+
+    TaskLogSpillJournal(File directory, int segmentSize, int maxSegments) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create spill directory " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(maxSegments, 2);
+        this.lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+        this.lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("spill directory " + directory + " is locked by another process");
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        for (File file : files == null ? new File[0] : files) {
+            String name = file.getName();
+            segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+        }
+        loadCheckpoint();
+        if (!segments.isEmpty() && checkpointSegment < segments.firstKey()) {
+            checkpointSegment = segments.firstKey();
+            checkpointOffset = SEGMENT_HEADER_LENGTH;
+        }
+        checkpointOffset = Math.max(checkpointOffset, SEGMENT_HEADER_LENGTH);
+        checkpointSegment = Math.max(checkpointSegment, 1);
+        deleteSegmentsBefore(checkpointSegment);
+
+        // 不追加到已有分段, 总是新建分段写入(分段号单调递增, 不小于检查点分段号)
+        writeSegment = segments.isEmpty() ? checkpointSegment : Math.max(segments.lastKey() + 1, checkpointSegment);
+        writeBuffer = createSegment(writeSegment);
+        log.info("[quartz], task log spill journal opened, directory={}, segments={}, checkpoint={}:{}",
+                directory, segments.size(), checkpointSegment, checkpointOffset);
+    }
+
+    /**
+     * 追加日志
+     *
+     * @param logs 日志
+     * @return 成功追加条数(分段数达到上限时后续日志追加失败)
+     */
+    synchronized int append(List<TaskLogPO> logs) throws IOException {
+        if (closed) {
+            return 0;
+        }
+        int appended = 0;
+        for (TaskLogPO logPo : logs) {
+            byte[] record = encode(logPo);
+            if (SEGMENT_HEADER_LENGTH + RECORD_HEADER_LENGTH + record.length > segmentSize) {
+                log.warn("[quartz], task log is larger than spill segment, ignored, task={}", logPo.getTask());
+                continue;
+            }
+            if (writeBuffer.remaining() < RECORD_HEADER_LENGTH + record.length) {
+                if (segments.size() >= maxSegments) {
+                    log.error("[quartz], task log spill journal is full, segments={}, {} logs lost", segments.size(), logs.size() - appended);
+                    break;
+                }
+                writeBuffer.force();
+                writeBuffer = createSegment(++writeSegment);
+            }
+            int position = writeBuffer.position();
+            CRC32 crc = new CRC32();
+            crc.update(record, 0, record.length);
+            writeBuffer.position(position + RECORD_HEADER_LENGTH);
+            writeBuffer.put(record);
+            writeBuffer.putInt(position + 4, (int) crc.getValue());
+            writeBuffer.putInt(position, record.length);
+            appended++;
+        }
+        writeBuffer.force();
+        return appended;
+    }
+
+    /**
+     * 是否有待回放日志
+     */
+    synchronized boolean hasPending() {
+        return !closed && (checkpointSegment < writeSegment || checkpointOffset < writeBuffer.position());
+    }
+
+    /**
+     * 未回放完的分段数
+     */
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 从检查点读取一批日志(不移动检查点)
+     *
+     * @param maxSize 最大条数
+     * @return 日志批次(无待回放日志返回空批次)
+     */
+    synchronized Batch read(int maxSize) {
+        List<TaskLogPO> logs = new ArrayList<>(Math.min(maxSize, 256));
+        long segment = checkpointSegment;
+        int offset = checkpointOffset;
+        while (!closed && logs.size() < maxSize && segment <= writeSegment) {
+            ByteBuffer buffer = segmentBuffer(segment);
+            TaskLogPO logPo = buffer == null ? null : decode(buffer, offset, segment);
+            if (logPo == null) {
+                // 当前写入分段无更多数据(记录损坏时跳过已写入部分), 或已读完的分段切换到下一分段
+                if (segment == writeSegment) {
+                    offset = Math.max(offset, writeBuffer.position());
+                    break;
+                }
+                segment = nextSegment(segment);
+                offset = SEGMENT_HEADER_LENGTH;
+                continue;
+            }
+            logs.add(logPo);
+            offset += RECORD_HEADER_LENGTH + buffer.getInt(offset);
+        }
+        return new Batch(logs, segment, offset);
+    }
+
+    /**
+     * 批次写入数据库后移动检查点, 删除已回放完的分段
+     *
+     * @param batch 已写入的批次
+     */
+    synchronized void commit(Batch batch) throws IOException {
+        if (closed) {
+            return;
+        }
+        checkpointSegment = batch.segment;
+        checkpointOffset = batch.offset;
+        File temp = new File(directory, CHECKPOINT_FILE + ".tmp");
+        try (RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+            file.setLength(0);
+            file.writeLong(checkpointSegment);
+            file.writeInt(checkpointOffset);
+            file.getFD().sync();
+        }
+        Files.move(temp.toPath(), new File(directory, CHECKPOINT_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteSegmentsBefore(checkpointSegment);
+    }
+
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBuffer.force();
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("[quartz], close task log spill journal catch a exception, caused by ==>", e);
+        }
+        writeBuffer = null;
+        readBuffer = null;
+    }
+
+    private void loadCheckpoint() throws IOException {
+        File file = new File(directory, CHECKPOINT_FILE);
+        if (!file.isFile() || file.length() < 12) {
+            return;
+        }
+        try (RandomAccessFile checkpoint = new RandomAccessFile(file, "r")) {
+            checkpointSegment = checkpoint.readLong();
+            checkpointOffset = checkpoint.readInt();
+        }
+        if (!segments.containsKey(checkpointSegment)) {
+            checkpointOffset = SEGMENT_HEADER_LENGTH;
+        }
+    }
+
+    private MappedByteBuffer createSegment(long segment) throws IOException {
+        File file = new File(directory, String.format("%s%019d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(segmentSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION);
+            segments.put(segment, file);
+            return buffer;
+        }
+    }
+
+    /**
+     * 获取分段内容(写入分段直接使用写入映射)
+     */
+    private ByteBuffer segmentBuffer(long segment) {
+        if (segment == writeSegment) {
+            return writeBuffer;
+        }
+        if (segment != readSegment) {
+            File file = segments.get(segment);
+            readSegment = segment;
+            readBuffer = null;
+            if (file == null) {
+                return null;
+            }
+            try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() < SEGMENT_HEADER_LENGTH || buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(4) != SEGMENT_VERSION) {
+                    log.warn("[quartz], spill segment {} has unknown header or version, segment skipped", file);
+                    return null;
+                }
+                readBuffer = buffer;
+            } catch (IOException e) {
+                log.error("[quartz], map spill segment {} catch a exception, segment skipped, caused by ==>", file, e);
+            }
+        }
+        return readBuffer;
+    }
+
+    private long nextSegment(long segment) {
+        Long next = segments.higherKey(segment);
+        return next == null ? writeSegment : next;
+    }
+
+    private void deleteSegmentsBefore(long segment) {
+        for (Long key : new ArrayList<>(segments.headMap(segment).keySet())) {
+            File file = segments.remove(key);
+            if (key == readSegment) {
+                readSegment = -1;
+                readBuffer = null;
+            }
+            if (!file.delete()) {
+                log.warn("[quartz], delete replayed spill segment {} failed", file);
+            }
+        }
+    }
+
+    private static byte[] encode(TaskLogPO logPo) {
+        byte[][] fields = {bytes(logPo.getType()), bytes(logPo.getThread()), bytes(logPo.getClassName()),
+                bytes(logPo.getTask()), bytes(logPo.getContent()), bytes(logPo.getTraceFingerprint()), bytes(logPo.getFireInstanceId())};
+        byte[][] structured = {bytes(logPo.getEvent()), bytes(logPo.getKv())};
+        byte[] overflow = logPo.getContentOverflow();
+        int length = 32 + (overflow == null ? 0 : overflow.length);
+        for (byte[] field : fields) {
+            length += 4 + (field == null ? 0 : field.length);
+        }
+        for (byte[] field : structured) {
+            length += 4 + (field == null ? 0 : field.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putLong(logPo.getCreateTime() == null ? System.currentTimeMillis() : logPo.getCreateTime().getTime());
+        for (byte[] field : fields) {
+            buffer.putInt(field == null ? -1 : field.length);
+            if (field != null) {
+                buffer.put(field);
+            }
+        }
+        buffer.putLong(logPo.getTraceOccurrence() == null ? -1 : logPo.getTraceOccurrence());
+        buffer.putInt(logPo.getSequence() == null ? -1 : logPo.getSequence());
+        buffer.putInt(overflow == null ? -1 : overflow.length);
+        if (overflow != null) {
+            buffer.put(overflow);
+        }
+        for (byte[] field : structured) {
+            buffer.putInt(field == null ? -1 : field.length);
+            if (field != null) {
+                buffer.put(field);
+            }
+        }
+        buffer.putLong(logPo.getElapsedMs() == null ? Long.MIN_VALUE : logPo.getElapsedMs());
+        return buffer.array();
+    }
+
+    /**
+     * 解析offset处的记录
+     *
+     * @return 日志(无记录或记录不完整返回null)
+     */
+    private TaskLogPO decode(ByteBuffer buffer, int offset, long segment) {
+        if (offset + RECORD_HEADER_LENGTH > buffer.limit()) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0) {
+            return null;
+        }
+        if (offset + RECORD_HEADER_LENGTH + length > buffer.limit()) {
+            log.warn("[quartz], broken task log record in spill segment {} at {}, remaining records of this segment skipped", segment, offset);
+            return null;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.limit(offset + RECORD_HEADER_LENGTH + length).position(offset + RECORD_HEADER_LENGTH);
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            log.warn("[quartz], corrupted task log record in spill segment {} at {}, remaining records of this segment skipped", segment, offset);
+            return null;
+        }
+        try {
+            return decodeFields(ByteBuffer.wrap(bytes));
+        } catch (RuntimeException e) {
+            log.warn("[quartz], unreadable task log record in spill segment {} at {}, remaining records of this segment skipped, caused by ==> {}",
+                    segment, offset, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 解析记录字段(CRC一致但字段不完整时抛出BufferUnderflowException等运行时异常)
+     */
+    private static TaskLogPO decodeFields(ByteBuffer fields) {
+        Date createTime = new Date(fields.getLong());
+        TaskLogPO logPo = new TaskLogPO(string(fields), string(fields), string(fields), string(fields), string(fields));
+        logPo.setCreateTime(createTime);
+        logPo.setTraceFingerprint(string(fields));
+        logPo.setFireInstanceId(string(fields));
+        long traceOccurrence = fields.getLong();
+        logPo.setTraceOccurrence(traceOccurrence < 0 ? null : traceOccurrence);
+        int sequence = fields.getInt();
+        logPo.setSequence(sequence < 0 ? null : sequence);
+        int overflowLength = fields.getInt();
+        if (overflowLength >= 0) {
+            logPo.setContentOverflow(new byte[overflowLength]);
+            fields.get(logPo.getContentOverflow());
+        }
+        logPo.setEvent(string(fields));
+        logPo.setKv(string(fields));
+        long elapsedMs = fields.getLong();
+        logPo.setElapsedMs(elapsedMs == Long.MIN_VALUE ? null : elapsedMs);
+        return logPo;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * 待回放日志批次
+     */
+    static final class Batch {
+
+        final List<TaskLogPO> logs;
+
+        /**
+         * 批次结束位置(提交后作为检查点)
+         */
+        final long segment;
+
+        final int offset;
+
+        private Batch(List<TaskLogPO> logs, long segment, int offset) {
+            this.logs = Collections.unmodifiableList(logs);
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+}
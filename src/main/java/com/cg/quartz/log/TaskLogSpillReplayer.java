@@ -0,0 +1,118 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 任务日志溢出文件回放线程
+ * <pre>
+ *     从检查点读取一批日志写入数据库, 成功后移动检查点并立即读取下一批, 失败(数据库仍不可用)则等待replayIntervalMs后重试
+ *     非瞬时异常(数据错误等)的日志逐条重试后写入死信并移动检查点, 不会无限重试
+ *     检查点在批次写入成功后更新, 写入成功与更新检查点之间应用崩溃时该批次会重新回放(至少一次),
+ *     回放时忽略(fire_instance_id, sequence)重复的日志, 任务日志不会重复写入(非任务线程日志无执行ID, 仍可能重复)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/26
+ */
+final class TaskLogSpillReplayer {
+
+    private final Logger log = LoggerFactory.getLogger(TaskLogSpillReplayer.class);
+
+    private final TaskLogSpillJournal journal;
+
+    private final TaskLogBatchSaver saver;
+
+    private final TaskLogStatistics statistics;
+
+    private final int batchSize;
+
+    private final long replayIntervalNanos;
+
+    private final Thread replayer;
+
+    private volatile boolean running = true;
+
+    TaskLogSpillReplayer(TaskLogSpillJournal journal, TaskLogBatchSaver saver, TaskLogStatistics statistics,
+                         int batchSize, long replayIntervalMs) {
+        this.journal = journal;
+        this.saver = saver;
+        this.statistics = statistics;
+        this.batchSize = batchSize;
+        this.replayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(replayIntervalMs, 1));
+        this.replayer = new Thread(this::replay, "quartz-log-replayer");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+    }
+
+    /**
+     * 停止回放(未回放日志保留在溢出文件中, 下次启动后继续回放)
+     *
+     * @param timeoutMs 等待当前批次完成的最长时间
+     */
+    void close(long timeoutMs) {
+        running = false;
+        LockSupport.unpark(replayer);
+        try {
+            replayer.join(Math.max(timeoutMs, 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replay() {
+        while (running) {
+            boolean replayed = false;
+            try {
+                replayed = replayOnce();
+            } catch (Exception e) {
+                log.warn("[quartz], replay spilled task logs failed, retry after {}ms, caused by ==> {}",
+                        TimeUnit.NANOSECONDS.toMillis(replayIntervalNanos), e.toString());
+            }
+            if (!replayed) {
+                LockSupport.parkNanos(this, replayIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * 回放一批日志
+     *
+     * @return 是否有日志写入数据库
+     */
+    private boolean replayOnce() throws Exception {
+        if (!journal.hasPending()) {
+            return false;
+        }
+        TaskLogSpillJournal.Batch batch = journal.read(batchSize);
+        if (batch.logs.isEmpty()) {
+            // 跳过已读完(或记录损坏)的分段
+            journal.commit(batch);
+            return false;
+        }
+        BitSet deadLetters = saver.save(batch.logs, true);
+        if (ObjectUtils.isNull(deadLetters)) {
+            return false;
+        }
+        // 非瞬时异常的日志已写入死信, 同样移动检查点, 避免一条坏日志阻塞后续回放
+        journal.commit(batch);
+        for (int i = 0; i < batch.logs.size(); i++) {
+            int level = TaskLog.LogLevel.valueOf(batch.logs.get(i).getType()).ordinal();
+            if (deadLetters.get(i)) {
+                statistics.failed(level);
+            } else {
+                statistics.replayed(level);
+            }
+        }
+        log.info("[quartz], replayed {} spilled task logs, dead letters={}, remaining segments={}",
+                batch.logs.size() - deadLetters.cardinality(), deadLetters.cardinality(), journal.segmentCount());
+        return true;
+    }
+}
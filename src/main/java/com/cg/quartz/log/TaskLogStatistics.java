@@ -0,0 +1,115 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步日志统计(按日志等级)
+ * <pre>
+ *     queued: 成功进入缓冲区条数
+ *     dropped: 缓冲区已满被丢弃条数
+ *     persisted: 成功写入数据库条数
+ *     failed: 批量写入数据库失败(且未写入溢出文件)条数
+ *     spilled: 写入溢出文件条数
+ *     replayed: 从溢出文件回放到数据库条数
+ *     计数使用LongAdder, 任务线程竞争时不互相阻塞
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/25
+ */
+final class TaskLogStatistics {
+
+    private static final TaskLog.LogLevel[] LEVELS = TaskLog.LogLevel.values();
+
+    private final LongAdder[] queued = newCounters();
+
+    private final LongAdder[] dropped = newCounters();
+
+    private final LongAdder[] persisted = newCounters();
+
+    private final LongAdder[] failed = newCounters();
+
+    private final LongAdder[] spilled = newCounters();
+
+    private final LongAdder[] replayed = newCounters();
+
+    void queued(TaskLog.LogLevel level) {
+        queued[level.ordinal()].increment();
+    }
+
+    void dropped(TaskLog.LogLevel level) {
+        dropped[level.ordinal()].increment();
+    }
+
+    void persisted(int levelOrdinal) {
+        persisted[levelOrdinal].increment();
+    }
+
+    void failed(int levelOrdinal) {
+        failed[levelOrdinal].increment();
+    }
+
+    void spilled(int levelOrdinal) {
+        spilled[levelOrdinal].increment();
+    }
+
+    void replayed(int levelOrdinal) {
+        replayed[levelOrdinal].increment();
+    }
+
+    /**
+     * 丢弃总数
+     */
+    long droppedTotal() {
+        long total = 0;
+        for (LongAdder counter : dropped) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    Map<String, Long> queued() {
+        return snapshot(queued);
+    }
+
+    Map<String, Long> dropped() {
+        return snapshot(dropped);
+    }
+
+    Map<String, Long> persisted() {
+        return snapshot(persisted);
+    }
+
+    Map<String, Long> failed() {
+        return snapshot(failed);
+    }
+
+    Map<String, Long> spilled() {
+        return snapshot(spilled);
+    }
+
+    Map<String, Long> replayed() {
+        return snapshot(replayed);
+    }
+
+    private static Map<String, Long> snapshot(LongAdder[] counters) {
+        Map<String, Long> snapshot = new LinkedHashMap<>(8);
+        for (TaskLog.LogLevel level : LEVELS) {
+            snapshot.put(level.name(), counters[level.ordinal()].sum());
+        }
+        return snapshot;
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[LEVELS.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
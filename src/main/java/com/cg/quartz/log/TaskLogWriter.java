@@ -0,0 +1,471 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.constant.em.TaskLogOverflowPolicy;
+import com.cg.quartz.entity.po.TaskLogConfigBO;
+import com.cg.quartz.entity.po.TaskLogPO;
+import com.cg.quartz.service.TaskLogStoreService;
+import com.cg.quartz.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 任务日志批量写入器
+ * <pre>
+ *     生产者(任务线程)占用环形缓冲区槽位填充日志事件后发布, 不分配对象
+ *     独立写入线程读取事件(缓冲区为空时休眠, 生产者发布后唤醒), 渲染为TaskLogPO后按条数(batchSize)或时间(lingerMs)攒批调用saveBatch写入t_quartz_task_log
+ *     不占用公共ForkJoinPool, 关闭时会将缓冲区中剩余日志(包括关闭前已占用槽位, 发布后的日志)写完, 超时未写入及写入线程退出后发布的日志计为丢弃
+ *     缓冲区有界, 已满时按overflowPolicy阻塞或丢弃日志, 数据库变慢时堆内存占用保持稳定
+ *     写入数据库出现非瞬时异常时逐条重试, 仍失败的日志写入死信(见TaskLogBatchSaver)
+ *     启用溢出文件时, 写入数据库失败的批次写入本地溢出文件, 溢出文件有待回放日志期间新批次直接写入溢出文件(保持顺序, 仅由回放线程探测数据库)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/20
+ */
+class TaskLogWriter {
+
+    private final Logger log = LoggerFactory.getLogger(TaskLogWriter.class);
+
+    /**
+     * 缓冲区为空时写入线程最长休眠时间(生产者发布日志时唤醒, 超时仅作为兜底)
+     */
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * BLOCK策略等待空闲槽位的休眠间隔
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * DROP_OLDEST策略最多丢弃次数(其他生产者竞争槽位时避免无限循环)
+     */
+    private static final int MAX_EVICT_ATTEMPTS = 8;
+
+    /**
+     * 丢弃日志警告输出间隔
+     */
+    private static final long DROP_WARN_INTERVAL_MS = 10000;
+
+    /**
+     * 待写入日志缓冲区
+     */
+    private final TaskLogRingBuffer ringBuffer;
+
+    /**
+     * 批量写入数据库(截断超长字段, 非瞬时异常逐条重试)
+     */
+    private final TaskLogBatchSaver saver;
+
+    /**
+     * 日志事件转换(写入线程中渲染)
+     */
+    private final Function<TaskLogEvent, TaskLogPO> converter;
+
+    /**
+     * 日志统计
+     */
+    private final TaskLogStatistics statistics;
+
+    private final TaskLogOverflowPolicy overflowPolicy;
+
+    private final long blockTimeoutNanos;
+
+    private final TaskLog.LogLevel dropLevel;
+
+    /**
+     * 上次输出丢弃日志警告时间
+     */
+    private final AtomicLong lastDropWarnTime = new AtomicLong();
+
+    /**
+     * 溢出文件及回放线程(未启用为null)
+     */
+    private final TaskLogSpillJournal journal;
+
+    private final TaskLogSpillReplayer replayer;
+
+    private final int batchSize;
+
+    private final long lingerNanos;
+
+    private final Thread[] writers;
+
+    /**
+     * 等待日志发布的写入线程数(生产者发布后仅在有等待的写入线程时唤醒)
+     */
+    private final AtomicInteger idleWriters = new AtomicInteger();
+
+    /**
+     * 已占用未发布的槽位数(关闭时写入线程等待这些日志发布)
+     */
+    private final AtomicInteger claiming = new AtomicInteger();
+
+    private volatile boolean running = true;
+
+    /**
+     * 写入线程已退出(关闭超时), 之后发布的日志不再写入
+     */
+    private volatile boolean stopped;
+
+    TaskLogWriter(TaskLogConfigBO config, TaskLogStoreService logStoreService, Function<TaskLogEvent, TaskLogPO> converter,
+                  TaskLogStatistics statistics) {
+        this.ringBuffer = new TaskLogRingBuffer(config.getQueueCapacity());
+        this.converter = converter;
+        this.statistics = statistics;
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getBlockTimeoutMs(), QuartzConstant.ZERO));
+        this.dropLevel = config.getDropLevel();
+        this.batchSize = Math.max(config.getBatchSize(), QuartzConstant.ONE);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getLingerMs(), QuartzConstant.ZERO));
+        this.journal = openJournal(config);
+        this.saver = new TaskLogBatchSaver(logStoreService, batchSize, ObjectUtils.isNull(journal) ? null : new File(config.getSpillDir()));
+        this.replayer = ObjectUtils.isNull(journal) ? null :
+                new TaskLogSpillReplayer(journal, saver, statistics, batchSize, config.getSpillReplayIntervalMs());
+        this.writers = new Thread[Math.max(config.getWriterThreads(), QuartzConstant.ONE)];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Thread(this::drain, "quartz-log-writer-" + i);
+            writers[i].setDaemon(true);
+            writers[i].start();
+        }
+        log.info("[quartz], task log writer started, ring capacity={}, config={}", ringBuffer.capacity(), config);
+    }
+
+    /**
+     * 占用日志槽位
+     * <pre>
+     *     缓冲区已满时按overflowPolicy处理, 仅BLOCK(及DROP_BELOW_LEVEL中不低于dropLevel的日志)会阻塞
+     * </pre>
+     *
+     * @param level 日志等级
+     * @return 日志槽位(日志被丢弃或写入器已关闭返回null)
+     */
+    TaskLogEvent claim(TaskLog.LogLevel level) {
+        // 先登记占用再检查状态: 关闭时写入线程读取占用数, 两者至少一方可见对方的写入, 关闭后不会有未等待的占用
+        claiming.incrementAndGet();
+        if (!running) {
+            claiming.decrementAndGet();
+            return null;
+        }
+        TaskLogEvent event = ringBuffer.tryClaim();
+        if (event == null) {
+            event = claimOnOverflow(level);
+        }
+        if (event != null) {
+            statistics.queued(level);
+        } else {
+            claiming.decrementAndGet();
+            if (running) {
+                statistics.dropped(level);
+                warnDropped();
+            }
+        }
+        return event;
+    }
+
+    /**
+     * 发布日志槽位, 有等待的写入线程时唤醒
+     * <pre>
+     *     先发布再检查写入线程是否已退出: 关闭时先标记退出再取出剩余日志, 两者至少一方可见对方的写入,
+     *     写入线程退出后发布的日志由生产者取出计为丢弃, 不会既未写入也未计数
+     * </pre>
+     *
+     * @param event 已填充的日志槽位
+     */
+    void publish(TaskLogEvent event) {
+        TaskLogRingBuffer.publish(event);
+        claiming.decrementAndGet();
+        if (stopped) {
+            discardPublished();
+        } else if (idleWriters.get() > 0) {
+            for (Thread writer : writers) {
+                LockSupport.unpark(writer);
+            }
+        }
+    }
+
+    int pending() {
+        return ringBuffer.size();
+    }
+
+    int capacity() {
+        return ringBuffer.capacity();
+    }
+
+    TaskLogOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * 溢出文件未回放完的分段数
+     *
+     * @return 分段数(未启用溢出文件返回null)
+     */
+    Integer spillSegments() {
+        return ObjectUtils.notNull(journal) ? journal.segmentCount() : null;
+    }
+
+    /**
+     * 打开溢出文件
+     *
+     * @return 溢出文件(未配置或打开失败返回null)
+     */
+    private TaskLogSpillJournal openJournal(TaskLogConfigBO config) {
+        if (ObjectUtils.isBlank(config.getSpillDir())) {
+            return null;
+        }
+        try {
+            return new TaskLogSpillJournal(new File(config.getSpillDir()), config.getSpillSegmentSize(), config.getSpillMaxSegments());
+        } catch (Exception e) {
+            log.error("[quartz], open task log spill journal failed, spill disabled, caused by ==>", e);
+            return null;
+        }
+    }
+
+    private TaskLogEvent claimOnOverflow(TaskLog.LogLevel level) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                return claimBlocking();
+            case DROP_OLDEST:
+                return claimEvictingOldest();
+            case DROP_BELOW_LEVEL:
+                return level.compareTo(dropLevel) < 0 ? null : claimBlocking();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 等待空闲槽位直到超时
+     */
+    private TaskLogEvent claimBlocking() {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (running && !Thread.currentThread().isInterrupted() && deadline - System.nanoTime() > 0) {
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            TaskLogEvent event = ringBuffer.tryClaim();
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 丢弃最早的已发布日志后重新占用槽位
+     */
+    private TaskLogEvent claimEvictingOldest() {
+        for (int i = 0; i < MAX_EVICT_ATTEMPTS; i++) {
+            TaskLogEvent oldest = ringBuffer.tryTake();
+            if (oldest != null) {
+                statistics.dropped(oldest.level);
+                ringBuffer.release(oldest);
+            }
+            TaskLogEvent event = ringBuffer.tryClaim();
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 丢弃日志警告(限频)
+     */
+    private void warnDropped() {
+        long now = System.currentTimeMillis();
+        long last = lastDropWarnTime.get();
+        if (now - last >= DROP_WARN_INTERVAL_MS && lastDropWarnTime.compareAndSet(last, now)) {
+            log.warn("[quartz], task log buffer is full, policy={}, capacity={}, total dropped={}",
+                    overflowPolicy, ringBuffer.capacity(), statistics.droppedTotal());
+        }
+    }
+
+    /**
+     * 关闭写入器, 等待写入线程将缓冲区中剩余日志写完
+     * <pre>
+     *     超时后写入线程退出, 缓冲区中未写入的日志计为丢弃
+     * </pre>
+     *
+     * @param timeoutMs 最长等待时间
+     */
+    void close(long timeoutMs) {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (Thread writer : writers) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(Math.max(deadline - System.currentTimeMillis(), QuartzConstant.ONE));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        stopped = true;
+        for (Thread writer : writers) {
+            LockSupport.unpark(writer);
+        }
+        int discarded = discardPublished();
+        if (discarded > 0 || claiming.get() > 0) {
+            log.warn("[quartz], task log writer closed with {} logs not written, {} logs not published", discarded, claiming.get());
+        }
+        if (ObjectUtils.notNull(replayer)) {
+            replayer.close(Math.max(deadline - System.currentTimeMillis(), QuartzConstant.ONE));
+            journal.close();
+        }
+    }
+
+    /**
+     * 取出已发布未写入的日志计为丢弃(写入线程已退出)
+     *
+     * @return 丢弃条数
+     */
+    private int discardPublished() {
+        int discarded = 0;
+        TaskLogEvent event;
+        while ((event = ringBuffer.tryTake()) != null) {
+            statistics.dropped(event.level);
+            ringBuffer.release(event);
+            discarded++;
+        }
+        return discarded;
+    }
+
+    /**
+     * 写入线程: 取到首条日志后在lingerMs内尽量攒满一批
+     * <pre>
+     *     关闭后继续写入已发布日志, 并等待已占用槽位的生产者发布, 直到缓冲区中没有已发布及已占用的槽位(或关闭超时)
+     * </pre>
+     */
+    private void drain() {
+        List<TaskLogPO> batch = new ArrayList<>(batchSize);
+        int[] levels = new int[batchSize];
+        while (!stopped && (running || claiming.get() > 0 || ringBuffer.hasPublished())) {
+            try {
+                if (takeTo(batch, levels) == 0) {
+                    awaitPublish(MAX_IDLE_PARK_NANOS);
+                    continue;
+                }
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize && running) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    if (takeTo(batch, levels) == 0) {
+                        awaitPublish(remaining);
+                    }
+                }
+                write(batch, levels);
+            } catch (Exception e) {
+                log.error("[quartz], task log writer catch a exception, caused by ==>", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 等待生产者发布日志
+     * <pre>
+     *     先登记等待再检查缓冲区: 生产者发布后读取等待数, 两者至少一方可见对方的写入, 不会丢失唤醒
+     *     关闭期间仍有已占用未发布的槽位时继续休眠等待发布, 不空转
+     * </pre>
+     *
+     * @param nanos 最长等待时间
+     */
+    private void awaitPublish(long nanos) {
+        idleWriters.incrementAndGet();
+        try {
+            if (!stopped && (running || claiming.get() > 0) && !ringBuffer.hasPublished()) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            idleWriters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 读取已发布日志直到批次已满或缓冲区为空
+     *
+     * @param batch  当前批次
+     * @param levels 当前批次日志等级
+     * @return 本次读取条数
+     */
+    private int takeTo(List<TaskLogPO> batch, int[] levels) {
+        int taken = 0;
+        TaskLogEvent event;
+        while (batch.size() < batchSize && (event = ringBuffer.tryTake()) != null) {
+            try {
+                TaskLogPO logPo = converter.apply(event);
+                if (logPo != null) {
+                    levels[batch.size()] = event.level.ordinal();
+                    batch.add(logPo);
+                }
+                taken++;
+            } catch (Exception e) {
+                log.error("[quartz], convert task log catch a exception, caused by ==>", e);
+            } finally {
+                ringBuffer.release(event);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * 批量写入
+     */
+    private void write(List<TaskLogPO> batch, int[] levels) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // 溢出文件有待回放日志时数据库大概率仍不可用, 直接写入溢出文件
+        if (ObjectUtils.notNull(journal) && journal.hasPending()) {
+            spill(batch, levels);
+            return;
+        }
+        BitSet deadLetters = saver.save(batch, false);
+        if (ObjectUtils.isNull(deadLetters) && ObjectUtils.notNull(journal)) {
+            spill(batch, levels);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (ObjectUtils.notNull(deadLetters) && !deadLetters.get(i)) {
+                statistics.persisted(levels[i]);
+            } else {
+                statistics.failed(levels[i]);
+            }
+        }
+    }
+
+    /**
+     * 写入溢出文件
+     */
+    private void spill(List<TaskLogPO> batch, int[] levels) {
+        int spilled = 0;
+        try {
+            spilled = journal.append(batch);
+        } catch (IOException e) {
+            log.error("[quartz], spill {} logs to journal catch a exception, caused by ==>", batch.size(), e);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < spilled) {
+                statistics.spilled(levels[i]);
+            } else {
+                statistics.failed(levels[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.api.resp.TaskLogResp;
+import com.cg.quartz.utils.CompressUtils;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 任务最近日志迭代器
+ * <pre>
+ *     按序号从缓冲区拉取日志, 读到最新日志后hasNext返回false, 之后写入的日志可继续调用hasNext拉取
+ *     读取前已被覆盖的日志跳过并计入missed, 调用方记录getSequence(), 下次从该序号之后继续读取
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/3
+ */
+public final class TaskRecentLogIterator implements Iterator<TaskLogResp> {
+
+    private final TaskRecentLogs.Buffer buffer;
+
+    /**
+     * 已读取的最后一条日志序号
+     */
+    private long sequence;
+
+    /**
+     * 被覆盖未读取到的日志条数
+     */
+    private long missed;
+
+    private TaskRecentLogs.Entry next;
+
+    TaskRecentLogIterator(TaskRecentLogs.Buffer buffer, long sinceSequence) {
+        this.buffer = buffer;
+        this.sequence = Math.max(sinceSequence, 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (buffer == null || buffer.head() <= sequence) {
+            return false;
+        }
+        long expected = sequence + 1;
+        long oldest = buffer.oldest();
+        if (expected < oldest) {
+            missed += oldest - expected;
+            expected = oldest;
+        }
+        while (expected <= buffer.head()) {
+            TaskRecentLogs.Entry entry = buffer.get(expected);
+            if (entry != null) {
+                next = entry;
+                return true;
+            }
+            // 槽位尚未写入(写入方已占用序号)时停止, 等待下次拉取; 已被覆盖则跳到最旧日志
+            long current = buffer.oldest();
+            if (expected >= current) {
+                sequence = expected - 1;
+                return false;
+            }
+            missed += current - expected;
+            expected = current;
+        }
+        return false;
+    }
+
+    @Override
+    public TaskLogResp next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        TaskRecentLogs.Entry entry = next;
+        next = null;
+        sequence = entry.sequence;
+        TaskLogResp logResp = new TaskLogResp();
+        logResp.setType(entry.type);
+        logResp.setThread(entry.thread);
+        logResp.setClassName(entry.className);
+        logResp.setTask(entry.task);
+        logResp.setContent(entry.contentOverflow != null ? CompressUtils.inflate(entry.contentOverflow) : entry.content);
+        logResp.setEvent(entry.event);
+        logResp.setKv(entry.kv);
+        logResp.setElapsedMs(entry.elapsedMs);
+        logResp.setFireInstanceId(entry.fireInstanceId);
+        logResp.setSequence(entry.logSequence);
+        logResp.setTraceFingerprint(entry.traceFingerprint);
+        logResp.setTraceOccurrence(entry.traceOccurrence);
+        logResp.setCreateTime(new Date(entry.createTime));
+        return logResp;
+    }
+
+    /**
+     * 已读取的最后一条日志序号(下次读取传入该序号)
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 读取前已被覆盖的日志条数
+     */
+    public long getMissed() {
+        return missed;
+    }
+}
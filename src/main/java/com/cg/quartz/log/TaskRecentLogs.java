@@ -0,0 +1,199 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.entity.po.TaskLogPO;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 任务最近日志(内存)
+ * <pre>
+ *     每个任务一个固定大小的环形缓冲区, 保存最近bufferSize条已渲染日志, 不依赖数据库(内存模式同样可用)
+ *     保存渲染后日志字段的快照, 不引用写入线程使用的TaskLogPO(写入时截断超长字段, 回填自增id)
+ *     写入: 递增任务序号后写入对应槽位, 无锁, 缓冲区满时覆盖最旧日志
+ *     读取: 从指定序号之后按序读取, 已被覆盖的日志跳过并计入missed
+ *     缓冲区总数上限为maxEntries / bufferSize, 超过时淘汰最久未写入日志的任务, 内存上限约为maxEntries条日志
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/3
+ */
+final class TaskRecentLogs {
+
+    private final int bufferSize;
+
+    private final int maxBuffers;
+
+    /**
+     * 任务名 -> 最近日志
+     */
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>(64);
+
+    TaskRecentLogs(int bufferSize, int maxEntries) {
+        this.bufferSize = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.maxBuffers = Math.max(maxEntries / this.bufferSize, 1);
+    }
+
+    /**
+     * 写入日志
+     *
+     * @param logPo 已渲染的日志(尚未交给写入线程)
+     */
+    void append(TaskLogPO logPo) {
+        Buffer buffer = buffers.get(logPo.getTask());
+        if (buffer == null) {
+            buffer = buffers.computeIfAbsent(logPo.getTask(), task -> new Buffer(bufferSize));
+            if (buffers.size() > maxBuffers) {
+                evict(buffer);
+            }
+        }
+        buffer.append(logPo);
+    }
+
+    /**
+     * 读取任务最近日志
+     *
+     * @param task          任务名
+     * @param sinceSequence 从该序号之后开始读取(0从最旧日志开始)
+     * @return 日志迭代器
+     */
+    TaskRecentLogIterator iterator(String task, long sinceSequence) {
+        return new TaskRecentLogIterator(buffers.get(task), sinceSequence);
+    }
+
+    /**
+     * 淘汰最久未写入日志的任务(任务数超过上限时, 仅新任务首次写入时执行)
+     */
+    private void evict(Buffer current) {
+        String eldestTask = null;
+        long eldestTime = Long.MAX_VALUE;
+        for (Map.Entry<String, Buffer> entry : buffers.entrySet()) {
+            if (entry.getValue() != current && entry.getValue().lastTimestamp < eldestTime) {
+                eldestTask = entry.getKey();
+                eldestTime = entry.getValue().lastTimestamp;
+            }
+        }
+        if (eldestTask != null) {
+            buffers.remove(eldestTask);
+        }
+    }
+
+    /**
+     * 单个任务的环形缓冲区
+     */
+    static final class Buffer {
+
+        private final AtomicReferenceArray<Entry> entries;
+
+        private final int mask;
+
+        /**
+         * 最新日志序号(从1开始)
+         */
+        private final AtomicLong cursor = new AtomicLong();
+
+        /**
+         * 最近写入时间(仅用于淘汰, 无需精确)
+         */
+        private long lastTimestamp;
+
+        private Buffer(int size) {
+            this.entries = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        }
+
+        private void append(TaskLogPO logPo) {
+            long sequence = cursor.incrementAndGet();
+            Entry entry = new Entry(sequence, logPo);
+            entries.set((int) sequence & mask, entry);
+            lastTimestamp = entry.createTime;
+        }
+
+        /**
+         * 读取序号对应日志
+         *
+         * @return 日志(已被覆盖或尚未写入返回null)
+         */
+        Entry get(long sequence) {
+            Entry entry = entries.get((int) sequence & mask);
+            return entry != null && entry.sequence == sequence ? entry : null;
+        }
+
+        /**
+         * 最新日志序号
+         */
+        long head() {
+            return cursor.get();
+        }
+
+        /**
+         * 仍保留在缓冲区中的最旧日志序号
+         */
+        long oldest() {
+            return Math.max(cursor.get() - mask, 1);
+        }
+    }
+
+    /**
+     * 日志快照及其序号(不可变, 写入槽位即发布)
+     */
+    static final class Entry {
+
+        final long sequence;
+
+        final String type;
+
+        final String thread;
+
+        final String className;
+
+        final String task;
+
+        final String content;
+
+        /**
+         * 超长日志的压缩内容(创建后不再修改)
+         */
+        final byte[] contentOverflow;
+
+        final String event;
+
+        final String kv;
+
+        final Long elapsedMs;
+
+        final String fireInstanceId;
+
+        /**
+         * 本次执行内的日志序号
+         */
+        final Integer logSequence;
+
+        final String traceFingerprint;
+
+        final Long traceOccurrence;
+
+        final long createTime;
+
+        private Entry(long sequence, TaskLogPO logPo) {
+            this.sequence = sequence;
+            this.type = logPo.getType();
+            this.thread = logPo.getThread();
+            this.className = logPo.getClassName();
+            this.task = logPo.getTask();
+            this.content = logPo.getContent();
+            this.contentOverflow = logPo.getContentOverflow();
+            this.event = logPo.getEvent();
+            this.kv = logPo.getKv();
+            this.elapsedMs = logPo.getElapsedMs();
+            this.fireInstanceId = logPo.getFireInstanceId();
+            this.logSequence = logPo.getSequence();
+            this.traceFingerprint = logPo.getTraceFingerprint();
+            this.traceOccurrence = logPo.getTraceOccurrence();
+            this.createTime = logPo.getCreateTime().getTime();
+        }
+    }
+}
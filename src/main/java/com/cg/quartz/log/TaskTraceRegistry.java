@@ -0,0 +1,310 @@
+package com.cg.quartz.log;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.cg.quartz.entity.po.TaskTracePO;
+import com.cg.quartz.service.TaskTraceStoreService;
+import com.cg.quartz.utils.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异常栈去重登记
+ * <pre>
+ *     异常日志按异常栈指纹登记: 首次出现时将完整异常栈写入t_quartz_task_trace, 之后仅在日志中记录指纹及出现次数
+ *     登记仅访问内存(不阻塞日志写入线程): 内存中按LRU缓存最近的指纹及出现次数(最多MAX_CACHED_TRACES个), 未命中的指纹按本实例计数
+ *     独立刷新线程每隔FLUSH_INTERVAL_MS(或关闭时)将新指纹的完整异常栈及出现次数增量写入数据库(insert on duplicate key update),
+ *     新指纹写入后按数据库中的出现次数修正计数, 多实例时各实例分别累加
+ *     写入连续失败时刷新间隔指数退避(最长MAX_BACKOFF_MS), 连续失败达到MAX_FAILURES次后暂停登记(日志内容为完整异常栈)直到写入恢复
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/27
+ */
+final class TaskTraceRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(TaskTraceRegistry.class);
+
+    /**
+     * 缓存指纹数量上限(已淘汰未写入的指纹同样以此为上限)
+     */
+    private static final int MAX_CACHED_TRACES = 1024;
+
+    /**
+     * 出现次数更新间隔
+     */
+    private static final long FLUSH_INTERVAL_MS = 1000;
+
+    /**
+     * 写入失败后最长刷新间隔
+     */
+    private static final long MAX_BACKOFF_MS = 60000;
+
+    /**
+     * 连续失败次数达到该值后暂停登记
+     */
+    private static final int MAX_FAILURES = 3;
+
+    /**
+     * 异常栈最大长度(t_quartz_task_trace.trace字段)
+     */
+    private static final int MAX_TRACE_LENGTH = 65536;
+
+    /**
+     * 完整异常栈输出选项(仅限制长度)
+     */
+    private static final ExceptionUtils.TraceOptions TRACE_OPTIONS = ExceptionUtils.TraceOptions.builder().maxChars(MAX_TRACE_LENGTH).build();
+
+    private final TaskTraceStoreService traceStoreService;
+
+    /**
+     * 指纹 -> 出现次数(access order, 超过上限淘汰最久未出现的指纹)
+     */
+    private final Map<String, Counter> traces = new LinkedHashMap<String, Counter>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Counter> eldest) {
+            if (size() <= MAX_CACHED_TRACES) {
+                return false;
+            }
+            if (eldest.getValue().unflushed > 0) {
+                evict(eldest.getValue());
+            }
+            return true;
+        }
+    };
+
+    /**
+     * 已淘汰但出现次数尚未更新到数据库的指纹
+     */
+    private final List<Counter> evicted = new ArrayList<>();
+
+    private final Thread flusher;
+
+    /**
+     * 连续写入失败次数
+     */
+    private volatile int failures;
+
+    private volatile boolean running = true;
+
+    TaskTraceRegistry(TaskTraceStoreService traceStoreService) {
+        this.traceStoreService = traceStoreService;
+        this.flusher = new Thread(this::flushPeriodically, "quartz-trace-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 登记异常(仅访问内存)
+     *
+     * @param t 异常
+     * @return 出现记录(已关闭或写入数据库连续失败时返回null)
+     */
+    Occurrence record(Throwable t) {
+        if (!running || failures >= MAX_FAILURES) {
+            return null;
+        }
+        String fingerprint = ExceptionUtils.getFingerprint(t);
+        Occurrence occurrence = increment(fingerprint, null);
+        if (occurrence == null) {
+            // 完整异常栈在缓存外渲染, 由刷新线程写入数据库
+            String stackTrace = ExceptionUtils.appendStackTrace(t, new StringBuilder(1024), TRACE_OPTIONS).toString();
+            occurrence = increment(fingerprint, new Counter(fingerprint, t.getClass().getName(), stackTrace));
+        }
+        return occurrence;
+    }
+
+    /**
+     * 停止刷新线程并将出现次数写入数据库
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(FLUSH_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushPeriodically() {
+        while (running) {
+            // 连续失败时指数退避
+            long interval = Math.min(FLUSH_INTERVAL_MS << Math.min(failures, 6), MAX_BACKOFF_MS);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(interval));
+            if (running) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * 新指纹的完整异常栈及出现次数增量写入数据库
+     */
+    synchronized void flush() {
+        List<Counter> dirty = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        synchronized (traces) {
+            for (Counter counter : traces.values()) {
+                collect(counter, dirty, deltas);
+            }
+            for (Counter counter : evicted) {
+                collect(counter, dirty, deltas);
+            }
+            evicted.clear();
+        }
+        if (dirty.isEmpty()) {
+            // 无待写入指纹(已丢弃), 恢复登记
+            failures = 0;
+            return;
+        }
+        for (int i = 0; i < dirty.size(); i++) {
+            Counter counter = dirty.get(i);
+            long delta = deltas.get(i);
+            try {
+                store(counter, delta);
+                failures = 0;
+            } catch (Exception e) {
+                if (++failures == MAX_FAILURES) {
+                    log.warn("[quartz], store traces failed {} times, trace registry paused until database recovers", failures);
+                }
+                log.warn("[quartz], store trace {} failed, caused by ==> {}", counter.fingerprint, e.toString());
+                synchronized (traces) {
+                    counter.unflushed += delta;
+                    if (traces.get(counter.fingerprint) != counter) {
+                        evict(counter);
+                    }
+                }
+                // 后续指纹等待下次刷新
+                for (int j = i + 1; j < dirty.size(); j++) {
+                    restore(dirty.get(j), deltas.get(j));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写入指纹(新指纹写入完整异常栈, 已有指纹累加出现次数)
+     */
+    private void store(Counter counter, long delta) {
+        TaskTracePO trace = new TaskTracePO(counter.fingerprint, counter.exception, counter.stackTrace, delta);
+        traceStoreService.upsertOccurrences(trace);
+        if (counter.stackTrace == null) {
+            return;
+        }
+        // 新指纹写入后按数据库中的出现次数(含其他实例)修正计数
+        TaskTracePO stored = traceStoreService.getOne(new QueryWrapper<TaskTracePO>()
+                .select("fingerprint", "occurrences")
+                .eq("fingerprint", counter.fingerprint), false);
+        synchronized (traces) {
+            counter.stackTrace = null;
+            if (stored != null && stored.getOccurrences() != null) {
+                counter.total = Math.max(counter.total, stored.getOccurrences() + counter.unflushed);
+            }
+        }
+    }
+
+    private void restore(Counter counter, long delta) {
+        synchronized (traces) {
+            counter.unflushed += delta;
+            if (traces.get(counter.fingerprint) != counter) {
+                evict(counter);
+            }
+        }
+    }
+
+    private void collect(Counter counter, List<Counter> dirty, List<Long> deltas) {
+        if (counter.unflushed > 0) {
+            dirty.add(counter);
+            deltas.add(counter.unflushed);
+            counter.unflushed = 0;
+        }
+    }
+
+    /**
+     * 记录已淘汰未写入的指纹(超过上限丢弃最早的指纹)
+     */
+    private void evict(Counter counter) {
+        if (evicted.size() >= MAX_CACHED_TRACES) {
+            Counter dropped = evicted.remove(0);
+            log.warn("[quartz], too many traces not stored, occurrences of trace {} dropped", dropped.fingerprint);
+        }
+        evicted.add(counter);
+    }
+
+    /**
+     * 累加出现次数
+     *
+     * @param fingerprint 指纹
+     * @param created     新指纹计数(缓存中不存在时放入)
+     * @return 出现记录(缓存中不存在且created为null返回null)
+     */
+    private Occurrence increment(String fingerprint, Counter created) {
+        synchronized (traces) {
+            Counter counter = traces.get(fingerprint);
+            if (counter == null) {
+                if (created == null) {
+                    return null;
+                }
+                traces.put(fingerprint, counter = created);
+            }
+            counter.unflushed++;
+            return new Occurrence(fingerprint, ++counter.total);
+        }
+    }
+
+    /**
+     * 指纹出现次数
+     */
+    private static final class Counter {
+
+        private final String fingerprint;
+
+        private final String exception;
+
+        /**
+         * 完整异常栈(写入数据库后为null)
+         */
+        private String stackTrace;
+
+        private long total;
+
+        /**
+         * 尚未更新到数据库的次数
+         */
+        private long unflushed;
+
+        private Counter(String fingerprint, String exception, String stackTrace) {
+            this.fingerprint = fingerprint;
+            this.exception = exception;
+            this.stackTrace = stackTrace;
+        }
+    }
+
+    /**
+     * 异常出现记录
+     */
+    static final class Occurrence {
+
+        final String fingerprint;
+
+        /**
+         * 第几次出现
+         */
+        final long occurrence;
+
+        private Occurrence(String fingerprint, long occurrence) {
+            this.fingerprint = fingerprint;
+            this.occurrence = occurrence;
+        }
+    }
+}
@@ -0,0 +1,721 @@
+package com.cg.quartz.pool;
+
+import com.cg.quartz.api.resp.TaskExecutorStatisticsResp;
+import com.cg.quartz.api.resp.ThreadPoolStatisticsResp;
+import com.cg.quartz.factory.TaskInvokingJob;
+import org.quartz.SchedulerConfigException;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 弹性调度线程池(替代SimpleThreadPool)
+ * <pre>
+ *     启动时创建corePoolSize个线程, 无空闲线程时按需创建, 最多maxPoolSize个; 超过corePoolSize的线程空闲keepAliveMs后退出
+ *     任务直接交给空闲线程(后进先出, 使多余线程尽快空闲退出), 不排队: 线程数达到上限时blockForAvailableThreads/runInThread阻塞等待,
+ *     调度线程按可用线程数获取触发器, 与SimpleThreadPool语义相同
+ *     统计忙碌线程数, 等待空闲线程的次数及时间, 拒绝次数(见getStatistics)
+ *     虚拟线程(JVM支持时, Java 21+): virtualThreads=true时所有任务在新建的虚拟线程中执行, 不创建平台线程, maxPoolSize作为并发执行上限;
+ *     否则仅@Task(virtualThread = true)的任务使用虚拟线程, 并发执行上限为virtualMaxConcurrency, 达到上限时由平台线程执行(不阻塞调度线程);
+ *     JVM不支持时退化为平台线程
+ *     任务上下文(TaskContext)由JobRunShell在执行线程中绑定, 虚拟线程中同样可用
+ *     独立执行器(舱壁): executors定义执行器及线程数(如report:2,sync:4), 指定执行器的任务(@Task#executor)由调度线程提交后立即返回,
+ *     不占用调度线程池线程; 执行器已满(线程全忙且executorQueueCapacity已满)时标记后交由调度线程池执行JobRunShell, 由JobRegistryListener否决
+ *     (跳过本次执行, 未被否决时TaskInvokingJob同样不执行任务方法), 调度线程中不执行任何JobRunShell
+ *     配置(quartz.properties, 前缀org.quartz.threadPool.): corePoolSize(或threadCount), maxPoolSize, keepAliveMs, threadPriority,
+ *     threadNamePrefix, makeThreadsDaemons, threadsInheritContextClassLoaderOfInitializingThread, virtualThreads, virtualMaxConcurrency,
+ *     executors, executorQueueCapacity
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/9
+ */
+public class ElasticThreadPool implements ThreadPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ElasticThreadPool.class);
+
+    /**
+     * 已初始化线程池<调度器名, 线程池>
+     */
+    private static final Map<String, ElasticThreadPool> POOLS = new ConcurrentHashMap<>(4);
+
+    /**
+     * 默认最大线程数(未配置maxPoolSize时, 不小于corePoolSize)
+     */
+    private static final int DEFAULT_MAX_POOL_SIZE = 20;
+
+    /**
+     * 执行上下文中独立执行器已满标识key(值为执行器名)
+     *
+     * @see com.cg.quartz.listener.JobRegistryListener#vetoJobExecution
+     * @see TaskInvokingJob#execute
+     */
+    public static final String EXECUTOR_REJECTED_KEY = "quartz.executorRejected";
+
+    /**
+     * 未配置时使用threadCount(SchedulerFactoryBean默认设置threadCount=10)
+     */
+    private Integer corePoolSize;
+
+    private int threadCount = 5;
+
+    private Integer maxPoolSize;
+
+    private long keepAliveMs = 60000L;
+
+    private int threadPriority = Thread.NORM_PRIORITY;
+
+    private String threadNamePrefix;
+
+    private boolean makeThreadsDaemons;
+
+    private boolean inheritLoader;
+
+    private String schedulerInstanceName;
+
+    /**
+     * 所有任务使用虚拟线程
+     */
+    private boolean virtualThreads;
+
+    /**
+     * 指定使用虚拟线程任务的并发执行上限
+     */
+    private int virtualMaxConcurrency = 256;
+
+    /**
+     * 虚拟线程工厂(JVM不支持为null)
+     */
+    private ThreadFactory virtualThreadFactory;
+
+    /**
+     * 独立执行器定义(执行器名:线程数, 逗号分隔)
+     */
+    private String executors;
+
+    /**
+     * 独立执行器排队上限(0为不排队)
+     */
+    private int executorQueueCapacity = 16;
+
+    /**
+     * 独立执行器<执行器名, 执行器>
+     */
+    private final Map<String, TaskExecutor> taskExecutors = new LinkedHashMap<>(8);
+
+    /**
+     * 已提示不存在的执行器名
+     */
+    private final Set<String> unknownExecutors = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger threadSequence = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 有空闲线程或可创建线程
+     */
+    private final Condition available = lock.newCondition();
+
+    /**
+     * 虚拟线程执行数低于上限
+     */
+    private final Condition virtualAvailable = lock.newCondition();
+
+    /**
+     * 空闲线程(栈顶为最近空闲)
+     */
+    private final ArrayDeque<Worker> idleWorkers = new ArrayDeque<>();
+
+    private final Set<Worker> workers = new HashSet<>();
+
+    private boolean shutdown;
+
+    private int busyThreads;
+
+    private int virtualRunning;
+
+    private long virtualOverflow;
+
+    private int largestPoolSize;
+
+    private long completed;
+
+    private long blocked;
+
+    private long rejected;
+
+    private long waitNanos;
+
+    private long maxWaitNanos;
+
+    /**
+     * 获取调度器的弹性线程池
+     *
+     * @param schedulerName 调度器名
+     * @return 线程池(未使用ElasticThreadPool返回null)
+     */
+    public static ElasticThreadPool get(String schedulerName) {
+        return POOLS.get(schedulerName);
+    }
+
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        if (!taskExecutors.isEmpty() && runInTaskExecutor(runnable)) {
+            return true;
+        }
+        if (virtualThreadFactory != null && (virtualThreads || VirtualThreads.isVirtualJob(runnable)) && runInVirtualThread(runnable)) {
+            return true;
+        }
+        lock.lock();
+        try {
+            for (; ; ) {
+                awaitAvailable();
+                if (shutdown) {
+                    // 与SimpleThreadPool相同, 关闭后在新线程中执行, 不丢弃已触发任务
+                    newThread(runnable, "-transient").start();
+                    return true;
+                }
+                Worker worker = idleWorkers.pollFirst();
+                if (worker != null) {
+                    worker.task = runnable;
+                    worker.signal.signal();
+                    busyThreads++;
+                    return true;
+                }
+                if (startWorker(runnable)) {
+                    busyThreads++;
+                    return true;
+                }
+                if (workers.isEmpty()) {
+                    rejected++;
+                    return false;
+                }
+                // 无法创建线程, 等待已有线程空闲
+                available.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 提交到任务指定的独立执行器
+     * <pre>
+     *     执行器已满时在执行上下文中标记, 由调度线程池执行JobRunShell(仅完成否决流程, 不执行任务), 不在调度线程中执行:
+     *     调度线程池可用线程数已在blockForAvailableThreads中计入
+     * </pre>
+     *
+     * @return 是否已提交(未指定执行器, 执行器不存在或已满返回false, 由调度线程池执行)
+     */
+    private boolean runInTaskExecutor(Runnable runnable) {
+        JobExecutionContextImpl context = JobRunShells.context(runnable);
+        Object executorName = context == null ? null : context.getJobDetail().getJobDataMap().get(TaskInvokingJob.EXECUTOR_KEY);
+        if (executorName == null) {
+            return false;
+        }
+        TaskExecutor executor = taskExecutors.get(executorName);
+        if (executor == null) {
+            if (unknownExecutors.add(executorName.toString())) {
+                log.warn("[quartz], executor {} is not defined, use scheduler thread pool, job={}", executorName, context.getJobDetail().getKey());
+            }
+            return false;
+        }
+        if (executor.execute(runnable)) {
+            return true;
+        }
+        context.put(EXECUTOR_REJECTED_KEY, executor.getName());
+        return false;
+    }
+
+    /**
+     * 在虚拟线程中执行
+     * <pre>
+     *     所有任务使用虚拟线程时达到并发上限(maxPoolSize)等待, 调度线程已在blockForAvailableThreads中按该上限获取触发器;
+     *     指定使用虚拟线程的任务达到virtualMaxConcurrency时不等待, 由平台线程执行(调度线程不因单个任务阻塞)
+     * </pre>
+     *
+     * @return 是否已提交(达到virtualMaxConcurrency或创建虚拟线程失败返回false, 由平台线程执行)
+     */
+    private boolean runInVirtualThread(Runnable runnable) {
+        lock.lock();
+        try {
+            if (!virtualThreads && virtualRunning >= virtualMaxConcurrency) {
+                virtualOverflow++;
+                return false;
+            }
+            long startTime = 0;
+            while (!shutdown && virtualRunning >= maxPoolSize) {
+                if (startTime == 0) {
+                    startTime = System.nanoTime();
+                    blocked++;
+                }
+                virtualAvailable.awaitUninterruptibly();
+            }
+            recordWait(startTime);
+            if (shutdown) {
+                return false;
+            }
+            virtualRunning++;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            virtualThreadFactory.newThread(() -> {
+                try {
+                    runnable.run();
+                } catch (Throwable e) {
+                    log.error("[quartz], error while executing the runnable in thread {}, caused by ==>", Thread.currentThread().getName(), e);
+                } finally {
+                    releaseVirtual(true);
+                }
+            }).start();
+            return true;
+        } catch (Throwable e) {
+            log.error("[quartz], start virtual thread failed, use platform thread instead, caused by ==> {}", e.toString());
+            releaseVirtual(false);
+            return false;
+        }
+    }
+
+    private void releaseVirtual(boolean executed) {
+        lock.lock();
+        try {
+            virtualRunning--;
+            if (executed) {
+                completed++;
+            }
+            virtualAvailable.signal();
+            if (shutdown) {
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 虚拟线程并发执行上限(所有任务使用虚拟线程时为maxPoolSize)
+     */
+    private int virtualLimit() {
+        return virtualThreads ? maxPoolSize : virtualMaxConcurrency;
+    }
+
+    /**
+     * 等待可用线程
+     * <pre>
+     *     所有任务使用虚拟线程时按虚拟线程并发上限计算;
+     *     否则按平台线程计算: 指定使用虚拟线程的任务达到virtualMaxConcurrency时由平台线程执行, 可用数不计入虚拟线程余量,
+     *     保证获取的触发器在runInThread中均不阻塞
+     * </pre>
+     */
+    @Override
+    public int blockForAvailableThreads() {
+        lock.lock();
+        try {
+            if (virtualThreads && virtualThreadFactory != null) {
+                long startTime = 0;
+                while (!shutdown && virtualRunning >= maxPoolSize) {
+                    if (startTime == 0) {
+                        startTime = System.nanoTime();
+                        blocked++;
+                    }
+                    virtualAvailable.awaitUninterruptibly();
+                }
+                recordWait(startTime);
+                return Math.max(maxPoolSize - virtualRunning, 0);
+            }
+            awaitAvailable();
+            return idleWorkers.size() + Math.max(maxPoolSize - workers.size(), 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待空闲线程或可创建线程(需持有锁)
+     */
+    private void awaitAvailable() {
+        long startTime = 0;
+        while (!shutdown && idleWorkers.isEmpty() && workers.size() >= maxPoolSize) {
+            if (startTime == 0) {
+                startTime = System.nanoTime();
+                blocked++;
+            }
+            available.awaitUninterruptibly();
+        }
+        recordWait(startTime);
+    }
+
+    /**
+     * 记录等待时间(需持有锁)
+     *
+     * @param startTime 开始等待时间(未等待为0)
+     */
+    private void recordWait(long startTime) {
+        if (startTime != 0) {
+            long waited = System.nanoTime() - startTime;
+            waitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+        }
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        resolvePoolSize();
+        if (corePoolSize < 0 || maxPoolSize <= 0 || maxPoolSize < corePoolSize || virtualMaxConcurrency <= 0) {
+            throw new SchedulerConfigException("illegal pool size, corePoolSize=" + corePoolSize + ", maxPoolSize=" + maxPoolSize
+                    + ", virtualMaxConcurrency=" + virtualMaxConcurrency);
+        }
+        if (threadPriority < Thread.MIN_PRIORITY || threadPriority > Thread.MAX_PRIORITY) {
+            throw new SchedulerConfigException("thread priority must be between " + Thread.MIN_PRIORITY + " and " + Thread.MAX_PRIORITY);
+        }
+        if (threadNamePrefix == null) {
+            threadNamePrefix = schedulerInstanceName + "_Worker";
+        }
+        virtualThreadFactory = VirtualThreads.newFactory(threadNamePrefix + "-virtual-");
+        initializeTaskExecutors();
+        if (virtualThreads && virtualThreadFactory == null) {
+            log.warn("[quartz], virtual threads are not supported by this jvm({}), use platform threads", System.getProperty("java.version"));
+        }
+        lock.lock();
+        try {
+            // 所有任务使用虚拟线程时不预先创建平台线程
+            int prestart = virtualThreads && virtualThreadFactory != null ? 0 : corePoolSize;
+            for (int i = 0; i < prestart; i++) {
+                if (!startWorker(null)) {
+                    throw new SchedulerConfigException("can not start worker thread");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        POOLS.put(schedulerInstanceName, this);
+        log.info("[quartz], elastic thread pool initialized, corePoolSize={}, maxPoolSize={}, keepAliveMs={}, virtualThreads={}, virtualSupported={}, executors={}",
+                corePoolSize, maxPoolSize, keepAliveMs, virtualThreads, virtualThreadFactory != null, executors);
+    }
+
+    /**
+     * 创建独立执行器(executors格式: 执行器名:线程数, 逗号分隔)
+     *
+     * @throws SchedulerConfigException 格式错误
+     */
+    private void initializeTaskExecutors() throws SchedulerConfigException {
+        if (executors == null || executors.trim().isEmpty()) {
+            return;
+        }
+        if (executorQueueCapacity < 0) {
+            throw new SchedulerConfigException("illegal executor queue capacity, executorQueueCapacity=" + executorQueueCapacity);
+        }
+        for (String definition : executors.split(",")) {
+            String[] nameAndSize = definition.trim().split(":");
+            int size;
+            try {
+                size = nameAndSize.length == 2 ? Integer.parseInt(nameAndSize[1].trim()) : 0;
+            } catch (NumberFormatException e) {
+                size = 0;
+            }
+            String name = nameAndSize[0].trim();
+            if (name.isEmpty() || size <= 0 || taskExecutors.containsKey(name)) {
+                throw new SchedulerConfigException("illegal executor definition: " + definition + ", expected name:size, e.g. report:2,sync:4");
+            }
+            AtomicInteger sequence = new AtomicInteger();
+            taskExecutors.put(name, new TaskExecutor(name, size, executorQueueCapacity,
+                    runnable -> newThread(runnable, "-" + name + "-" + sequence.incrementAndGet())));
+        }
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            for (Worker worker : idleWorkers) {
+                worker.signal.signal();
+            }
+            available.signalAll();
+            virtualAvailable.signalAll();
+            while (waitForJobsToComplete && (!workers.isEmpty() || virtualRunning > 0)) {
+                available.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (TaskExecutor executor : taskExecutors.values()) {
+            executor.shutdown(waitForJobsToComplete);
+        }
+        POOLS.remove(schedulerInstanceName, this);
+    }
+
+    @Override
+    public int getPoolSize() {
+        resolvePoolSize();
+        return maxPoolSize;
+    }
+
+    /**
+     * 确定线程数(未配置corePoolSize使用threadCount, 未配置maxPoolSize使用默认值)
+     */
+    private synchronized void resolvePoolSize() {
+        if (corePoolSize == null) {
+            corePoolSize = threadCount;
+        }
+        if (maxPoolSize == null) {
+            maxPoolSize = Math.max(corePoolSize, DEFAULT_MAX_POOL_SIZE);
+        }
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        this.schedulerInstanceName = schedName;
+    }
+
+    /**
+     * 统计信息
+     *
+     * @return 线程池统计
+     */
+    public ThreadPoolStatisticsResp getStatistics() {
+        ThreadPoolStatisticsResp statistics = new ThreadPoolStatisticsResp();
+        statistics.setPoolClass(ElasticThreadPool.class.getName());
+        lock.lock();
+        try {
+            statistics.setCorePoolSize(corePoolSize);
+            statistics.setMaxPoolSize(maxPoolSize);
+            statistics.setPoolSize(workers.size());
+            statistics.setLargestPoolSize(largestPoolSize);
+            statistics.setBusyThreads(busyThreads);
+            statistics.setIdleThreads(idleWorkers.size());
+            statistics.setCompleted(completed);
+            statistics.setBlocked(blocked);
+            statistics.setWaitMs(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            statistics.setMaxWaitMs(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            statistics.setRejected(rejected);
+            statistics.setVirtualThreads(virtualThreads);
+            statistics.setVirtualSupported(virtualThreadFactory != null);
+            statistics.setVirtualRunning(virtualRunning);
+            statistics.setVirtualMaxConcurrency(virtualLimit());
+            statistics.setVirtualOverflow(virtualOverflow);
+        } finally {
+            lock.unlock();
+        }
+        List<TaskExecutorStatisticsResp> executorStatistics = new ArrayList<>(taskExecutors.size());
+        for (TaskExecutor executor : taskExecutors.values()) {
+            executorStatistics.add(executor.getStatistics());
+        }
+        statistics.setExecutors(executorStatistics);
+        return statistics;
+    }
+
+    /**
+     * 创建并启动线程(需持有锁)
+     *
+     * @param task 首个任务(为null时作为空闲线程)
+     * @return 是否创建成功
+     */
+    private boolean startWorker(Runnable task) {
+        Worker worker = new Worker(task);
+        Thread thread = newThread(worker, "-" + threadSequence.incrementAndGet());
+        worker.thread = thread;
+        workers.add(worker);
+        if (task == null) {
+            idleWorkers.addFirst(worker);
+        }
+        try {
+            thread.start();
+        } catch (Throwable e) {
+            log.error("[quartz], start worker thread failed, poolSize={}, caused by ==> {}", workers.size(), e.toString());
+            workers.remove(worker);
+            idleWorkers.remove(worker);
+            return false;
+        }
+        largestPoolSize = Math.max(largestPoolSize, workers.size());
+        return true;
+    }
+
+    private Thread newThread(Runnable runnable, String suffix) {
+        Thread thread = new Thread(runnable, threadNamePrefix + suffix);
+        thread.setPriority(threadPriority);
+        thread.setDaemon(makeThreadsDaemons);
+        if (inheritLoader) {
+            thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        }
+        return thread;
+    }
+
+    /**
+     * 工作线程
+     */
+    private final class Worker implements Runnable {
+
+        private final Condition signal = lock.newCondition();
+
+        private Thread thread;
+
+        /**
+         * 待执行任务(持有锁时读写)
+         */
+        private Runnable task;
+
+        private Worker(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            for (; ; ) {
+                Runnable runnable = take();
+                if (runnable == null) {
+                    return;
+                }
+                try {
+                    runnable.run();
+                } catch (Throwable e) {
+                    log.error("[quartz], error while executing the runnable in thread {}, caused by ==>", thread.getName(), e);
+                } finally {
+                    if (!release()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 等待任务, 空闲超时且线程数超过corePoolSize或线程池关闭时退出
+         *
+         * @return 任务(退出返回null)
+         */
+        private Runnable take() {
+            long keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(keepAliveMs, 1));
+            lock.lock();
+            try {
+                long nanos = keepAliveNanos;
+                while (task == null) {
+                    if (shutdown || (nanos <= 0 && workers.size() > corePoolSize)) {
+                        idleWorkers.removeLastOccurrence(this);
+                        workers.remove(this);
+                        available.signalAll();
+                        return null;
+                    }
+                    nanos = nanos <= 0 ? keepAliveNanos : awaitNanos(nanos);
+                }
+                Runnable runnable = task;
+                task = null;
+                return runnable;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long awaitNanos(long nanos) {
+            try {
+                return signal.awaitNanos(nanos);
+            } catch (InterruptedException e) {
+                // 与SimpleThreadPool相同, 忽略中断
+                return nanos;
+            }
+        }
+
+        /**
+         * 任务执行完成, 归还为空闲线程
+         *
+         * @return 是否继续(线程池关闭返回false)
+         */
+        private boolean release() {
+            lock.lock();
+            try {
+                busyThreads--;
+                completed++;
+                if (shutdown) {
+                    workers.remove(this);
+                    available.signalAll();
+                    return false;
+                }
+                idleWorkers.addFirst(this);
+                available.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ----------------------------- quartz.properties -----------------------------
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    /**
+     * 兼容SimpleThreadPool配置, 未配置corePoolSize时作为corePoolSize
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public void setKeepAliveMs(long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+    }
+
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(boolean inheritLoader) {
+        this.inheritLoader = inheritLoader;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void setVirtualMaxConcurrency(int virtualMaxConcurrency) {
+        this.virtualMaxConcurrency = virtualMaxConcurrency;
+    }
+
+    public void setExecutors(String executors) {
+        this.executors = executors;
+    }
+
+    public void setExecutorQueueCapacity(int executorQueueCapacity) {
+        this.executorQueueCapacity = executorQueueCapacity;
+    }
+}
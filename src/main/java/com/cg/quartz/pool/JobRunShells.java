@@ -0,0 +1,66 @@
+package com.cg.quartz.pool;
+
+import org.quartz.core.JobRunShell;
+import org.quartz.impl.JobExecutionContextImpl;
+
+import java.lang.reflect.Field;
+
+/**
+ * JobRunShell辅助
+ * <pre>
+ *     调度线程提交到线程池的任务为已初始化的JobRunShell, 其执行上下文(jec)为protected字段, 反射读取(用于按任务选择执行线程)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+final class JobRunShells {
+
+    /**
+     * JobRunShell执行上下文
+     */
+    private static final Field JOB_CONTEXT_FIELD = jobContextField();
+
+    private JobRunShells() {
+    }
+
+    /**
+     * 获取执行上下文
+     *
+     * @param runnable 调度线程提交的任务
+     * @return 执行上下文(非JobRunShell或读取失败返回null)
+     */
+    static JobExecutionContextImpl context(Runnable runnable) {
+        if (JOB_CONTEXT_FIELD == null || !(runnable instanceof JobRunShell)) {
+            return null;
+        }
+        try {
+            return (JobExecutionContextImpl) JOB_CONTEXT_FIELD.get(runnable);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取JobDataMap中的值
+     *
+     * @param runnable 调度线程提交的任务
+     * @param key      key
+     * @return 值(不存在返回null)
+     */
+    static Object jobData(Runnable runnable, String key) {
+        JobExecutionContextImpl context = context(runnable);
+        return context == null ? null : context.getJobDetail().getJobDataMap().get(key);
+    }
+
+    private static Field jobContextField() {
+        try {
+            Field field = JobRunShell.class.getDeclaredField("jec");
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.cg.quartz.pool;
+
+import com.cg.quartz.api.resp.TaskExecutorStatisticsResp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务独立执行器(舱壁)
+ * <pre>
+ *     固定线程数 + 有界队列, 指定该执行器的任务由调度线程提交后立即返回, 执行器已满(线程全忙且队列已满)时本次执行被跳过(veto)
+ *     统计执行中, 排队, 完成, 拒绝数及排队等待时间, 用于判断哪个执行器已饱和
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+final class TaskExecutor {
+
+    private final String name;
+
+    private final int queueCapacity;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    TaskExecutor(String name, int size, int queueCapacity, ThreadFactory threadFactory) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, queue, threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param runnable 任务
+     * @return 是否已提交(执行器已满或已关闭返回false)
+     */
+    boolean execute(Runnable runnable) {
+        long submitTime = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long waited = System.nanoTime() - submitTime;
+                waitNanos.addAndGet(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                runnable.run();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * 关闭(已提交任务继续执行)
+     *
+     * @param waitForJobsToComplete 是否等待已提交任务执行完成
+     */
+    void shutdown(boolean waitForJobsToComplete) {
+        executor.shutdown();
+        if (!waitForJobsToComplete) {
+            return;
+        }
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // 与调度线程池相同, 等待执行中任务完成
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    TaskExecutorStatisticsResp getStatistics() {
+        TaskExecutorStatisticsResp statistics = new TaskExecutorStatisticsResp();
+        statistics.setName(name);
+        statistics.setPoolSize(executor.getCorePoolSize());
+        statistics.setActiveThreads(executor.getActiveCount());
+        statistics.setQueued(executor.getQueue().size());
+        statistics.setQueueCapacity(queueCapacity);
+        statistics.setCompleted(executor.getCompletedTaskCount());
+        statistics.setRejected(rejected.sum());
+        statistics.setWaitMs(TimeUnit.NANOSECONDS.toMillis(waitNanos.get()));
+        statistics.setMaxWaitMs(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        return statistics;
+    }
+}
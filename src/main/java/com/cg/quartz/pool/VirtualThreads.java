@@ -0,0 +1,49 @@
+package com.cg.quartz.pool;
+
+import com.cg.quartz.factory.TaskInvokingJob;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持
+ * <pre>
+ *     项目以Java 8编译, 通过反射调用Thread.ofVirtual()创建虚拟线程工厂, 运行在不支持虚拟线程的JVM(Java 21以下)时返回null
+ *     按任务选择虚拟线程时, 从JobRunShell中的执行上下文读取JobDataMap中的虚拟线程标识(@Task#virtualThread)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/10
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param namePrefix 线程名前缀
+     * @return 虚拟线程工厂(JVM不支持返回null)
+     */
+    static ThreadFactory newFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否为指定使用虚拟线程的任务
+     *
+     * @param runnable 调度线程提交的任务(JobRunShell)
+     * @return 是否使用虚拟线程
+     */
+    static boolean isVirtualJob(Runnable runnable) {
+        return Boolean.TRUE.equals(JobRunShells.jobData(runnable, TaskInvokingJob.VIRTUAL_THREAD_KEY));
+    }
+}
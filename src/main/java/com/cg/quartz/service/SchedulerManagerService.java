@@ -1,8 +1,11 @@
 package com.cg.quartz.service;
 
+import com.cg.quartz.api.resp.WorkflowRunResp;
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
 import com.cg.quartz.entity.po.JobBO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Quartz管理服务(内部使用)
@@ -15,22 +18,27 @@ public interface SchedulerManagerService {
 
     /**
      * 注册(激活)所有Job
+     * <pre>
+     *     任务定义并行构建, 构建完成后一次性注册到调度器
+     * </pre>
+     *
+     * @return 各启动阶段耗时(毫秒, 按执行顺序: config, lookup, build, schedule, start; 未启用任务为空)
      */
-    void registerJobs();
+    Map<String, Long> registerJobs();
 
     /**
      * 获取Job信息
      *
      * @param jobName job name
      * @param jobGroup job group
-     * @return Job信息(默认返回null)
+     * @return Job信息(默认返回null, 取自任务信息快照, 不访问JobStore)
      */
     JobBO getJob(String jobName, String jobGroup);
 
     /**
      * 获取所有Job信息
 
-     * @return Job信息列表
+     * @return Job信息列表(快照副本)
      */
     List<JobBO> listJobs();
 
@@ -76,6 +84,25 @@ public interface SchedulerManagerService {
      */
     void resumeAll();
 
+    /**
+     * 中断执行中的任务
+     * <pre>
+     *     取消任务本次执行的上下文(TaskContext#cancel): 并行处理中未开始的数据不再处理, 任务方法可通过TaskContext#isCancelled提前结束
+     * </pre>
+     *
+     * @param jobName  job name
+     * @param jobGroup job group
+     * @return 中断的执行数
+     */
+    int interruptJob(String jobName, String jobGroup);
+
+    /**
+     * 中断所有执行中的任务(应用关闭时)
+     *
+     * @return 中断的执行数
+     */
+    int interruptAll();
+
     /**
      * 修改任务执行时间
      *
@@ -86,6 +113,46 @@ public interface SchedulerManagerService {
      */
     boolean modifyJob(String triggerName, String triggerGroup, String cronExpression);
 
+    /**
+     * 修改任务最大并发执行数及处理策略(立即生效)
+     * <pre>
+     *     仅允许并发执行或已限制最大并发执行数的任务可运行时修改; 不允许并发执行的任务需重启生效(持久化模式)
+     * </pre>
+     *
+     * @param jobName           job name
+     * @param jobGroup          job group
+     * @param maxConcurrency    最大并发执行数(为空不修改, 小于等于0不限制)
+     * @param concurrencyPolicy 处理策略(为空不修改)
+     * @return 修改结果(true : 修改成功 ; false : 任务不存在或不允许并发执行)
+     */
+    boolean modifyConcurrency(String jobName, String jobGroup, Integer maxConcurrency, ConcurrencyPolicy concurrencyPolicy);
+
+    /**
+     * 获取任务依赖(工作流)运行记录
+     *
+     * @return 运行记录(内存中保留的记录, 最近开始的在前)
+     */
+    List<WorkflowRunResp> listWorkflowRuns();
+
+    /**
+     * 获取任务依赖(工作流)运行记录
+     *
+     * @param runId 运行ID
+     * @return 运行记录(不存在或已淘汰返回null)
+     */
+    WorkflowRunResp getWorkflowRun(String runId);
+
+    /**
+     * 从失败任务恢复任务依赖(工作流)运行
+     * <pre>
+     *     失败的任务在原运行中重新触发, 被跳过的任务在上游成功后触发, 已成功的任务不再执行
+     * </pre>
+     *
+     * @param runId 运行ID(运行状态必须为FAILED)
+     * @return 重新触发的任务名
+     */
+    List<String> resumeWorkflowRun(String runId);
+
     /**
      * 删除某个任务
      *
@@ -1,8 +1,12 @@
 package com.cg.quartz.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.cg.quartz.api.req.TaskLogQueryReq;
 import com.cg.quartz.entity.po.TaskLogPO;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * 定时任务日志持久化接口
  *
@@ -11,4 +15,49 @@ import com.cg.quartz.entity.po.TaskLogPO;
  * @date 2020/12/23
  */
 public interface TaskLogStoreService extends IService<TaskLogPO> {
-}
\ No newline at end of file
+
+    /**
+     * 按(create_time, id)游标查询日志
+     * <pre>
+     *     查询游标之后(正序)或之前(倒序)的日志, 不使用offset, 翻页耗时与页码无关
+     *     按任务查询走idx_task_create_time, 按任务及事件查询走idx_task_event, 按执行ID查询走uk_fire_instance_sequence, 其他走idx_create_time
+     * </pre>
+     *
+     * @param query     查询条件
+     * @param afterTime 游标日志时间(为null从第一条开始)
+     * @param afterId   游标日志id
+     * @param maxId     最大日志id(为null不限制)
+     * @param limit     查询条数
+     * @return 日志列表(不含update_time, content_overflow未解压)
+     */
+    List<TaskLogPO> listByCursor(TaskLogQueryReq query, Date afterTime, Integer afterId, Integer maxId, int limit);
+
+    /**
+     * 按id正序查询游标之后写入的日志(持续拉取新日志)
+     * <pre>
+     *     id自增, 与写入顺序一致: 日志时间早于已拉取日志的迟到日志(异步批量写入, 溢出文件回放)同样可以拉取到
+     *     按主键范围扫描, 仅返回写入超过TASK_LOG_TAIL_SETTLE_SECONDS秒的日志, 避免并发写入时未提交的较小id被跳过
+     * </pre>
+     *
+     * @param query   查询条件(按id正序, 忽略ascending)
+     * @param afterId 游标日志id
+     * @param limit   查询条数
+     * @return 日志列表(不含update_time, content_overflow未解压)
+     */
+    List<TaskLogPO> listAfterId(TaskLogQueryReq query, int afterId, int limit);
+
+    /**
+     * 写入超过TASK_LOG_TAIL_SETTLE_SECONDS秒的最大日志id(主键倒序扫描)
+     *
+     * @return 最大日志id(无日志返回0)
+     */
+    int maxSettledId();
+
+    /**
+     * 批量写入日志, 忽略(fire_instance_id, sequence)重复的日志(溢出文件回放等可能重复写入的场景, 其他错误正常抛出)
+     *
+     * @param logs      日志
+     * @param batchSize 每批条数
+     */
+    void saveBatchIgnoreDuplicate(List<TaskLogPO> logs, int batchSize);
+}
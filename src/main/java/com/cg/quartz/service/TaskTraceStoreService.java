@@ -0,0 +1,24 @@
+package com.cg.quartz.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.cg.quartz.entity.po.TaskTracePO;
+
+/**
+ * 定时任务异常栈持久化接口
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/27
+ */
+public interface TaskTraceStoreService extends IService<TaskTracePO> {
+
+    /**
+     * 写入异常栈, 指纹已存在时累加出现次数
+     * <pre>
+     *     trace为null时仅累加出现次数(指纹须已存在)
+     * </pre>
+     *
+     * @param trace 异常栈(occurrences为新增次数)
+     */
+    void upsertOccurrences(TaskTracePO trace);
+}
@@ -6,6 +6,7 @@ import com.cg.quartz.constant.QuartzConstant;
 import com.cg.quartz.constant.em.TaskStatus;
 import com.cg.quartz.entity.po.JobBO;
 import com.cg.quartz.entity.po.TaskPO;
+import com.cg.quartz.log.TaskLogHandler;
 import com.cg.quartz.service.ConfigRefreshService;
 import com.cg.quartz.service.SchedulerManagerService;
 import com.cg.quartz.utils.Assert;
@@ -41,10 +42,15 @@ public class ConfigRefreshServiceImpl implements ConfigRefreshService {
     @Override
     public void handleRefresh(TaskPO storeTask) {
         try {
+            // 同步任务日志收集策略
+            TaskLogHandler.updateLogPolicy(storeTask.getTaskName(), storeTask.getLogLevel(), storeTask.getLogSampleRate());
+
             // 任务已加载, 关闭, 开启或更新表达式
             JobBO currentJob = schedulerService.getJob(storeTask.getTaskName(), QuartzConstant.DEFAULT_JOB_GROUP);
             if (ObjectUtils.notNull(currentJob)) {
-                boolean sameCron = currentJob.getCronExpression().equals(storeTask.getCronExpression().trim());
+                // 指定上游任务的任务没有cron触发器(由上游完成时触发), 不更新表达式
+                boolean sameCron = ObjectUtils.isNull(currentJob.getCronExpression())
+                        || currentJob.getCronExpression().equals(storeTask.getCronExpression().trim());
                 if (sameCron && currentJob.getStatus().getCode() == storeTask.getStatus()) {
                     return;
                 }
@@ -80,8 +86,9 @@ public class ConfigRefreshServiceImpl implements ConfigRefreshService {
         // 遍历内存任务, 剔除内存中存在, DB不存在的任务
         Map<String, TaskPO> storeTaskMap = storeTasks.stream().collect(Collectors.toMap(TaskPO::getTaskName, Function.identity()));
         schedulerService.listJobs().forEach(t -> {
-            // 自动刷新任务跳过任务跳过
-            if (ObjectUtils.isNull(storeTaskMap.get(t.getJobName())) && !QuartzConstant.CONFIG_AUTO_REFRESH_TASK.equals(t.getJobName())) {
+            // 自动刷新任务, 日志清理任务跳过
+            if (ObjectUtils.isNull(storeTaskMap.get(t.getJobName())) && !QuartzConstant.CONFIG_AUTO_REFRESH_TASK.equals(t.getJobName())
+                    && !QuartzConstant.TASK_LOG_RETENTION_TASK.equals(t.getJobName())) {
                 log.info("[quartz], delete dissociate task, jobName={}, jobGroup={}", t.getJobName(), t.getJobGroup());
                 schedulerService.deleteJob(t.getJobName(), t.getJobGroup());
             }
@@ -1,31 +1,37 @@
 package com.cg.quartz.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.cg.quartz.api.resp.WorkflowRunResp;
 import com.cg.quartz.annotaion.ConcurrentExecution;
 import com.cg.quartz.annotaion.CronExpression;
 import com.cg.quartz.annotaion.EnablePersist;
 import com.cg.quartz.annotaion.Task;
 import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
 import com.cg.quartz.constant.em.TaskStatus;
+import com.cg.quartz.context.TaskContext;
 import com.cg.quartz.entity.po.JobBO;
 import com.cg.quartz.entity.po.TaskPO;
 import com.cg.quartz.exception.QuartzException;
+import com.cg.quartz.factory.TaskInvoker;
+import com.cg.quartz.factory.TaskInvokingJob;
+import com.cg.quartz.listener.JobRegistryListener;
+import com.cg.quartz.listener.WorkflowJobListener;
+import com.cg.quartz.log.TaskLogHandler;
 import com.cg.quartz.service.SchedulerManagerService;
 import com.cg.quartz.service.TaskStoreService;
 import com.cg.quartz.utils.*;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
-import org.quartz.impl.JobDetailImpl;
-import org.quartz.impl.matchers.GroupMatcher;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.scheduling.quartz.CronTriggerFactoryBean;
-import org.springframework.scheduling.quartz.MethodInvokingJobDetailFactoryBean;
 import org.springframework.stereotype.Service;
 
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Quartz管理服务实现
@@ -41,15 +47,18 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
     @Autowired
     private Scheduler scheduler;
 
-    @Autowired
-    private DefaultListableBeanFactory beanFactory;
-
     @Autowired(required = false)
     private TaskStoreService taskStoreService;
 
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private JobRegistryListener jobRegistry;
+
+    @Autowired
+    private WorkflowJobListener workflowListener;
+
     /**
      * 任务Task缓存<taskName, TaskPO>
      */
@@ -75,66 +84,53 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
         cacheStoreTasks = notEmptyTasks ? new HashMap<>(storeTasks.size()) : new HashMap<>(0);
         for (TaskPO storeTask : storeTasks) {
             cacheStoreTasks.put(storeTask.getTaskName(), storeTask);
+            TaskLogHandler.updateLogPolicy(storeTask.getTaskName(), storeTask.getLogLevel(), storeTask.getLogSampleRate());
         }
 
-        // 持久化模式数据库未配置自动刷新配置任务则手动添加
-
-        if (persistence && ObjectUtils.isNull(cacheStoreTasks.get(QuartzConstant.CONFIG_AUTO_REFRESH_TASK))) {
-            cacheStoreTasks.put(QuartzConstant.CONFIG_AUTO_REFRESH_TASK,
-                    new TaskPO(QuartzConstant.CONFIG_AUTO_REFRESH_TASK, QuartzConstant.DEFAULT_CRON, QuartzConstant.EMPTY_STRING));
-            log.warn("[quartz], configRefreshTask not found from database, use default setting, taskName={}, cron={}",
-                    QuartzConstant.CONFIG_AUTO_REFRESH_TASK, QuartzConstant.DEFAULT_CRON);
+        // 持久化模式数据库未配置自动刷新配置任务, 日志清理任务则手动添加
+        if (persistence) {
+            addDefaultStoreTask(QuartzConstant.CONFIG_AUTO_REFRESH_TASK, QuartzConstant.DEFAULT_CRON);
+            addDefaultStoreTask(QuartzConstant.TASK_LOG_RETENTION_TASK, QuartzConstant.TASK_LOG_RETENTION_CRON);
         }
         if (persistence && !notEmptyTasks) {
             log.warn("[quartz], the task config from database is empty!");
         }
     }
 
+    /**
+     * 数据库未配置内置任务时使用默认配置
+     *
+     * @param taskName 任务名
+     * @param cron     默认表达式
+     */
+    private void addDefaultStoreTask(String taskName, String cron) {
+        if (ObjectUtils.isNull(cacheStoreTasks.get(taskName))) {
+            cacheStoreTasks.put(taskName, new TaskPO(taskName, cron, QuartzConstant.EMPTY_STRING));
+            log.warn("[quartz], {} not found from database, use default setting, cron={}", taskName, cron);
+        }
+    }
+
     @Override
-    public void registerJobs() {
+    public Map<String, Long> registerJobs() {
         // runTask标签(命令行参数优先级更高)未配置或为false不加载任务
         String canRunTask = Optional.ofNullable(System.getProperty(QuartzConstant.RUN_TASK_COMMAND_LINE_FLAG))
                 .orElseGet(() -> environment.getProperty(QuartzConstant.RUN_TASK_CONFIG_FLAG));
+        Map<String, Long> phases = new LinkedHashMap<>(8);
         if (Boolean.valueOf(canRunTask)) {
-            runTask();
+            runTask(phases);
         }
+        return phases;
     }
 
     @Override
     public JobBO getJob(String jobName, String jobGroup) {
-        try {
-            Assert.isTrue(ObjectUtils.notNull(jobName) && ObjectUtils.notNull(jobGroup), "job name or job group is null");
-            JobKey jobKey = new JobKey(jobName, jobGroup);
-            if (ObjectUtils.notNull(scheduler.getJobDetail(jobKey))) {
-                List<? extends Trigger> triggers = scheduler.getTriggersOfJob(jobKey);
-                return getJobInformation(jobKey, triggers.get(QuartzConstant.ZERO));
-            }
-            return null;
-        } catch (SchedulerException e) {
-            log.error("[quartz], get job catch a exception, caused by ==>", e.getMessage());
-            throw new QuartzException(e);
-        }
+        Assert.isTrue(ObjectUtils.notNull(jobName) && ObjectUtils.notNull(jobGroup), "job name or job group is null");
+        return jobRegistry.get(new JobKey(jobName, jobGroup));
     }
 
     @Override
     public List<JobBO> listJobs() {
-        try {
-            Set<JobKey> jobKeys = scheduler.getJobKeys(GroupMatcher.anyJobGroup());
-            List<JobBO> jobBos = new ArrayList<>(jobKeys.size());
-            for (JobKey jobKey : jobKeys) {
-                List<? extends Trigger> triggers = scheduler.getTriggersOfJob(jobKey);
-                for (Trigger trigger : triggers) {
-                    if (!(trigger instanceof CronTrigger)) {
-                        continue;
-                    }
-                    jobBos.add(getJobInformation(jobKey, trigger));
-                }
-            }
-            return jobBos;
-        } catch (SchedulerException e) {
-            log.error("[quartz], list job messages catch a exception, caused by ==>", e.getMessage());
-            throw new QuartzException(e);
-        }
+        return jobRegistry.list();
     }
 
     @Override
@@ -174,7 +170,7 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
             TaskPO tempTaskPo = TaskPO.builder().taskName(jobName).build();
             TaskPO taskPo = persistence ? Optional.ofNullable(taskStoreService.getOne(new QueryWrapper<>(tempTaskPo)))
                     .orElseThrow(() -> new QuartzException("get task from DB is null, task :" + jobName)) : tempTaskPo;
-            Optional.ofNullable(buildJobDetailFactoryBean(taskPo, task)).ifPresent(ExceptionUtils.handleCheckedException(this::activeTask));
+            Optional.ofNullable(buildTaskJobDetail(taskPo, task)).ifPresent(ExceptionUtils.handleCheckedException(this::activeTask));
         } catch (Exception e) {
             log.error("[quartz], add job catch a exception, caused by ==>{}", e.getMessage());
             throw new QuartzException(e);
@@ -217,6 +213,40 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
         ExceptionUtils.handleCheckedException(e -> scheduler.resumeAll()).accept(null);
     }
 
+    @Override
+    public int interruptJob(String jobName, String jobGroup) {
+        return interrupt(JobKey.jobKey(jobName, jobGroup));
+    }
+
+    @Override
+    public int interruptAll() {
+        return interrupt(null);
+    }
+
+    /**
+     * 取消执行中任务的上下文
+     *
+     * @param jobKey jobKey(为null取消所有任务)
+     * @return 取消的执行数
+     */
+    private int interrupt(JobKey jobKey) {
+        int interrupted = 0;
+        try {
+            for (JobExecutionContext context : scheduler.getCurrentlyExecutingJobs()) {
+                Object taskContext = context.get(TaskContext.CONTEXT_KEY);
+                if ((ObjectUtils.isNull(jobKey) || jobKey.equals(context.getJobDetail().getKey())) && taskContext instanceof TaskContext) {
+                    ((TaskContext) taskContext).cancel();
+                    interrupted++;
+                }
+            }
+        } catch (SchedulerException e) {
+            log.error("[quartz], interrupt job catch a exception, caused by ==>", e);
+            throw new QuartzException(e);
+        }
+        log.info("[quartz], interrupt executing jobs, job={}, interrupted={}", ObjectUtils.isNull(jobKey) ? "all" : jobKey, interrupted);
+        return interrupted;
+    }
+
     @Override
     public boolean modifyJob(String triggerName, String triggerGroup, String cronExpression) {
         try {
@@ -242,6 +272,58 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
         }
     }
 
+    @Override
+    public boolean modifyConcurrency(String jobName, String jobGroup, Integer maxConcurrency, ConcurrencyPolicy concurrencyPolicy) {
+        try {
+            JobDetail jobDetail = scheduler.getJobDetail(JobKey.jobKey(jobName, jobGroup));
+            if (ObjectUtils.isNull(jobDetail)) {
+                log.info("[quartz], jobName={} not exists in scheduler", jobName);
+                return false;
+            }
+            // 不允许并发执行的Job由JobStore阻塞触发器, 运行时切换Job类型会使阻塞的触发器无法恢复
+            if (jobDetail.isConcurrentExectionDisallowed()) {
+                log.info("[quartz], job {} does not allow concurrent execution, max concurrency takes effect after restart", jobName);
+                return false;
+            }
+            JobDataMap jobDataMap = (JobDataMap) jobDetail.getJobDataMap().clone();
+            if (ObjectUtils.notNull(maxConcurrency)) {
+                if (maxConcurrency > 0) {
+                    jobDataMap.put(TaskInvokingJob.MAX_CONCURRENCY_KEY, maxConcurrency.intValue());
+                } else {
+                    jobDataMap.remove(TaskInvokingJob.MAX_CONCURRENCY_KEY);
+                }
+            }
+            if (ObjectUtils.notNull(concurrencyPolicy)) {
+                jobDataMap.put(TaskInvokingJob.CONCURRENCY_POLICY_KEY, concurrencyPolicy.name());
+            }
+            // 替换JobDetail(触发器不变), 由JobRegistryListener重新加载并发限制
+            scheduler.addJob(jobDetail.getJobBuilder().setJobData(jobDataMap).build(), true, true);
+            log.info("[quartz], modify job concurrency success, jobName={}, maxConcurrency={}, policy={}", jobName,
+                    jobDataMap.get(TaskInvokingJob.MAX_CONCURRENCY_KEY), jobDataMap.get(TaskInvokingJob.CONCURRENCY_POLICY_KEY));
+            return true;
+        } catch (SchedulerException e) {
+            log.error("[quartz], modify job concurrency catch a exception, caused by ==>", e);
+            throw new QuartzException(e);
+        }
+    }
+
+    @Override
+    public List<WorkflowRunResp> listWorkflowRuns() {
+        return workflowListener.listRuns();
+    }
+
+    @Override
+    public WorkflowRunResp getWorkflowRun(String runId) {
+        Assert.notBlank(runId, "workflow run id is null");
+        return workflowListener.getRun(runId);
+    }
+
+    @Override
+    public List<String> resumeWorkflowRun(String runId) {
+        Assert.notBlank(runId, "workflow run id is null");
+        return workflowListener.resume(runId);
+    }
+
     @Override
     public boolean deleteJob(String jobName, String jobGroup) {
         try {
@@ -270,12 +352,39 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
         return persistence;
     }
 
-    private void runTask() {
+    /**
+     * 加载所有任务并启动调度器
+     * <pre>
+     *     config: 初始化任务配置(持久化模式查询数据库)
+     *     lookup: 从容器获取@Task及Job任务
+     *     build: 并行构建JobDetail及CronTrigger(初始化FactoryBean, 解析cron表达式)
+     *     schedule: 一次性注册到调度器(scheduleJobs)
+     *     start: 启动调度器
+     * </pre>
+     *
+     * @param phases 各阶段耗时
+     */
+    private void runTask(Map<String, Long> phases) {
         try {
+            long phaseStart = System.nanoTime();
             initStoreConfig();
-            loadTasks();
-            loadJobs();
+            phaseStart = recordPhase(phases, "config", phaseStart);
+
+            Map<String, Object> taskContainer = SpringContextUtils.getBeansWithAnnotation(Task.class);
+            Map<String, Job> jobContainer = SpringContextUtils.getBeansOfType(Job.class);
+            phaseStart = recordPhase(phases, "lookup", phaseStart);
+
+            Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<>(taskContainer.size() + jobContainer.size());
+            loadTasks(taskContainer, triggersAndJobs);
+            loadJobs(jobContainer, triggersAndJobs);
+            phaseStart = recordPhase(phases, "build", phaseStart);
+
+            // 启动时调度器为空, 不替换已存在任务(任务重名时报错)
+            scheduler.scheduleJobs(triggersAndJobs, false);
+            phaseStart = recordPhase(phases, "schedule", phaseStart);
+
             scheduler.start();
+            recordPhase(phases, "start", phaseStart);
             // gc
             cacheStoreTasks = null;
         } catch (Exception e) {
@@ -284,20 +393,64 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
         }
     }
 
+    /**
+     * 记录阶段耗时
+     *
+     * @return 下一阶段开始时间
+     */
+    private long recordPhase(Map<String, Long> phases, String phase, long phaseStart) {
+        long now = System.nanoTime();
+        phases.put(phase, TimeUnit.NANOSECONDS.toMillis(now - phaseStart));
+        return now;
+    }
+
     /**
      * 装载@Task注解任务
      * <pre>
      *     持久化模式从数据库加载Task配置; 内存模式加载所有持有Task注解任务(带有Task注解同时实现job接口,Job接口优先)
+     *     各任务JobDetail及CronTrigger并行构建
      * </pre>
+     *
+     * @param taskContainer   容器中@Task任务
+     * @param triggersAndJobs 待注册任务
      */
-    private void loadTasks() throws Exception {
-        List<MethodInvokingJobDetailFactoryBean> jobDetailsBeans = buildJobDetailFactoryBeans();
-        for (MethodInvokingJobDetailFactoryBean jobDetailBean : jobDetailsBeans) {
-            if (ObjectUtils.isNull(jobDetailBean) || ObjectUtils.isNull(jobDetailBean.getObject())) {
-                log.info("[quartz], jobDetailBean or jobDetail is null");
-                continue;
+    private void loadTasks(Map<String, Object> taskContainer, Map<JobDetail, Set<? extends Trigger>> triggersAndJobs) {
+        List<TaskPO> tasks = new ArrayList<>(persistence ? cacheStoreTasks.size() : taskContainer.size());
+        // DB model
+        if (persistence) {
+            for (TaskPO task : cacheStoreTasks.values()) {
+                // 数据库中的Task必须已被Spring加载
+                if (ObjectUtils.notNull(taskContainer.get(task.getTaskName()))) {
+                    tasks.add(task);
+                }
+            }
+        } else {
+            // RAM model
+            for (String taskName : taskContainer.keySet()) {
+                // RAM模式下跳过自动刷新配置, 日志清理任务
+                if (QuartzConstant.CONFIG_AUTO_REFRESH_TASK.equals(taskName) || QuartzConstant.TASK_LOG_RETENTION_TASK.equals(taskName)) {
+                    continue;
+                }
+                tasks.add(TaskPO.builder().taskName(taskName).build());
+            }
+        }
+
+        List<Map.Entry<JobDetail, Trigger>> built = tasks.parallelStream().map(task -> {
+            try {
+                JobDetail jobDetail = buildTaskJobDetail(task, taskContainer.get(task.getTaskName()));
+                if (ObjectUtils.isNull(jobDetail)) {
+                    log.info("[quartz], jobDetail is null");
+                    return null;
+                }
+                return new AbstractMap.SimpleImmutableEntry<JobDetail, Trigger>(jobDetail, buildTaskTrigger(jobDetail));
+            } catch (Exception e) {
+                throw new QuartzException(e);
+            }
+        }).collect(Collectors.toList());
+        for (Map.Entry<JobDetail, Trigger> entry : built) {
+            if (ObjectUtils.notNull(entry)) {
+                triggersAndJobs.put(entry.getKey(), triggersOf(entry.getValue()));
             }
-            activeTask(jobDetailBean);
         }
     }
 
@@ -307,71 +460,41 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
      * <pre>
      *     持久化模式从数据库加载Job配置; 内存模式加载所有实现Job接口任务
      * </pre>
+     *
+     * @param jobContainer    容器中Job任务
+     * @param triggersAndJobs 待注册任务
      */
-    private void loadJobs() throws SchedulerException {
-        Map<String, Job> jobContainer = SpringContextUtils.getBeansOfType(Job.class);
-        if (persistence) {
-            TaskPO task;
-            for (Map.Entry<String, TaskPO> taskEntry : cacheStoreTasks.entrySet()) {
-                task = taskEntry.getValue();
-                // 数据库中的Job必须已被Spring加载
-                if (ObjectUtils.isNull(jobContainer.get(task.getTaskName()))) {
-                    continue;
-                }
-                activeJob(task.getTaskName(), jobContainer.get(task.getTaskName()).getClass());
-            }
-            return;
-        }
-
-        for (Map.Entry<String, Job> jobEntry : jobContainer.entrySet()) {
-            activeJob(jobEntry.getKey(), jobEntry.getValue().getClass());
+    private void loadJobs(Map<String, Job> jobContainer, Map<JobDetail, Set<? extends Trigger>> triggersAndJobs) {
+        // 数据库中的Job必须已被Spring加载
+        List<String> jobNames = persistence ? cacheStoreTasks.keySet().stream().filter(jobContainer::containsKey).collect(Collectors.toList())
+                : new ArrayList<>(jobContainer.keySet());
+        List<Map.Entry<JobDetail, Trigger>> built = jobNames.parallelStream()
+                .map(jobName -> buildJob(jobName, jobContainer.get(jobName).getClass()))
+                .collect(Collectors.toList());
+        for (Map.Entry<JobDetail, Trigger> entry : built) {
+            triggersAndJobs.put(entry.getKey(), triggersOf(entry.getValue()));
         }
     }
 
     /**
-     * 构建所有@Task bean
+     * 任务注册的触发器(指定上游任务的任务没有触发器, 由上游完成时触发)
      *
-     * @return MethodInvokingJobDetailFactoryBean List
+     * @param trigger cron触发器
+     * @return 触发器集合
      */
-    private List<MethodInvokingJobDetailFactoryBean> buildJobDetailFactoryBeans() throws Exception {
-        Map<String, Object> taskContainer = SpringContextUtils.getBeansWithAnnotation(Task.class);
-        List<MethodInvokingJobDetailFactoryBean> beansList = new ArrayList<>(persistence ? cacheStoreTasks.size() : taskContainer.size());
-        // DB model
-        if (persistence) {
-            TaskPO task;
-            for (Map.Entry<String, TaskPO> taskEntry : cacheStoreTasks.entrySet()) {
-                task = taskEntry.getValue();
-                // 数据库中的Task必须已被Spring加载
-                if (ObjectUtils.isNull(taskContainer.get(task.getTaskName()))) {
-                    continue;
-                }
-                beansList.add(buildJobDetailFactoryBean(task, taskContainer.get(task.getTaskName())));
-            }
-            return beansList;
-        }
-
-        // RAM model
-        TaskPO taskPo = new TaskPO();
-        for (Map.Entry<String, Object> taskEntry : taskContainer.entrySet()) {
-            // RAM模式下跳过自动刷新配置
-            if (QuartzConstant.CONFIG_AUTO_REFRESH_TASK.equals(taskEntry.getKey())) {
-                continue;
-            }
-            taskPo.setTaskName(taskEntry.getKey());
-            beansList.add(buildJobDetailFactoryBean(taskPo, taskContainer.get(taskEntry.getKey())));
-        }
-        return beansList;
+    private Set<? extends Trigger> triggersOf(Trigger trigger) {
+        return ObjectUtils.isNull(trigger) ? Collections.emptySet() : Collections.singleton(trigger);
     }
 
     /**
-     * 构建任务FactoryBean
+     * 构建任务JobDetail
      *
      * @param taskPo     任务PO(用于存储执行方法, 是否并发执行)
-     * @param memoryTask 内存task(spring容器中Task, 用于非持久化模式下获取@Task相关信息)
-     * @return JobDetailFactoryBean
+     * @param memoryTask 内存task(spring容器中Task, 用于非持久化模式下获取@Task相关信息, 同时是任务方法调用目标)
+     * @return JobDetail(同时实现Job接口返回null)
      * @throws Exception exception
      */
-    private MethodInvokingJobDetailFactoryBean buildJobDetailFactoryBean(TaskPO taskPo, Object memoryTask) throws Exception {
+    private JobDetail buildTaskJobDetail(TaskPO taskPo, Object memoryTask) throws Exception {
         if (memoryTask instanceof Job) {
             log.warn("[quartz], this class with @Task annotation and implement Job interface! use Job interface, taskName={}", taskPo.getTaskName());
             return null;
@@ -391,40 +514,80 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
 
         taskDescription = persistence ? taskPo.getDescription() : taskDescription;
         allowConcurrent = persistence ? TaskStatus.ENABLE.getCode() == taskPo.getAllowConcurrent() : allowConcurrent;
-        MethodInvokingJobDetailFactoryBean jobDetailFactoryBean = QuartzTaskUtils.buildJobDetailFactoryBean(taskPo.getTaskName(), targetMethod, allowConcurrent);
-        jobDetailFactoryBean.setBeanFactory(beanFactory);
-
-        // @Task任务类需运行的JobDetail未初始化, 手动调用初始化(必须手动调用且需设置beanFactory)
-        jobDetailFactoryBean.afterPropertiesSet();
-
-        // 设置任务描述信息(JobDetail默认实现是JobDetailImpl)
-        if (jobDetailFactoryBean.getObject() instanceof JobDetailImpl) {
-            ((JobDetailImpl) jobDetailFactoryBean.getObject()).setDescription(taskDescription);
+        // 是否使用虚拟线程由@Task注解指定(持久化模式同样生效); 独立执行器, 最大并发执行数持久化模式优先使用数据库配置
+        Task taskAnnotation = memoryTask.getClass().getAnnotation(Task.class);
+        String executor = persistence && ObjectUtils.notBlank(taskPo.getExecutor()) ? taskPo.getExecutor() : taskAnnotation.executor();
+        boolean storedConcurrency = persistence && ObjectUtils.notNull(taskPo.getMaxConcurrency());
+        int maxConcurrency = storedConcurrency ? taskPo.getMaxConcurrency() : taskAnnotation.maxConcurrency();
+        ConcurrencyPolicy concurrencyPolicy = storedConcurrency ? ConcurrencyPolicy.getPolicy(taskPo.getConcurrencyPolicy()) : taskAnnotation.concurrencyPolicy();
+        int shards = persistence && ObjectUtils.notNull(taskPo.getShards()) ? taskPo.getShards() : taskAnnotation.shards();
+        String dependsOn = persistence && ObjectUtils.notBlank(taskPo.getDependsOn()) ? taskPo.getDependsOn() : String.join(",", taskAnnotation.dependsOn());
+        Map<String, Object> jobData = new HashMap<>(8);
+        jobData.put(TaskInvokingJob.VIRTUAL_THREAD_KEY, taskAnnotation.virtualThread());
+        if (shards > 1) {
+            jobData.put(TaskInvokingJob.SHARDS_KEY, shards);
+        }
+        if (ObjectUtils.notBlank(executor)) {
+            jobData.put(TaskInvokingJob.EXECUTOR_KEY, executor);
         }
-        return jobDetailFactoryBean;
+        if (ObjectUtils.notBlank(dependsOn)) {
+            jobData.put(TaskInvokingJob.DEPENDS_ON_KEY, dependsOn);
+        }
+        if (maxConcurrency > 0) {
+            // 并发数由JobRegistryListener限制, Job本身允许并发
+            allowConcurrent = true;
+            jobData.put(TaskInvokingJob.MAX_CONCURRENCY_KEY, maxConcurrency);
+            jobData.put(TaskInvokingJob.CONCURRENCY_POLICY_KEY, concurrencyPolicy.name());
+        }
+
+        // 注册时绑定任务方法, 执行时直接调用
+        return QuartzTaskUtils.buildTaskJobDetail(taskPo.getTaskName(), memoryTask, targetMethod, allowConcurrent, taskDescription, jobData);
     }
 
     /**
      * 激活Task
      *
-     * @param jobDetailBean jobDetailBean
+     * @param jobDetail jobDetail
      * @throws ParseException     ParseException
      * @throws SchedulerException SchedulerException
      */
-    private void activeTask(MethodInvokingJobDetailFactoryBean jobDetailBean) throws ParseException, SchedulerException {
-        JobDetail jobDetail = jobDetailBean.getObject();
+    private void activeTask(JobDetail jobDetail) throws ParseException, SchedulerException {
+        CronTrigger trigger = buildTaskTrigger(jobDetail);
+        if (ObjectUtils.isNull(trigger)) {
+            scheduler.addJob(jobDetail, false);
+            return;
+        }
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+
+    /**
+     * 构建Task触发器
+     *
+     * @param jobDetail jobDetail
+     * @return cron触发器(指定上游任务的任务由上游完成时触发, 返回null)
+     * @throws ParseException ParseException
+     */
+    private CronTrigger buildTaskTrigger(JobDetail jobDetail) throws ParseException {
         String taskName = jobDetail.getKey().getName();
+        TaskInvoker invoker = (TaskInvoker) jobDetail.getJobDataMap().get(TaskInvokingJob.INVOKER_KEY);
+        String dependsOn = jobDetail.getJobDataMap().getString(TaskInvokingJob.DEPENDS_ON_KEY);
+        if (ObjectUtils.notBlank(dependsOn)) {
+            String logFormat = persistence ? "[quartz] load task(DB) success, name={}, dependsOn={}, targetMethod={}, desc={}"
+                    : "[quartz] load task(RAM) success, name={}, dependsOn={}, targetMethod={}, desc={}";
+            log.info(logFormat, taskName, dependsOn, invoker.getTargetMethod(), jobDetail.getDescription());
+            return null;
+        }
         String cron = getCron(taskName, SpringContextUtils.getBean(taskName));
         String logFormat = persistence ? "[quartz] load task(DB) success, name={}, cron={}, targetMethod={}, desc={}"
                 : "[quartz] load task(RAM) success, name={}, cron={}, targetMethod={}, desc={}";
-        log.info(logFormat, taskName, cron, jobDetailBean.getTargetMethod(), jobDetail.getDescription());
+        log.info(logFormat, taskName, cron, invoker.getTargetMethod(), jobDetail.getDescription());
         CronTriggerFactoryBean cronTriggerFactoryBean = new CronTriggerFactoryBean();
         cronTriggerFactoryBean.setName(taskName);
         cronTriggerFactoryBean.setGroup(QuartzConstant.DEFAULT_CRON_TRIGGER_GROUP);
         cronTriggerFactoryBean.setCronExpression(cron);
         cronTriggerFactoryBean.setJobDetail(jobDetail);
         cronTriggerFactoryBean.afterPropertiesSet();
-        scheduler.scheduleJob(jobDetail, cronTriggerFactoryBean.getObject());
+        return cronTriggerFactoryBean.getObject();
     }
 
     /**
@@ -435,20 +598,52 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
      * @throws SchedulerException schedulerException
      */
     private void activeJob(String jobName, Class<? extends Job> jobClass) throws SchedulerException {
+        Map.Entry<JobDetail, Trigger> job = buildJob(jobName, jobClass);
+        if (ObjectUtils.isNull(job.getValue())) {
+            scheduler.addJob(job.getKey(), false);
+            return;
+        }
+        scheduler.scheduleJob(job.getKey(), job.getValue());
+    }
+
+    /**
+     * 构建Job及触发器
+     *
+     * @param jobName  jobName/ job key name/ trigger key name
+     * @param jobClass job class
+     * @return JobDetail, cron触发器(指定上游任务时为null)
+     */
+    private Map.Entry<JobDetail, Trigger> buildJob(String jobName, Class<? extends Job> jobClass) {
         JobBO jobBo = getJobBuildInformation(jobName, jobClass);
 
-        //  StatefulMethodInvokingJob不并发作业, 默认Job是并发
-        Class<? extends Job> jobClazz = jobBo.getAllowConcurrent() ? jobClass : MethodInvokingJobDetailFactoryBean.StatefulMethodInvokingJob.class;
-        JobDetail jobDetail = JobBuilder.newJob()
+        //  StatefulTaskInvokingJob不并发作业(仅用于标识, 执行时由JobFactory返回容器中的Job实例), 默认Job是并发; 限制最大并发执行数时Job允许并发
+        boolean bounded = ObjectUtils.notNull(jobBo.getMaxConcurrency()) && jobBo.getMaxConcurrency() > 0;
+        Class<? extends Job> jobClazz = jobBo.getAllowConcurrent() || bounded ? jobClass : TaskInvokingJob.StatefulTaskInvokingJob.class;
+        JobBuilder jobBuilder = JobBuilder.newJob()
                 .withIdentity(jobName, QuartzConstant.DEFAULT_JOB_GROUP)
-                .withDescription(jobBo.getDescription()).ofType(jobClazz).build();
+                .withDescription(jobBo.getDescription()).ofType(jobClazz);
+        if (ObjectUtils.notBlank(jobBo.getExecutor())) {
+            jobBuilder.usingJobData(TaskInvokingJob.EXECUTOR_KEY, jobBo.getExecutor());
+        }
+        if (bounded) {
+            jobBuilder.usingJobData(TaskInvokingJob.MAX_CONCURRENCY_KEY, jobBo.getMaxConcurrency())
+                    .usingJobData(TaskInvokingJob.CONCURRENCY_POLICY_KEY, jobBo.getConcurrencyPolicy().name());
+        }
+        if (ObjectUtils.notBlank(jobBo.getDependsOn())) {
+            // 由上游完成时触发, 没有触发器的Job需持久保存
+            JobDetail jobDetail = jobBuilder.usingJobData(TaskInvokingJob.DEPENDS_ON_KEY, jobBo.getDependsOn()).storeDurably().build();
+            log.info("[quartz] load job(DB) success, name={}, dependsOn={}, allowConcurrent={}, maxConcurrency={}, desc={}", jobName,
+                    jobBo.getDependsOn(), jobBo.getAllowConcurrent(), jobBo.getMaxConcurrency(), jobBo.getDescription());
+            return new AbstractMap.SimpleImmutableEntry<>(jobDetail, null);
+        }
+        JobDetail jobDetail = jobBuilder.build();
         CronTrigger cronTrigger = TriggerBuilder.newTrigger()
                 .withIdentity(jobName, QuartzConstant.DEFAULT_CRON_TRIGGER_GROUP)
                 .withSchedule(CronScheduleBuilder.cronSchedule(jobBo.getCronExpression())).build();
-        String logFormat = persistence ? "[quartz] load job(DB) success, name={}, cron={}, allowConcurrent={}, desc={}"
-                : "[quartz] load job(RAM) success, name={}, cron={}, allowConcurrent={}, desc={}";
-        log.info(logFormat, jobName, jobBo.getCronExpression(), jobBo.getAllowConcurrent(), jobBo.getDescription());
-        scheduler.scheduleJob(jobDetail, cronTrigger);
+        String logFormat = persistence ? "[quartz] load job(DB) success, name={}, cron={}, allowConcurrent={}, maxConcurrency={}, desc={}"
+                : "[quartz] load job(RAM) success, name={}, cron={}, allowConcurrent={}, maxConcurrency={}, desc={}";
+        log.info(logFormat, jobName, jobBo.getCronExpression(), jobBo.getAllowConcurrent(), jobBo.getMaxConcurrency(), jobBo.getDescription());
+        return new AbstractMap.SimpleImmutableEntry<>(jobDetail, cronTrigger);
     }
 
     /**
@@ -463,51 +658,32 @@ public class SchedulerManagerServiceImpl implements SchedulerManagerService {
             // 初始化加载Job从缓存Task构建, 后续添加Job实时查询
             TaskPO taskPo = ObjectUtils.notEmpty(cacheStoreTasks) ?
                     cacheStoreTasks.get(jobName) : taskStoreService.getOne(new QueryWrapper<>(TaskPO.builder().taskName(jobName).build()));
-            Assert.isTrue(ObjectUtils.notNull(taskPo) && ObjectUtils.notBlank(taskPo.getCronExpression()),
+            // 指定上游任务的Job由上游完成时触发, 不使用cron表达式
+            Assert.isTrue(ObjectUtils.notNull(taskPo) && (ObjectUtils.notBlank(taskPo.getCronExpression()) || ObjectUtils.notBlank(taskPo.getDependsOn())),
                     "terminate load task, can't get cron expression(persistence), beanName=" + jobName);
             return JobBO.builder()
                     .jobName(jobName).cronExpression(taskPo.getCronExpression())
                     .allowConcurrent(TaskStatus.ENABLE.getCode() == taskPo.getAllowConcurrent())
                     .description(taskPo.getDescription())
+                    .executor(taskPo.getExecutor())
+                    .maxConcurrency(taskPo.getMaxConcurrency())
+                    .concurrencyPolicy(ConcurrencyPolicy.getPolicy(taskPo.getConcurrencyPolicy()))
+                    .dependsOn(taskPo.getDependsOn())
                     .build();
         }
         String cron = jobClass.isAnnotationPresent(CronExpression.class) ? jobClass.getAnnotation(CronExpression.class).value() : null;
         Assert.notBlank(cron, "terminate load task, can't get cron expression(RAM), beanName=" + jobName);
-        boolean allowConcurrentExecution = jobClass.isAnnotationPresent(ConcurrentExecution.class) && jobClass.getAnnotation(ConcurrentExecution.class).value();
+        ConcurrentExecution concurrentExecution = jobClass.getAnnotation(ConcurrentExecution.class);
+        boolean allowConcurrentExecution = ObjectUtils.notNull(concurrentExecution) && concurrentExecution.value();
         return JobBO.builder()
                 .jobName(jobName).cronExpression(cron)
                 .allowConcurrent(allowConcurrentExecution)
+                .maxConcurrency(ObjectUtils.notNull(concurrentExecution) ? concurrentExecution.maxConcurrency() : null)
+                .concurrencyPolicy(ObjectUtils.notNull(concurrentExecution) ? concurrentExecution.policy() : ConcurrencyPolicy.SKIP)
                 .description(QuartzConstant.EMPTY_STRING)
                 .build();
     }
 
-    /**
-     * 获取当前Job信息
-     * <p>获取指定JobKey和Trigger包含job信息</p>
-     *
-     * @param jobKey  任务名
-     * @param trigger 触发器
-     * @return Job信息
-     * @throws SchedulerException schedulerException
-     */
-    private JobBO getJobInformation(JobKey jobKey, Trigger trigger) throws SchedulerException {
-        TriggerKey triggerKey = trigger.getKey();
-        boolean enable = Trigger.TriggerState.NORMAL == scheduler.getTriggerState(triggerKey) ||
-                Trigger.TriggerState.BLOCKED == scheduler.getTriggerState(triggerKey);
-        JobDetail jobDetail = scheduler.getJobDetail(jobKey);
-
-        // 是StatefulMethodInvokingJob同类或父接口表示不允许并发执行
-        boolean disallowConcurrent = MethodInvokingJobDetailFactoryBean.StatefulMethodInvokingJob.class.isAssignableFrom(jobDetail.getJobClass());
-        return JobBO.builder()
-                .jobName(jobKey.getName()).jobGroup(jobKey.getGroup())
-                .trigger(triggerKey.getName()).triggerGroup(triggerKey.getGroup())
-                .cronExpression(((CronTrigger) trigger).getCronExpression())
-                .triggerState(scheduler.getTriggerState(triggerKey)).status(enable ? TaskStatus.ENABLE : TaskStatus.DISABLE)
-                .description(jobDetail.getDescription())
-                .allowConcurrent(!disallowConcurrent)
-                .build();
-    }
-
     /**
      * 配置cron表达式  持久化模式: 数据库CronExpression; RAM模式: @CronExpression > @Task.cron()
      *
@@ -1,13 +1,20 @@
 package com.cg.quartz.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cg.quartz.api.req.TaskLogQueryReq;
 import com.cg.quartz.conf.TaskStoreConditional;
+import com.cg.quartz.constant.QuartzConstant;
 import com.cg.quartz.dao.TaskLogDao;
 import com.cg.quartz.entity.po.TaskLogPO;
 import com.cg.quartz.service.TaskLogStoreService;
+import com.cg.quartz.utils.ObjectUtils;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * 定时任务日志持久化服务实现
  *
@@ -18,4 +25,58 @@ import org.springframework.stereotype.Service;
 @Service
 @Conditional(TaskStoreConditional.class)
 public class TaskLogStoreServiceImpl extends ServiceImpl<TaskLogDao, TaskLogPO> implements TaskLogStoreService {
+
+    @Override
+    public List<TaskLogPO> listByCursor(TaskLogQueryReq query, Date afterTime, Integer afterId, Integer maxId, int limit) {
+        boolean ascending = Boolean.TRUE.equals(query.getAscending());
+        QueryWrapper<TaskLogPO> wrapper = queryWrapper(query).le(ObjectUtils.notNull(maxId), "id", maxId);
+        // (create_time, id) > (afterTime, afterId)展开为or条件, 保证走索引范围扫描
+        if (ObjectUtils.notNull(afterTime)) {
+            if (ascending) {
+                wrapper.and(w -> w.gt("create_time", afterTime).or(o -> o.eq("create_time", afterTime).gt("id", afterId)));
+            } else {
+                wrapper.and(w -> w.lt("create_time", afterTime).or(o -> o.eq("create_time", afterTime).lt("id", afterId)));
+            }
+        }
+        return list(wrapper.orderBy(true, ascending, "create_time", "id").last("limit " + limit));
+    }
+
+    @Override
+    public List<TaskLogPO> listAfterId(TaskLogQueryReq query, int afterId, int limit) {
+        QueryWrapper<TaskLogPO> wrapper = queryWrapper(query).gt("id", afterId)
+                .apply("update_time < date_sub(now(), interval {0} second)", QuartzConstant.TASK_LOG_TAIL_SETTLE_SECONDS);
+        return list(wrapper.orderByAsc("id").last("limit " + limit));
+    }
+
+    @Override
+    public int maxSettledId() {
+        TaskLogPO logPo = getOne(new QueryWrapper<TaskLogPO>().select("id")
+                .apply("update_time < date_sub(now(), interval {0} second)", QuartzConstant.TASK_LOG_TAIL_SETTLE_SECONDS)
+                .orderByDesc("id").last("limit 1"), false);
+        return ObjectUtils.isNull(logPo) ? 0 : logPo.getId();
+    }
+
+    /**
+     * 查询条件(不含游标)
+     */
+    private QueryWrapper<TaskLogPO> queryWrapper(TaskLogQueryReq query) {
+        return new QueryWrapper<TaskLogPO>()
+                .select("id", "type", "thread", "class_name", "task", "content", "content_overflow", "event", "kv", "elapsed_ms",
+                        "fire_instance_id", "sequence",
+                        "trace_fingerprint", "trace_occurrence", "create_time")
+                .eq(ObjectUtils.notBlank(query.getTask()), "task", query.getTask())
+                .eq(ObjectUtils.notBlank(query.getLevel()), "type", query.getLevel())
+                .eq(ObjectUtils.notBlank(query.getEvent()), "event", query.getEvent())
+                .eq(ObjectUtils.notBlank(query.getFireInstanceId()), "fire_instance_id", query.getFireInstanceId())
+                .eq(ObjectUtils.notBlank(query.getTraceFingerprint()), "trace_fingerprint", query.getTraceFingerprint())
+                .ge(ObjectUtils.notNull(query.getStartTime()), "create_time", query.getStartTime())
+                .lt(ObjectUtils.notNull(query.getEndTime()), "create_time", query.getEndTime());
+    }
+
+    @Override
+    public void saveBatchIgnoreDuplicate(List<TaskLogPO> logs, int batchSize) {
+        for (int from = 0; from < logs.size(); from += batchSize) {
+            baseMapper.insertSkipDuplicateBatch(logs.subList(from, Math.min(from + batchSize, logs.size())));
+        }
+    }
 }
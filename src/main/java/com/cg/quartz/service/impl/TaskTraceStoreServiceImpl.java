@@ -0,0 +1,34 @@
+package com.cg.quartz.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cg.quartz.conf.TaskStoreConditional;
+import com.cg.quartz.dao.TaskTraceDao;
+import com.cg.quartz.entity.po.TaskTracePO;
+import com.cg.quartz.service.TaskTraceStoreService;
+import com.cg.quartz.utils.ObjectUtils;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Service;
+
+/**
+ * 定时任务异常栈持久化服务实现
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/27
+ */
+@Service
+@Conditional(TaskStoreConditional.class)
+public class TaskTraceStoreServiceImpl extends ServiceImpl<TaskTraceDao, TaskTracePO> implements TaskTraceStoreService {
+
+    @Override
+    public void upsertOccurrences(TaskTracePO trace) {
+        if (ObjectUtils.isNull(trace.getTrace())) {
+            update(new UpdateWrapper<TaskTracePO>()
+                    .setSql("occurrences = occurrences + " + trace.getOccurrences())
+                    .eq("fingerprint", trace.getFingerprint()));
+            return;
+        }
+        baseMapper.upsertOccurrences(trace);
+    }
+}
@@ -0,0 +1,269 @@
+package com.cg.quartz.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.cg.quartz.annotaion.CronExpression;
+import com.cg.quartz.annotaion.Task;
+import com.cg.quartz.annotaion.TaskLog;
+import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.entity.po.TaskLogPO;
+import com.cg.quartz.service.TaskLogStoreService;
+import com.cg.quartz.utils.CompressUtils;
+import com.cg.quartz.utils.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 任务日志清理任务
+ * <p>持久化模式按保留天数清理t_quartz_task_log过期日志, 内存模式下该任务停用</p>
+ * <pre>
+ *     保留天数优先级: 任务(quartz.log-retention-task-days) > 日志等级(quartz.log-retention-level-days) > 默认(quartz.log-retention-days)
+ *     按(create_time, id)顺序分批查询过期日志(走idx_create_time, 以上一批最后一条为起点), 按id删除, 批次间暂停, 避免长时间持有锁及binlog突增
+ *     配置归档目录时, 删除前将该批日志写入gzip压缩文件(每次执行一个文件, 制表符分隔, 超长日志输出解压后完整内容)
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/1
+ */
+@Slf4j
+@Task(description = "任务日志清理")
+@CronExpression(QuartzConstant.TASK_LOG_RETENTION_CRON)
+public class TaskLogRetentionTask {
+
+    /**
+     * 归档文件列
+     */
+    private static final String[] ARCHIVE_COLUMNS = {"id", "type", "thread", "class_name", "task", "content",
+            "event", "kv", "elapsed_ms", "trace_fingerprint", "trace_occurrence", "fire_instance_id", "sequence", "create_time"};
+
+    @Autowired(required = false)
+    private TaskLogStoreService logStoreService;
+
+    @Autowired
+    private Environment environment;
+
+    public void run() {
+        if (ObjectUtils.isNull(logStoreService)) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        int chunkSize = Math.max(environment.getProperty(QuartzConstant.LOG_RETENTION_CHUNK_SIZE, Integer.class, 500), QuartzConstant.ONE);
+        long pauseMs = Math.max(environment.getProperty(QuartzConstant.LOG_RETENTION_CHUNK_PAUSE_MS, Long.class, 200L), QuartzConstant.ZERO);
+        int defaultDays = environment.getProperty(QuartzConstant.LOG_RETENTION_DAYS, Integer.class, 30);
+        Map<String, Integer> levelDays = parseDays(environment.getProperty(QuartzConstant.LOG_RETENTION_LEVEL_DAYS));
+        Map<String, Integer> taskDays = parseDays(environment.getProperty(QuartzConstant.LOG_RETENTION_TASK_DAYS));
+        String archiveDir = environment.getProperty(QuartzConstant.LOG_RETENTION_ARCHIVE_DIR);
+
+        Purge purge = new Purge(chunkSize, pauseMs, archiveDir);
+        try {
+            // 按日志等级清理(排除单独配置保留天数的任务)
+            for (TaskLog.LogLevel level : TaskLog.LogLevel.values()) {
+                int days = levelDays.getOrDefault(level.name(), defaultDays);
+                if (days > 0 && !purge.purge(days, level.name(), null, taskDays.keySet())) {
+                    return;
+                }
+            }
+            // 按任务清理
+            for (Map.Entry<String, Integer> entry : taskDays.entrySet()) {
+                if (entry.getValue() > 0 && !purge.purge(entry.getValue(), null, entry.getKey(), Collections.emptySet())) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("[quartz], TaskLogRetentionTask execute catch a exception, caused by ==>", e);
+        } finally {
+            purge.close();
+            log.info("[quartz], task log retention completed, deleted={}, archive={}, consume {}ms",
+                    purge.deleted, purge.archiveFile, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 解析保留天数配置
+     *
+     * @param config 格式: key:days,key:days
+     * @return key -> days
+     */
+    private Map<String, Integer> parseDays(String config) {
+        if (ObjectUtils.isBlank(config)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> days = new LinkedHashMap<>(8);
+        for (String item : config.split(",")) {
+            int index = item.lastIndexOf(':');
+            if (index <= 0) {
+                log.warn("[quartz], ignore illegal log retention config: {}", item);
+                continue;
+            }
+            days.put(item.substring(0, index).trim(), Integer.parseInt(item.substring(index + 1).trim()));
+        }
+        return days;
+    }
+
+    /**
+     * 分批清理
+     */
+    private class Purge {
+
+        private final int chunkSize;
+
+        private final long pauseMs;
+
+        private final String archiveDir;
+
+        private File archiveFile;
+
+        private Writer archiveWriter;
+
+        private long deleted;
+
+        private Purge(int chunkSize, long pauseMs, String archiveDir) {
+            this.chunkSize = chunkSize;
+            this.pauseMs = pauseMs;
+            this.archiveDir = archiveDir;
+        }
+
+        /**
+         * 清理保留天数之前的日志
+         *
+         * @param days          保留天数
+         * @param type          日志等级(为null不限)
+         * @param task          任务名(为null不限)
+         * @param excludedTasks 排除的任务
+         * @return 是否继续(线程被中断返回false)
+         */
+        private boolean purge(int days, String type, String task, Collection<String> excludedTasks) throws IOException {
+            Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+            Date lastTime = null;
+            Integer lastId = null;
+            long purged = 0;
+            for (; ; ) {
+                Date afterTime = lastTime;
+                Integer afterId = lastId;
+                QueryWrapper<TaskLogPO> wrapper = new QueryWrapper<TaskLogPO>()
+                        .lt("create_time", cutoff)
+                        .eq(ObjectUtils.notNull(type), "type", type)
+                        .eq(ObjectUtils.notNull(task), "task", task)
+                        .notIn(ObjectUtils.notEmpty(excludedTasks), "task", excludedTasks)
+                        .and(ObjectUtils.notNull(afterTime), w -> w.gt("create_time", afterTime)
+                                .or(o -> o.eq("create_time", afterTime).gt("id", afterId)))
+                        .orderByAsc("create_time", "id")
+                        .last("limit " + chunkSize);
+                if (ObjectUtils.isBlank(archiveDir)) {
+                    wrapper.select("id", "create_time");
+                }
+                List<TaskLogPO> chunk = logStoreService.list(wrapper);
+                if (ObjectUtils.isEmpty(chunk)) {
+                    break;
+                }
+                archive(chunk);
+                logStoreService.removeByIds(chunk.stream().map(TaskLogPO::getId).collect(Collectors.toList()));
+                purged += chunk.size();
+                deleted += chunk.size();
+                TaskLogPO last = chunk.get(chunk.size() - 1);
+                lastTime = last.getCreateTime();
+                lastId = last.getId();
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("[quartz], task log retention interrupted, deleted={}", deleted);
+                    return false;
+                }
+            }
+            log.info("[quartz], purge task logs before {}, type={}, task={}, deleted={}", cutoff, type, task, purged);
+            return true;
+        }
+
+        /**
+         * 归档(删除前写入并刷新到文件)
+         */
+        private void archive(List<TaskLogPO> chunk) throws IOException {
+            if (ObjectUtils.isBlank(archiveDir)) {
+                return;
+            }
+            if (ObjectUtils.isNull(archiveWriter)) {
+                File directory = new File(archiveDir);
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("can not create archive directory " + directory);
+                }
+                archiveFile = new File(directory, "t_quartz_task_log-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".tsv.gz");
+                archiveWriter = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(new FileOutputStream(archiveFile), 8192, true), StandardCharsets.UTF_8));
+                archiveWriter.write(String.join("\t", ARCHIVE_COLUMNS));
+                archiveWriter.write('\n');
+            }
+            SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            for (TaskLogPO logPo : chunk) {
+                Object[] values = {logPo.getId(), logPo.getType(), logPo.getThread(), logPo.getClassName(), logPo.getTask(),
+                        ObjectUtils.notNull(logPo.getContentOverflow()) ? CompressUtils.inflate(logPo.getContentOverflow()) : logPo.getContent(),
+                        logPo.getEvent(), logPo.getKv(), logPo.getElapsedMs(), logPo.getTraceFingerprint(), logPo.getTraceOccurrence(),
+                        logPo.getFireInstanceId(), logPo.getSequence(),
+                        ObjectUtils.notNull(logPo.getCreateTime()) ? timeFormat.format(logPo.getCreateTime()) : null};
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        archiveWriter.write('\t');
+                    }
+                    archiveWriter.write(escape(values[i]));
+                }
+                archiveWriter.write('\n');
+            }
+            archiveWriter.flush();
+        }
+
+        private String escape(Object value) {
+            if (ObjectUtils.isNull(value)) {
+                return "\\N";
+            }
+            String text = value.toString();
+            StringBuilder builder = new StringBuilder(text.length() + 8);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            }
+            return builder.toString();
+        }
+
+        private void close() {
+            if (ObjectUtils.notNull(archiveWriter)) {
+                try {
+                    archiveWriter.close();
+                } catch (IOException e) {
+                    log.error("[quartz], close task log archive {} catch a exception, caused by ==>", archiveFile, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cg.quartz.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩工具类(deflate, UTF-8)
+ * <pre>
+ *     Deflater/Inflater线程复用, 避免每次压缩分配本地内存
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/5
+ */
+public class CompressUtils {
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private CompressUtils() {
+    }
+
+    /**
+     * 压缩文本
+     *
+     * @param text 文本
+     * @return deflate压缩后字节
+     */
+    public static byte[] deflate(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] output = new byte[Math.max(input.length / 4, 64)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        return Arrays.copyOf(output, length);
+    }
+
+    /**
+     * 解压文本
+     *
+     * @param bytes deflate压缩后字节
+     * @return 文本
+     */
+    public static String inflate(byte[] bytes) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(bytes);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+        byte[] buffer = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("truncated deflate data");
+                }
+                output.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("illegal deflate data", e);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,9 +1,16 @@
 package com.cg.quartz.utils;
 
 import com.cg.quartz.exception.ThrowingConsumer;
+import lombok.Builder;
+import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -14,6 +21,15 @@ import java.util.function.Consumer;
 public class ExceptionUtils {
     private static Logger logger = LoggerFactory.getLogger(ExceptionUtils.class);
 
+    /**
+     * 异常栈指纹最多计算的异常层数
+     */
+    private static final int MAX_FINGERPRINT_CAUSE_DEPTH = 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     /**
      * 受检异常处理
      * <pre>
@@ -133,55 +149,269 @@ public class ExceptionUtils {
      * @return 异常栈信息
      */
     private static String getExceptionStackTrace(Throwable t, String lineSeparator) {
+        return appendStackTrace(t, new StringBuilder(256), TraceOptions.builder().lineSeparator(lineSeparator).build()).toString();
+    }
+
+    /**
+     * 输出异常栈到指定Appendable
+     * <pre>
+     *     格式同Throwable#printStackTrace, 直接写入out, 不为每层异常创建中间字符串
+     *     1 每个异常最多输出maxFrames帧, 与外层异常相同的帧输出为"... n more"
+     *     2 连续属于collapsedPackages的帧合并为"... n frames of org.springframework."
+     *     3 最多输出maxCauseDepth层cause, 可选输出suppressed异常
+     *     4 输出总长度达到maxChars后停止输出(已输出内容按maxChars截断)
+     * </pre>
+     *
+     * @param t       异常信息
+     * @param out     输出目标(StringBuilder, Writer等)
+     * @param options 输出选项
+     * @param <A>     Appendable
+     * @return out
+     */
+    public static <A extends Appendable> A appendStackTrace(Throwable t, A out, TraceOptions options) {
         Assert.notNull(t, "Throwable is null");
-        StringBuilder strBuilder = new StringBuilder(256);
+        BoundedAppender appender = new BoundedAppender(out, options);
+        try {
+            appender.appendThrowable(t, null, "", "", 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * 异常栈输出选项
+     */
+    @Getter
+    @Builder
+    public static final class TraceOptions {
+
+        /**
+         * 每个异常最多输出帧数
+         */
+        @Builder.Default
+        private final int maxFrames = Integer.MAX_VALUE;
+
+        /**
+         * 输出最大字符数
+         */
+        @Builder.Default
+        private final int maxChars = Integer.MAX_VALUE;
+
+        /**
+         * 最多输出cause层数
+         */
+        @Builder.Default
+        private final int maxCauseDepth = 32;
+
+        /**
+         * 合并输出的包名前缀(如org.springframework.)
+         */
+        @Builder.Default
+        private final String[] collapsedPackages = new String[0];
+
+        /**
+         * 是否输出suppressed异常
+         */
+        @Builder.Default
+        private final boolean suppressed = true;
+
+        /**
+         * 换行分隔符(为空时使用操作系统分隔符)
+         */
+        private final String lineSeparator;
+    }
+
+    /**
+     * 限长输出
+     */
+    private static final class BoundedAppender {
+
+        private final Appendable out;
+
+        private final TraceOptions options;
+
+        private final String lineSeparator;
+
+        /**
+         * 剩余可输出字符数
+         */
+        private int remaining;
+
+        /**
+         * 已输出异常(防止循环引用)
+         */
+        private final Set<Throwable> printed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private BoundedAppender(Appendable out, TraceOptions options) {
+            this.out = out;
+            this.options = options;
+            this.lineSeparator = ObjectUtils.isBlank(options.getLineSeparator()) ? System.lineSeparator() : options.getLineSeparator();
+            this.remaining = Math.max(options.getMaxChars(), 0);
+        }
+
+        /**
+         * 输出异常及其suppressed, cause
+         *
+         * @param t         异常
+         * @param enclosing 外层异常栈(最外层为null)
+         * @param caption   标题(Caused by: / Suppressed: )
+         * @param prefix    缩进
+         * @param depth     cause层数
+         */
+        private void appendThrowable(Throwable t, StackTraceElement[] enclosing, String caption, String prefix, int depth) throws IOException {
+            if (!printed.add(t)) {
+                append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(String.valueOf(t)).append("]").newLine();
+                return;
+            }
+            append(prefix).append(caption).append(String.valueOf(t)).newLine();
+            StackTraceElement[] trace = t.getStackTrace();
+            int framesInCommon = 0;
+            int last = trace.length - 1;
+            if (enclosing != null) {
+                int n = enclosing.length - 1;
+                while (last >= 0 && n >= 0 && trace[last].equals(enclosing[n])) {
+                    last--;
+                    n--;
+                }
+                framesInCommon = trace.length - 1 - last;
+            }
+            appendFrames(trace, last + 1, prefix);
+            if (framesInCommon != 0) {
+                append(prefix).append("\t... ").append(framesInCommon).append(" more").newLine();
+            }
+            if (options.isSuppressed()) {
+                for (Throwable suppressed : t.getSuppressed()) {
+                    if (remaining == 0) {
+                        return;
+                    }
+                    appendThrowable(suppressed, trace, "Suppressed: ", prefix + "\t", depth);
+                }
+            }
+            Throwable cause = t.getCause();
+            if (cause != null && cause != t && remaining > 0) {
+                if (depth + 1 > options.getMaxCauseDepth()) {
+                    append(prefix).append("\t... cause chain truncated").newLine();
+                    return;
+                }
+                appendThrowable(cause, trace, "Caused by: ", prefix, depth + 1);
+            }
+        }
+
+        /**
+         * 输出前count帧(合并指定包的连续帧, 超过maxFrames省略)
+         */
+        private void appendFrames(StackTraceElement[] trace, int count, String prefix) throws IOException {
+            int printedFrames = 0;
+            int i = 0;
+            while (i < count && remaining > 0) {
+                if (printedFrames >= options.getMaxFrames()) {
+                    append(prefix).append("\t... ").append(count - i).append(" frames omitted").newLine();
+                    return;
+                }
+                String collapsed = collapsedPackage(trace[i]);
+                int end = i + 1;
+                if (collapsed != null) {
+                    while (end < count && trace[end].getClassName().startsWith(collapsed)) {
+                        end++;
+                    }
+                }
+                if (end - i > 1) {
+                    append(prefix).append("\t... ").append(end - i).append(" frames of ").append(collapsed).newLine();
+                } else {
+                    append(prefix).append("\tat ").append(trace[i].toString()).newLine();
+                }
+                printedFrames++;
+                i = end;
+            }
+        }
+
+        private String collapsedPackage(StackTraceElement element) {
+            for (String collapsedPackage : options.getCollapsedPackages()) {
+                if (element.getClassName().startsWith(collapsedPackage)) {
+                    return collapsedPackage;
+                }
+            }
+            return null;
+        }
 
-        // 首次异常信息(最外层异常信息)
-        strBuilder.append(t.toString()).append(lineSeparator);
-        StackTraceElement[] stackTraces = t.getStackTrace();
-        for (StackTraceElement stackTrace : stackTraces) {
-            strBuilder.append("\tat ").append(stackTrace).append(lineSeparator);
+        private BoundedAppender append(String value) throws IOException {
+            if (remaining > 0) {
+                int length = Math.min(value.length(), remaining);
+                out.append(value, 0, length);
+                remaining -= length;
+            }
+            return this;
+        }
+
+        private BoundedAppender append(int value) throws IOException {
+            return append(String.valueOf(value));
+        }
+
+        private void newLine() throws IOException {
+            append(lineSeparator);
         }
-        Throwable cause = (t == t.getCause() ? null : t.getCause());
-        if (ObjectUtils.notNull(cause)) {
-            strBuilder.append(getFullStackTrace(t.getStackTrace(), t.getCause(), lineSeparator));
+    }
+
+    /**
+     * 获取异常栈指纹
+     * <pre>
+     *     对异常链(最外层异常及cause, 最多MAX_FINGERPRINT_CAUSE_DEPTH层)的异常类名和每一帧的类名, 方法名做64位FNV-1a哈希
+     *     不包含异常信息和行号, 同一位置因不同参数抛出的异常指纹相同
+     *     类名归一化: 去除CGLIB/Lambda等运行时生成的后缀($$...), 动态代理类及反射生成的访问器类去除序号
+     * </pre>
+     *
+     * @param t 异常信息
+     * @return 16位十六进制指纹
+     */
+    public static String getFingerprint(Throwable t) {
+        Assert.notNull(t, "Throwable is null");
+        long hash = FNV_OFFSET_BASIS;
+        Throwable current = t;
+        for (int depth = 0; current != null && depth < MAX_FINGERPRINT_CAUSE_DEPTH; depth++) {
+            hash = fnv(hash, current.getClass().getName());
+            for (StackTraceElement element : current.getStackTrace()) {
+                hash = fnv(hash, normalizeClassName(element.getClassName()));
+                hash = fnv(hash, element.getMethodName());
+            }
+            Throwable cause = current.getCause();
+            current = cause == current ? null : cause;
         }
-        return strBuilder.toString();
+        String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
     }
 
     /**
-     * 递归获取完整异常栈
+     * 归一化栈帧类名
      *
-     * @param curStackTrace 当前栈
-     * @param cause         当前栈错误原因
-     * @param lineSeparator 日志分隔符
-     * @return 完整异常栈
+     * @param className 类名
+     * @return 归一化类名
      */
-    private static String getFullStackTrace(StackTraceElement[] curStackTrace, Throwable cause, String lineSeparator) {
-        StackTraceElement[] trace = cause.getStackTrace();
-        int m = trace.length - 1;
-        int n = curStackTrace.length - 1;
-        while (m >= 0 && n >= 0 && trace[m].equals(curStackTrace[n])) {
-            m--;
-            n--;
+    private static String normalizeClassName(String className) {
+        int generated = className.indexOf("$$");
+        if (generated > 0) {
+            return className.substring(0, generated);
         }
-        int framesInCommon = trace.length - 1 - m;
-        StringBuilder builder = new StringBuilder(32);
-        builder.append("Caused by: ").append(cause.toString()).append(lineSeparator);
-        for (int i = 0; i <= m; i++) {
-            builder.append("\tat ").append(trace[i]).append(lineSeparator);
+        if (className.startsWith("com.sun.proxy.$Proxy") || className.startsWith("jdk.proxy")) {
+            return "$Proxy";
         }
-        if (framesInCommon != 0) {
-            builder.append("\t... ").append(framesInCommon).append(" more").append(lineSeparator);
+        if (className.startsWith("sun.reflect.Generated") || className.startsWith("jdk.internal.reflect.Generated")) {
+            int end = className.length();
+            while (end > 0 && Character.isDigit(className.charAt(end - 1))) {
+                end--;
+            }
+            return className.substring(0, end);
         }
+        return className;
+    }
 
-        // 递归调用获取所有异常栈信息
-        Throwable ourCause = (cause == cause.getCause() ? null : cause.getCause());
-        if (ourCause != null) {
-            String stackTrace = getFullStackTrace(cause.getStackTrace(), cause, lineSeparator);
-            builder.append(stackTrace);
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
         }
-        return builder.toString();
+        // 分隔符, 避免"ab"+"c"与"a"+"bc"哈希相同
+        hash ^= '\n';
+        return hash * FNV_PRIME;
     }
-
-}
\ No newline at end of file
+}
@@ -1,8 +1,15 @@
 package com.cg.quartz.utils;
 
 import com.cg.quartz.constant.QuartzConstant;
+import com.cg.quartz.factory.TaskInvoker;
+import com.cg.quartz.factory.TaskInvokingJob;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
 import org.springframework.scheduling.quartz.MethodInvokingJobDetailFactoryBean;
 
+import java.util.Map;
+
 /**
  * 定时任务工具类
  * <pre>
@@ -71,4 +78,34 @@ public class QuartzTaskUtils {
         jobDetailFactoryBean.setGroup(jobGroup);
         return jobDetailFactoryBean;
     }
-}
\ No newline at end of file
+
+    /**
+     * 创建&#64;Task任务JobDetail
+     * <pre>
+     *     注册时绑定目标bean及方法(TaskInvoker), 执行时直接调用, 不再查找bean及反射调用
+     *     目标bean在注册时确定, prototype作用域的bean不会每次执行重新获取
+     *     指定上游任务(TaskInvokingJob#DEPENDS_ON_KEY)的任务没有cron触发器, 由上游完成时触发, JobDetail需持久保存(durable)
+     * </pre>
+     *
+     * @param taskName        任务名(JobKey.name)
+     * @param target          任务bean
+     * @param targetMethod    目标方法(无参public方法)
+     * @param allowConcurrent 是否允许并发执行
+     * @param description     任务描述
+     * @param jobData         任务执行选项(虚拟线程, 独立执行器, 上游任务等, key见TaskInvokingJob)
+     * @return JobDetail
+     * @throws NoSuchMethodException  目标方法不存在
+     * @throws IllegalAccessException 目标方法不可访问
+     */
+    public static JobDetail buildTaskJobDetail(String taskName, Object target, String targetMethod, boolean allowConcurrent, String description,
+                                               Map<String, ?> jobData) throws NoSuchMethodException, IllegalAccessException {
+        JobDataMap jobDataMap = new JobDataMap(jobData);
+        jobDataMap.put(TaskInvokingJob.INVOKER_KEY, TaskInvoker.bind(target, targetMethod));
+        return JobBuilder.newJob(allowConcurrent ? TaskInvokingJob.class : TaskInvokingJob.StatefulTaskInvokingJob.class)
+                .withIdentity(taskName, QuartzConstant.DEFAULT_JOB_GROUP)
+                .withDescription(description)
+                .usingJobData(jobDataMap)
+                .storeDurably(jobDataMap.containsKey(TaskInvokingJob.DEPENDS_ON_KEY))
+                .build();
+    }
+}
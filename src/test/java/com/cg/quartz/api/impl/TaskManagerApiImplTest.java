@@ -0,0 +1,230 @@
+package com.cg.quartz.api.impl;
+
+import com.cg.quartz.api.req.TaskLogQueryReq;
+import com.cg.quartz.api.resp.TaskLogPageResp;
+import com.cg.quartz.api.resp.TaskLogResp;
+import com.cg.quartz.api.result.RpcResult;
+import com.cg.quartz.constant.em.ResultEnum;
+import com.cg.quartz.entity.po.TaskLogPO;
+import com.cg.quartz.service.TaskLogStoreService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 任务日志游标分页测试(翻页, 翻页结束后按id拉取新日志)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/3
+ */
+public class TaskManagerApiImplTest {
+
+    private static final long BASE_TIME = 1614729600000L;
+
+    private static final Comparator<TaskLogPO> BY_TIME_ID = Comparator.comparing(TaskLogPO::getCreateTime).thenComparing(TaskLogPO::getId);
+
+    /**
+     * 日志表(id自增)
+     */
+    private final List<TaskLogPO> table = new ArrayList<>();
+
+    /**
+     * 已写入超过TASK_LOG_TAIL_SETTLE_SECONDS秒的最大id
+     */
+    private int settledId;
+
+    private TaskManagerApiImpl api;
+
+    @Before
+    public void setUp() throws Exception {
+        api = new TaskManagerApiImpl();
+        Field field = TaskManagerApiImpl.class.getDeclaredField("logStoreService");
+        field.setAccessible(true);
+        field.set(api, fakeStore());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        UnicastRemoteObject.unexportObject(api, true);
+    }
+
+    @Test
+    public void ascendingPagesVisitEveryLogOnce() {
+        // 日志时间与id顺序不一致, 翻页按(create_time, id)
+        for (int i = 0; i < 25; i++) {
+            insert(BASE_TIME + (i % 5) * 1000L);
+        }
+        settle();
+
+        List<Integer> visited = new ArrayList<>();
+        TaskLogPageResp page = page(null, true, 10);
+        visited.addAll(ids(page));
+        assertTrue(page.getHasMore());
+        page = page(page.getNextPageToken(), true, 10);
+        visited.addAll(ids(page));
+        assertTrue(page.getHasMore());
+        page = page(page.getNextPageToken(), true, 10);
+        visited.addAll(ids(page));
+        assertFalse(page.getHasMore());
+        // 翻页结束后返回按id拉取的游标
+        assertNotNull(page.getNextPageToken());
+
+        List<Integer> expected = table.stream().sorted(BY_TIME_ID).map(TaskLogPO::getId).collect(Collectors.toList());
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void logsWrittenWhilePagingArePulledByTail() {
+        for (int i = 0; i < 6; i++) {
+            insert(BASE_TIME + i * 1000L);
+        }
+        settle();
+        TaskLogPageResp page = page(null, true, 4);
+        assertEquals(4, page.getLogs().size());
+
+        // 翻页期间写入的日志(包括时间早于游标的迟到日志)不出现在翻页中
+        int late = insert(BASE_TIME);
+        int recent = insert(BASE_TIME + 10000L);
+        settle();
+        page = page(page.getNextPageToken(), true, 4);
+        assertEquals(2, page.getLogs().size());
+        assertFalse(page.getLogs().stream().anyMatch(log -> log.getId() == late || log.getId() == recent));
+
+        page = page(page.getNextPageToken(), true, 4);
+        List<Integer> expected = new ArrayList<>();
+        expected.add(late);
+        expected.add(recent);
+        assertEquals(expected, ids(page));
+        assertFalse(page.getHasMore());
+    }
+
+    @Test
+    public void tailKeepsTokenUntilNewLogsSettle() {
+        insert(BASE_TIME);
+        settle();
+        TaskLogPageResp page = page(null, true, 10);
+        String tailToken = page.getNextPageToken();
+
+        page = page(tailToken, true, 10);
+        assertTrue(page.getLogs().isEmpty());
+        assertEquals(tailToken, page.getNextPageToken());
+
+        // 未稳定的日志不拉取, 避免并发写入时未提交的较小id被跳过
+        int id = insert(BASE_TIME + 1000L);
+        page = page(tailToken, true, 10);
+        assertTrue(page.getLogs().isEmpty());
+        assertEquals(tailToken, page.getNextPageToken());
+
+        settle();
+        page = page(tailToken, true, 10);
+        assertEquals(1, page.getLogs().size());
+        assertEquals(id, page.getLogs().get(0).getId().intValue());
+    }
+
+    @Test
+    public void descendingPagingEndsWithoutToken() {
+        for (int i = 0; i < 5; i++) {
+            insert(BASE_TIME + i * 1000L);
+        }
+        settle();
+        TaskLogPageResp page = page(null, false, 3);
+        assertEquals(3, page.getLogs().size());
+        assertEquals(5, page.getLogs().get(0).getId().intValue());
+        assertTrue(page.getHasMore());
+
+        page = page(page.getNextPageToken(), false, 3);
+        List<Integer> expected = new ArrayList<>();
+        expected.add(2);
+        expected.add(1);
+        assertEquals(expected, ids(page));
+        assertFalse(page.getHasMore());
+        assertNull(page.getNextPageToken());
+    }
+
+    @Test
+    public void illegalTokenFails() {
+        TaskLogQueryReq query = new TaskLogQueryReq();
+        query.setPageToken("not-a-token");
+        RpcResult<TaskLogPageResp> result = api.listTaskLogs(query);
+        assertEquals(ResultEnum.RESPONSE_FAIL.getCode(), result.getCode());
+        assertTrue(result.getMessage().startsWith("illegal page token"));
+    }
+
+    private TaskLogPageResp page(String pageToken, boolean ascending, int pageSize) {
+        TaskLogQueryReq query = new TaskLogQueryReq();
+        query.setAscending(ascending);
+        query.setPageSize(pageSize);
+        query.setPageToken(pageToken);
+        RpcResult<TaskLogPageResp> result = api.listTaskLogs(query);
+        assertEquals(result.getMessage(), ResultEnum.RESPONSE_SUCCESS.getCode(), result.getCode());
+        return result.getData();
+    }
+
+    private static List<Integer> ids(TaskLogPageResp page) {
+        return page.getLogs().stream().map(TaskLogResp::getId).collect(Collectors.toList());
+    }
+
+    private int insert(long createTime) {
+        TaskLogPO logPo = new TaskLogPO("INFO", "worker", "com.cg.Task", "task", "m" + table.size());
+        logPo.setId(table.size() + 1);
+        logPo.setCreateTime(new Date(createTime));
+        table.add(logPo);
+        return logPo.getId();
+    }
+
+    private void settle() {
+        settledId = table.size();
+    }
+
+    /**
+     * 内存日志表, 按TaskLogStoreService约定的游标语义查询
+     */
+    private TaskLogStoreService fakeStore() {
+        return (TaskLogStoreService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{TaskLogStoreService.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "listByCursor":
+                            return listByCursor((TaskLogQueryReq) args[0], (Date) args[1], (Integer) args[2], (Integer) args[3], (Integer) args[4]);
+                        case "listAfterId":
+                            return table.stream().filter(logPo -> logPo.getId() > (Integer) args[1] && logPo.getId() <= settledId)
+                                    .limit((Integer) args[2]).collect(Collectors.toList());
+                        case "maxSettledId":
+                            return settledId;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private List<TaskLogPO> listByCursor(TaskLogQueryReq query, Date afterTime, Integer afterId, Integer maxId, int limit) {
+        boolean ascending = Boolean.TRUE.equals(query.getAscending());
+        Comparator<TaskLogPO> order = ascending ? BY_TIME_ID : BY_TIME_ID.reversed();
+        TaskLogPO cursor = null;
+        if (afterTime != null) {
+            cursor = new TaskLogPO();
+            cursor.setCreateTime(afterTime);
+            cursor.setId(afterId);
+        }
+        TaskLogPO after = cursor;
+        return table.stream()
+                .filter(logPo -> maxId == null || logPo.getId() <= maxId)
+                .filter(logPo -> after == null || order.compare(logPo, after) > 0)
+                .sorted(order).limit(limit).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.cg.quartz.factory;
+
+import com.cg.quartz.utils.QuartzTaskUtils;
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerContext;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.impl.triggers.CronTriggerImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.scheduling.quartz.MethodInvokingJobDetailFactoryBean;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * 任务调用耗时对比(MethodInvokingJobDetailFactoryBean与预绑定调用器), 不随单元测试执行
+ * <pre>
+ *     运行: mvn test-compile exec:java -Dexec.mainClass=com.cg.quartz.factory.TaskInvokerBenchmark -Dexec.classpathScope=test -Dexec.args=1000000
+ *     仅比较每次触发的调用开销(查找bean, 反射调用), 不包含调度器线程切换及任务日志
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/5
+ */
+public class TaskInvokerBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int fires = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("target", new RootBeanDefinition(Target.class));
+        Target target = beanFactory.getBean(Target.class);
+
+        MethodInvokingJobDetailFactoryBean factoryBean = new MethodInvokingJobDetailFactoryBean();
+        factoryBean.setTargetBeanName("target");
+        factoryBean.setTargetMethod("run");
+        factoryBean.setConcurrent(false);
+        factoryBean.setBeanName("target");
+        factoryBean.setBeanFactory(beanFactory);
+        factoryBean.afterPropertiesSet();
+        JobDetail springDetail = factoryBean.getObject();
+        JobDetail invokerDetail = QuartzTaskUtils.buildTaskJobDetail("target", target, "run", false, "", Collections.emptyMap());
+
+        JobExecutionContext springContext = context(springDetail);
+        JobExecutionContext invokerContext = context(invokerDetail);
+        Job springJob = springContext.getJobInstance();
+        Job invokerJob = invokerContext.getJobInstance();
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < fires; i++) {
+                springJob.execute(springContext);
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < fires; i++) {
+                invokerJob.execute(invokerContext);
+            }
+            long end = System.nanoTime();
+            System.out.printf("round %d: MethodInvokingJob %.1f ns/fire, TaskInvokingJob %.1f ns/fire%n",
+                    round, (middle - start) / (double) fires, (end - middle) / (double) fires);
+        }
+        System.out.println("invocations: " + target.count);
+    }
+
+    private static JobExecutionContext context(JobDetail jobDetail) throws Exception {
+        OperableTrigger trigger = new CronTriggerImpl("benchmark", "benchmark", "0/5 * * * * ?");
+        SchedulerContext schedulerContext = new SchedulerContext();
+        // MethodInvokingJob仅通过调度器获取SchedulerContext
+        Scheduler scheduler = (Scheduler) Proxy.newProxyInstance(TaskInvokerBenchmark.class.getClassLoader(),
+                new Class<?>[]{Scheduler.class}, (proxy, method, methodArgs) -> schedulerContext);
+        TriggerFiredBundle bundle = new TriggerFiredBundle(jobDetail, trigger, null, false, new Date(), null, null, null);
+        return new JobExecutionContextImpl(scheduler, bundle, jobDetail.getJobClass().newInstance());
+    }
+
+    public static class Target {
+
+        private long count;
+
+        public void run() {
+            count++;
+        }
+    }
+}
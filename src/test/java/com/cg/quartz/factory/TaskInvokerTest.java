@@ -0,0 +1,107 @@
+package com.cg.quartz.factory;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * 任务方法调用器测试(void方法, 有返回值方法, 非public类, 异常透传)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/5
+ */
+public class TaskInvokerTest {
+
+    @Test
+    public void voidMethodIsInvoked() throws Throwable {
+        PublicTask task = new PublicTask();
+        TaskInvoker invoker = TaskInvoker.bind(task, "run");
+        assertNull(invoker.invoke());
+        assertNull(invoker.invoke());
+        assertEquals(2, task.runs);
+        assertEquals(PublicTask.class.getName(), invoker.getTargetClass());
+        assertEquals("run", invoker.getTargetMethod());
+    }
+
+    @Test
+    public void returnValueIsKept() throws Throwable {
+        PublicTask task = new PublicTask();
+        assertEquals("result", TaskInvoker.bind(task, "result").invoke());
+        // 基本类型返回值装箱
+        assertEquals(42, TaskInvoker.bind(task, "primitive").invoke());
+    }
+
+    @Test
+    public void nonPublicClassFallsBackToMethodHandle() throws Throwable {
+        HiddenTask task = new HiddenTask();
+        TaskInvoker invoker = TaskInvoker.bind(task, "run");
+        assertNull(invoker.invoke());
+        assertEquals(1, task.runs);
+        assertEquals("hidden", TaskInvoker.bind(task, "result").invoke());
+    }
+
+    @Test
+    public void checkedExceptionIsPropagated() throws Throwable {
+        for (Object task : new Object[]{new PublicTask(), new HiddenTask()}) {
+            try {
+                TaskInvoker.bind(task, "fail").invoke();
+                fail("exception swallowed");
+            } catch (IOException e) {
+                assertEquals("io", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void missingMethodIsRejected() throws Exception {
+        try {
+            TaskInvoker.bind(new PublicTask(), "missing");
+            fail("bound a missing method");
+        } catch (NoSuchMethodException ignored) {
+            // 注册任务时即失败
+        }
+    }
+
+    public static class PublicTask {
+
+        private int runs;
+
+        public void run() {
+            runs++;
+        }
+
+        public String result() {
+            return "result";
+        }
+
+        public int primitive() {
+            return 42;
+        }
+
+        public void fail() throws IOException {
+            throw new IOException("io");
+        }
+    }
+
+    static class HiddenTask {
+
+        private int runs;
+
+        public void run() {
+            runs++;
+        }
+
+        public String result() {
+            return "hidden";
+        }
+
+        public void fail() throws IOException {
+            throw new IOException("io");
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.cg.quartz.listener;
+
+import com.cg.quartz.constant.em.ConcurrencyPolicy;
+import com.cg.quartz.factory.TaskInvokingJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.*;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.listeners.JobListenerSupport;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.lang.reflect.Field;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 任务信息登记测试(最大并发执行数准入: 跳过, 排队, 合并)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/9
+ */
+public class JobRegistryListenerTest {
+
+    private static final JobKey JOB_KEY = JobKey.jobKey("boundedJob");
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    private static final AtomicInteger PEAK = new AtomicInteger();
+
+    private static final Semaphore STARTED = new Semaphore(0);
+
+    private static volatile CountDownLatch release;
+
+    private final Semaphore vetoed = new Semaphore(0);
+
+    private final Semaphore executed = new Semaphore(0);
+
+    private Scheduler scheduler;
+
+    private JobRegistryListener registry;
+
+    @Before
+    public void setUp() throws Exception {
+        RUNS.set(0);
+        RUNNING.set(0);
+        PEAK.set(0);
+        STARTED.drainPermits();
+        release = new CountDownLatch(1);
+
+        Properties properties = new Properties();
+        properties.put("org.quartz.scheduler.instanceName", "jobRegistryTest");
+        properties.put("org.quartz.threadPool.threadCount", "6");
+        properties.put("org.quartz.scheduler.skipUpdateCheck", "true");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        registry = new JobRegistryListener();
+        inject(registry, "scheduler", scheduler);
+        inject(registry, "environment", new StandardEnvironment());
+        ListenerManager listenerManager = scheduler.getListenerManager();
+        listenerManager.addSchedulerListener(registry);
+        listenerManager.addTriggerListener(registry);
+        listenerManager.addJobListener(registry);
+        listenerManager.addJobListener(new JobListenerSupport() {
+            @Override
+            public String getName() {
+                return "counter";
+            }
+
+            @Override
+            public void jobExecutionVetoed(JobExecutionContext context) {
+                vetoed.release();
+            }
+
+            @Override
+            public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+                executed.release();
+            }
+        });
+        scheduler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    public void skipPolicyDropsFiresAboveLimit() throws Exception {
+        fireWhileSaturated(ConcurrencyPolicy.SKIP, 2);
+        assertTrue(executed.tryAcquire(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(1, RUNS.get());
+    }
+
+    @Test
+    public void queuePolicyRunsEveryQueuedFire() throws Exception {
+        fireWhileSaturated(ConcurrencyPolicy.QUEUE, 2);
+        assertTrue(executed.tryAcquire(3, 5, TimeUnit.SECONDS));
+        assertEquals(3, RUNS.get());
+        assertEquals(1, PEAK.get());
+    }
+
+    @Test
+    public void coalescePolicyRunsOnceForAllQueuedFires() throws Exception {
+        fireWhileSaturated(ConcurrencyPolicy.COALESCE, 3);
+        assertTrue(executed.tryAcquire(2, 5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(2, RUNS.get());
+        assertEquals(1, PEAK.get());
+    }
+
+    @Test
+    public void saturatedJobIsReportedBlocked() throws Exception {
+        scheduleBoundedJob(ConcurrencyPolicy.SKIP);
+        assertEquals(Trigger.TriggerState.NORMAL, registry.get(JOB_KEY).getTriggerState());
+        scheduler.triggerJob(JOB_KEY);
+        assertTrue(STARTED.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(Trigger.TriggerState.BLOCKED, registry.get(JOB_KEY).getTriggerState());
+        release.countDown();
+        assertTrue(executed.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(Trigger.TriggerState.NORMAL, registry.get(JOB_KEY).getTriggerState());
+    }
+
+    /**
+     * 第一次执行中再触发fires次(均被否决), 之后结束第一次执行
+     */
+    private void fireWhileSaturated(ConcurrencyPolicy policy, int fires) throws Exception {
+        scheduleBoundedJob(policy);
+        scheduler.triggerJob(JOB_KEY);
+        assertTrue(STARTED.tryAcquire(5, TimeUnit.SECONDS));
+        for (int i = 0; i < fires; i++) {
+            scheduler.triggerJob(JOB_KEY);
+        }
+        assertTrue(vetoed.tryAcquire(fires, 5, TimeUnit.SECONDS));
+        assertEquals(1, RUNS.get());
+        release.countDown();
+    }
+
+    private void scheduleBoundedJob(ConcurrencyPolicy policy) throws SchedulerException {
+        JobDetail jobDetail = JobBuilder.newJob(BlockingJob.class).withIdentity(JOB_KEY)
+                .usingJobData(TaskInvokingJob.MAX_CONCURRENCY_KEY, 1)
+                .usingJobData(TaskInvokingJob.CONCURRENCY_POLICY_KEY, policy.name())
+                .build();
+        // 远期cron触发器仅用于登记任务, 执行均由triggerJob触发
+        scheduler.scheduleJob(jobDetail, TriggerBuilder.newTrigger().withIdentity("boundedTrigger")
+                .withSchedule(CronScheduleBuilder.cronSchedule("0 0 0 1 1 ? 2099")).build());
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    public static class BlockingJob implements Job {
+
+        @Override
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            RUNS.incrementAndGet();
+            PEAK.accumulateAndGet(RUNNING.incrementAndGet(), Math::max);
+            STARTED.release();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.cg.quartz.listener;
+
+import com.cg.quartz.api.resp.WorkflowNodeResp;
+import com.cg.quartz.api.resp.WorkflowRunResp;
+import com.cg.quartz.constant.em.WorkflowStatus;
+import com.cg.quartz.exception.QuartzException;
+import com.cg.quartz.factory.TaskInvokingJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.*;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 任务依赖(工作流)监听器测试(运行, 失败跳过, 恢复, 暂停)
+ * <pre>
+ *     工作流: A -> B, A -> C, (B, C) -> D
+ * </pre>
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/3/11
+ */
+public class WorkflowJobListenerTest {
+
+    private static final long TIMEOUT_MS = 10000;
+
+    private static final List<String> EXECUTED = Collections.synchronizedList(new ArrayList<>());
+
+    private static final Set<String> FAILING = ConcurrentHashMap.newKeySet();
+
+    private Scheduler scheduler;
+
+    private WorkflowJobListener workflow;
+
+    @Before
+    public void setUp() throws Exception {
+        EXECUTED.clear();
+        FAILING.clear();
+        Properties properties = new Properties();
+        properties.put("org.quartz.scheduler.instanceName", "workflowTest");
+        properties.put("org.quartz.threadPool.threadCount", "6");
+        properties.put("org.quartz.scheduler.skipUpdateCheck", "true");
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+        JobRegistryListener registry = new JobRegistryListener();
+        inject(registry, "scheduler", scheduler);
+        inject(registry, "environment", new StandardEnvironment());
+        workflow = new WorkflowJobListener();
+        inject(workflow, "scheduler", scheduler);
+        inject(workflow, "environment", new StandardEnvironment());
+        inject(workflow, "jobRegistry", registry);
+        ListenerManager listenerManager = scheduler.getListenerManager();
+        listenerManager.addSchedulerListener(registry);
+        listenerManager.addTriggerListener(registry);
+        listenerManager.addJobListener(registry);
+        listenerManager.addSchedulerListener(workflow);
+        listenerManager.addJobListener(workflow);
+
+        Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<>();
+        JobDetail entry = job("A", null);
+        jobs.put(entry, Collections.singleton(TriggerBuilder.newTrigger().withIdentity("A").forJob(entry)
+                .withSchedule(CronScheduleBuilder.cronSchedule("0 0 0 1 1 ? 2099")).build()));
+        jobs.put(job("B", "A"), Collections.emptySet());
+        jobs.put(job("C", " A , "), Collections.emptySet());
+        // 未加载的上游任务忽略
+        jobs.put(job("D", "B,C,Missing"), Collections.emptySet());
+        scheduler.scheduleJobs(jobs, false);
+        scheduler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    public void downstreamRunsAfterAllUpstreamsSucceed() throws Exception {
+        WorkflowRunResp run = runEntry();
+        assertEquals(WorkflowStatus.SUCCESS, run.getStatus());
+        assertEquals("A,B,C,D", String.join(",", sorted(EXECUTED)));
+        assertEquals("A", EXECUTED.get(0));
+        assertEquals("D", EXECUTED.get(3));
+        for (WorkflowNodeResp node : run.getNodes()) {
+            assertEquals(WorkflowStatus.SUCCESS, node.getStatus());
+        }
+        assertEquals(Arrays.asList("B", "C"), node(run, "D").getDependsOn());
+    }
+
+    @Test
+    public void failedJobSkipsDownstreamsAndCanBeResumed() throws Exception {
+        FAILING.add("C");
+        WorkflowRunResp run = runEntry();
+        assertEquals(WorkflowStatus.FAILED, run.getStatus());
+        assertEquals(WorkflowStatus.SUCCESS, node(run, "B").getStatus());
+        assertEquals(WorkflowStatus.FAILED, node(run, "C").getStatus());
+        assertEquals(WorkflowStatus.SKIPPED, node(run, "D").getStatus());
+        assertFalse(EXECUTED.contains("D"));
+
+        FAILING.clear();
+        EXECUTED.clear();
+        assertEquals(Collections.singletonList("C"), workflow.resume(run.getRunId()));
+        run = awaitFinished(run.getRunId());
+        assertEquals(WorkflowStatus.SUCCESS, run.getStatus());
+        assertEquals(1, run.getResumed().intValue());
+        // 已成功的任务不再执行
+        assertEquals(Arrays.asList("C", "D"), EXECUTED);
+    }
+
+    @Test
+    public void pausedJobIsSkippedAndResumedAfterResume() throws Exception {
+        scheduler.pauseJob(JobKey.jobKey("D"));
+        WorkflowRunResp run = runEntry();
+        assertEquals(WorkflowStatus.FAILED, run.getStatus());
+        assertEquals(WorkflowStatus.SKIPPED, node(run, "D").getStatus());
+        assertEquals("job paused", node(run, "D").getError());
+        assertFalse(EXECUTED.contains("D"));
+
+        scheduler.resumeJob(JobKey.jobKey("D"));
+        EXECUTED.clear();
+        assertEquals(Collections.singletonList("D"), workflow.resume(run.getRunId()));
+        run = awaitFinished(run.getRunId());
+        assertEquals(WorkflowStatus.SUCCESS, run.getStatus());
+        assertEquals(Collections.singletonList("D"), EXECUTED);
+    }
+
+    @Test
+    public void onlyFailedRunCanBeResumed() throws Exception {
+        WorkflowRunResp run = runEntry();
+        try {
+            workflow.resume(run.getRunId());
+            fail("resumed a successful run");
+        } catch (QuartzException e) {
+            assertTrue(e.getMessage().contains("only failed workflow run can be resumed"));
+        }
+    }
+
+    @Test
+    public void downstreamFiredAloneDoesNotStartRun() throws Exception {
+        scheduler.triggerJob(JobKey.jobKey("D"));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!EXECUTED.contains("D") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(Collections.singletonList("D"), EXECUTED);
+        assertTrue(workflow.listRuns().isEmpty());
+    }
+
+    private WorkflowRunResp runEntry() throws Exception {
+        scheduler.triggerJob(JobKey.jobKey("A"));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (workflow.listRuns().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, workflow.listRuns().size());
+        return awaitFinished(workflow.listRuns().get(0).getRunId());
+    }
+
+    private WorkflowRunResp awaitFinished(String runId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        WorkflowRunResp run = workflow.getRun(runId);
+        while (!run.getStatus().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            run = workflow.getRun(runId);
+        }
+        assertTrue("workflow run not finished: " + run, run.getStatus().isFinished());
+        return run;
+    }
+
+    private static WorkflowNodeResp node(WorkflowRunResp run, String jobName) {
+        return run.getNodes().stream().filter(node -> jobName.equals(node.getJobName())).findFirst()
+                .orElseThrow(() -> new AssertionError("node not found: " + jobName));
+    }
+
+    private static List<String> sorted(List<String> names) {
+        List<String> copy = new ArrayList<>(names);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static JobDetail job(String name, String dependsOn) {
+        JobBuilder builder = JobBuilder.newJob(StepJob.class).withIdentity(name);
+        if (dependsOn != null) {
+            builder.usingJobData(TaskInvokingJob.DEPENDS_ON_KEY, dependsOn).storeDurably();
+        }
+        return builder.build();
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    public static class StepJob implements Job {
+
+        @Override
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            String name = context.getJobDetail().getKey().getName();
+            EXECUTED.add(name);
+            if (FAILING.contains(name)) {
+                throw new JobExecutionException(new IllegalStateException(name + " failed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cg.quartz.log;
+
+import org.junit.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 任务日志模版格式化测试(与SLF4J MessageFormatter输出一致)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/23
+ */
+public class TaskLogFormatterTest {
+
+    private static final int MAX_LENGTH = 4096;
+
+    @Test
+    public void placeholdersMatchSlf4j() {
+        assertSameAsSlf4j("no placeholder");
+        assertSameAsSlf4j("no placeholder", "ignored");
+        assertSameAsSlf4j("a={}", 1);
+        assertSameAsSlf4j("a={}, b={}", 1, "two");
+        assertSameAsSlf4j("a={}, b={}, c={}", 1, 2, 3);
+        assertSameAsSlf4j("{}{}{}", "x", "y", "z");
+        assertSameAsSlf4j("{} at start and end {}", "s", "e");
+        assertSameAsSlf4j("null arg={}", (Object) null);
+        assertSameAsSlf4j("braces { } {x} and {}", "v");
+    }
+
+    @Test
+    public void missingArgumentsKeepPlaceholders() {
+        assertSameAsSlf4j("a={}, b={}, c={}", 1);
+        assertSameAsSlf4j("a={}, b={}, c=\\{}", 1);
+        assertSameAsSlf4j("a={}, b={}", 1, 2, 3);
+    }
+
+    @Test
+    public void escapedPlaceholdersMatchSlf4j() {
+        assertSameAsSlf4j("escaped \\{} and {}", "v");
+        assertSameAsSlf4j("double escaped \\\\{}", "v");
+        assertSameAsSlf4j("\\{}\\{}{}", "v");
+        assertSameAsSlf4j("path C:\\\\{} end", "dir");
+        assertSameAsSlf4j("escaped only \\{}");
+    }
+
+    @Test
+    public void arraysAreExpanded() {
+        assertSameAsSlf4j("ints={}", new Object[]{new int[]{1, 2}});
+        assertSameAsSlf4j("longs={}, bytes={}", new long[]{1L}, new byte[]{2});
+        assertSameAsSlf4j("nested={}", new Object[]{new Object[]{"a", new String[]{"b"}}});
+        assertSameAsSlf4j("chars={}, booleans={}, doubles={}", new char[]{'c'}, new boolean[]{true}, new double[]{1.5});
+    }
+
+    @Test
+    public void failingToStringDoesNotBreakLog() {
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("broken");
+            }
+        };
+        assertEquals("v=[FAILED toString()]", TaskLogFormatter.format("v={}", new Object[]{broken}, MAX_LENGTH));
+    }
+
+    @Test
+    public void twoArgumentFormMatchesArrayForm() {
+        assertEquals("a=1, b=2", TaskLogFormatter.format("a={}, b={}", 1, 2, null, 2, MAX_LENGTH));
+        assertEquals("a=1, b={}", TaskLogFormatter.format("a={}, b={}", 1, null, null, 1, MAX_LENGTH));
+        assertEquals("a={}", TaskLogFormatter.format("a={}", null, null, null, 0, MAX_LENGTH));
+        assertNull(TaskLogFormatter.format(null, 1, 2, null, 2, MAX_LENGTH));
+    }
+
+    @Test
+    public void trailingThrowableIsCandidate() {
+        IllegalStateException e = new IllegalStateException("boom");
+        assertSame(e, TaskLogFormatter.throwableCandidate("a", e, null, 2));
+        assertSame(e, TaskLogFormatter.throwableCandidate(e, null, null, 1));
+        assertSame(e, TaskLogFormatter.throwableCandidate(null, null, new Object[]{1, 2, e}, 3));
+        assertNull(TaskLogFormatter.throwableCandidate(e, "a", null, 2));
+        assertNull(TaskLogFormatter.throwableCandidate(null, null, null, 0));
+        // 异常不参与填充, 与SLF4J一致
+        assertEquals(MessageFormatter.arrayFormat("a={}, b={}", new Object[]{1, e}).getMessage(),
+                TaskLogFormatter.format("a={}, b={}", 1, null, null, 1, MAX_LENGTH));
+    }
+
+    @Test
+    public void contentIsTruncated() {
+        assertEquals("a=12", TaskLogFormatter.format("a={}", new Object[]{"123456"}, 4));
+        assertEquals("abc", TaskLogFormatter.truncate("abcdef", 3));
+        assertEquals("abc", TaskLogFormatter.truncate("abc", 3));
+        assertNull(TaskLogFormatter.truncate((String) null, 3));
+    }
+
+    private static void assertSameAsSlf4j(String format, Object... args) {
+        String expected = MessageFormatter.arrayFormat(format, args).getMessage();
+        assertEquals(format, expected, TaskLogFormatter.format(format, args, MAX_LENGTH));
+        // 格式已缓存时输出一致
+        assertEquals(format, expected, TaskLogFormatter.format(format, args, MAX_LENGTH));
+    }
+}
@@ -0,0 +1,159 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.annotaion.TaskLog;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 任务日志环形缓冲区测试(占用/发布/读取/归还)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/24
+ */
+public class TaskLogRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(2, new TaskLogRingBuffer(0).capacity());
+        assertEquals(8, new TaskLogRingBuffer(5).capacity());
+        assertEquals(1024, new TaskLogRingBuffer(1024).capacity());
+    }
+
+    @Test
+    public void claimedSlotIsInvisibleUntilPublished() {
+        TaskLogRingBuffer ringBuffer = new TaskLogRingBuffer(4);
+        TaskLogEvent event = ringBuffer.tryClaim();
+        assertNotNull(event);
+        assertEquals(1, ringBuffer.size());
+        assertFalse(ringBuffer.hasPublished());
+        assertNull(ringBuffer.tryTake());
+
+        event.level = TaskLog.LogLevel.WARN;
+        TaskLogRingBuffer.publish(event);
+        assertTrue(ringBuffer.hasPublished());
+        TaskLogEvent taken = ringBuffer.tryTake();
+        assertSame(event, taken);
+        assertEquals(TaskLog.LogLevel.WARN, taken.level);
+        assertFalse(ringBuffer.hasPublished());
+        ringBuffer.release(taken);
+        assertEquals(0, ringBuffer.size());
+    }
+
+    @Test
+    public void fullBufferRejectsClaimUntilReleased() {
+        TaskLogRingBuffer ringBuffer = new TaskLogRingBuffer(4);
+        List<TaskLogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            TaskLogEvent event = ringBuffer.tryClaim();
+            assertNotNull(event);
+            events.add(event);
+        }
+        assertNull(ringBuffer.tryClaim());
+        assertEquals(4, ringBuffer.size());
+
+        // 已读取未归还的槽位仍不可占用
+        events.forEach(TaskLogRingBuffer::publish);
+        TaskLogEvent taken = ringBuffer.tryTake();
+        assertNull(ringBuffer.tryClaim());
+        ringBuffer.release(taken);
+        TaskLogEvent reused = ringBuffer.tryClaim();
+        assertSame(taken, reused);
+        assertNull(reused.level);
+    }
+
+    @Test
+    public void laterPublishWaitsForEarlierSlot() {
+        TaskLogRingBuffer ringBuffer = new TaskLogRingBuffer(4);
+        TaskLogEvent first = ringBuffer.tryClaim();
+        TaskLogEvent second = ringBuffer.tryClaim();
+        TaskLogRingBuffer.publish(second);
+        // 按占用顺序读取, 先占用的槽位未发布时后续已发布槽位不可读取
+        assertFalse(ringBuffer.hasPublished());
+        assertNull(ringBuffer.tryTake());
+        TaskLogRingBuffer.publish(first);
+        assertSame(first, ringBuffer.tryTake());
+        assertSame(second, ringBuffer.tryTake());
+    }
+
+    @Test
+    public void slotsAreReusedAcrossWraps() {
+        TaskLogRingBuffer ringBuffer = new TaskLogRingBuffer(2);
+        for (int i = 0; i < 10; i++) {
+            TaskLogEvent event = ringBuffer.tryClaim();
+            assertNotNull(event);
+            event.message = "m" + i;
+            TaskLogRingBuffer.publish(event);
+            TaskLogEvent taken = ringBuffer.tryTake();
+            assertEquals("m" + i, taken.message);
+            ringBuffer.release(taken);
+        }
+        assertEquals(0, ringBuffer.size());
+    }
+
+    @Test
+    public void concurrentProducersAndConsumersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 20000;
+        TaskLogRingBuffer ringBuffer = new TaskLogRingBuffer(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+        CountDownLatch done = new CountDownLatch(producers);
+        List<Integer> consumed = Collections.synchronizedList(new ArrayList<>());
+        try {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                executor.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        TaskLogEvent event;
+                        while ((event = ringBuffer.tryClaim()) == null) {
+                            Thread.yield();
+                        }
+                        event.argCount = base + i;
+                        TaskLogRingBuffer.publish(event);
+                    }
+                    done.countDown();
+                });
+            }
+            for (int c = 0; c < 2; c++) {
+                executor.execute(() -> {
+                    while (consumed.size() < producers * perProducer) {
+                        TaskLogEvent event = ringBuffer.tryTake();
+                        if (event == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        consumed.add(event.argCount);
+                        ringBuffer.release(event);
+                    }
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 30000;
+            while (consumed.size() < producers * perProducer && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(producers * perProducer, consumed.size());
+        boolean[] seen = new boolean[producers * perProducer];
+        for (int value : consumed) {
+            assertFalse("duplicated " + value, seen[value]);
+            seen[value] = true;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.cg.quartz.log;
+
+import com.cg.quartz.entity.po.TaskLogPO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 任务日志溢出文件测试(记录编码/解析, 检查点)
+ *
+ * @author chunge
+ * @version 1.0
+ * @date 2021/2/26
+ */
+public class TaskLogSpillJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    private TaskLogSpillJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("spill");
+        journal = new TaskLogSpillJournal(directory, SEGMENT_SIZE, 8);
+    }
+
+    @After
+    public void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    public void recordRoundTripKeepsEveryField() throws IOException {
+        TaskLogPO full = log(1);
+        full.setContentOverflow(new byte[]{1, 2, 3});
+        full.setEvent("order.paid");
+        full.setKv("{\"orderId\":1}");
+        full.setElapsedMs(0L);
+        full.setFireInstanceId("fire-1");
+        full.setSequence(7);
+        full.setTraceFingerprint("fp");
+        full.setTraceOccurrence(3L);
+        TaskLogPO sparse = new TaskLogPO("ERROR", "t", null, "task", null);
+        sparse.setCreateTime(new Date(1000L));
+
+        assertEquals(2, journal.append(Arrays.asList(full, sparse)));
+        List<TaskLogPO> logs = journal.read(10).logs;
+        assertEquals(2, logs.size());
+        assertLogEquals(full, logs.get(0));
+        assertLogEquals(sparse, logs.get(1));
+    }
+
+    @Test
+    public void readDoesNotMoveCheckpointUntilCommit() throws IOException {
+        journal.append(logs(0, 5));
+        assertTrue(journal.hasPending());
+        TaskLogSpillJournal.Batch first = journal.read(2);
+        assertEquals(contents(first.logs), contents(journal.read(2).logs));
+        assertEquals(Arrays.asList("m0", "m1"), contents(first.logs));
+
+        journal.commit(first);
+        TaskLogSpillJournal.Batch rest = journal.read(10);
+        assertEquals(Arrays.asList("m2", "m3", "m4"), contents(rest.logs));
+        assertTrue(journal.hasPending());
+        journal.commit(rest);
+        assertFalse(journal.hasPending());
+        assertTrue(journal.read(10).logs.isEmpty());
+    }
+
+    @Test
+    public void checkpointSurvivesReopen() throws IOException {
+        journal.append(logs(0, 5));
+        journal.commit(journal.read(2));
+        journal.close();
+
+        journal = new TaskLogSpillJournal(directory, SEGMENT_SIZE, 8);
+        assertTrue(journal.hasPending());
+        journal.append(logs(5, 2));
+        TaskLogSpillJournal.Batch batch = journal.read(10);
+        assertEquals(Arrays.asList("m2", "m3", "m4", "m5", "m6"), contents(batch.logs));
+        journal.commit(batch);
+        assertFalse(journal.hasPending());
+        journal.close();
+
+        // 检查点所在分段已回放完, 重新打开后读取到空批次, 提交后删除该分段
+        journal = new TaskLogSpillJournal(directory, SEGMENT_SIZE, 8);
+        batch = journal.read(10);
+        assertTrue(batch.logs.isEmpty());
+        journal.commit(batch);
+        assertFalse(journal.hasPending());
+        assertEquals(1, journal.segmentCount());
+    }
+
+    @Test
+    public void segmentsRollOverAndAreDeletedAfterReplay() throws IOException {
+        journal.close();
+        journal = new TaskLogSpillJournal(directory, 512, 64);
+        assertEquals(50, journal.append(logs(0, 50)));
+        assertTrue(journal.segmentCount() > 1);
+
+        List<String> replayed = new ArrayList<>();
+        TaskLogSpillJournal.Batch batch;
+        while (!(batch = journal.read(7)).logs.isEmpty()) {
+            replayed.addAll(contents(batch.logs));
+            journal.commit(batch);
+        }
+        assertEquals(contents(logs(0, 50)), replayed);
+        assertEquals(1, journal.segmentCount());
+    }
+
+    @Test
+    public void fullJournalRejectsRemainingLogs() throws IOException {
+        journal.close();
+        journal = new TaskLogSpillJournal(directory, 512, 2);
+        int appended = journal.append(logs(0, 50));
+        assertTrue(appended > 0 && appended < 50);
+        assertEquals(contents(logs(0, appended)), contents(journal.read(100).logs));
+    }
+
+    @Test
+    public void corruptedRecordSkipsRestOfSegment() throws IOException {
+        journal.append(logs(0, 3));
+        journal.close();
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".seg"));
+        assertEquals(1, segments.length);
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            // 分段头(8) + 第一条记录, 第二条记录内容翻转一个字节
+            int first = readInt(file, 8);
+            int second = 8 + 8 + first;
+            file.seek(second + 8 + 2);
+            int value = file.read();
+            file.seek(second + 8 + 2);
+            file.write(value ^ 0xFF);
+        }
+
+        journal = new TaskLogSpillJournal(directory, SEGMENT_SIZE, 8);
+        TaskLogSpillJournal.Batch batch = journal.read(10);
+        assertEquals(Collections.singletonList("m0"), contents(batch.logs));
+        journal.commit(batch);
+        assertFalse(journal.hasPending());
+    }
+
+    private static int readInt(RandomAccessFile file, long position) throws IOException {
+        file.seek(position);
+        return file.readInt();
+    }
+
+    private static TaskLogPO log(int i) {
+        TaskLogPO logPo = new TaskLogPO("INFO", "worker-" + i, "com.cg.Task", "task", "m" + i);
+        logPo.setCreateTime(new Date(1614297600000L + i));
+        return logPo;
+    }
+
+    private static List<TaskLogPO> logs(int from, int count) {
+        List<TaskLogPO> logs = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            logs.add(log(i));
+        }
+        return logs;
+    }
+
+    private static List<String> contents(List<TaskLogPO> logs) {
+        List<String> contents = new ArrayList<>(logs.size());
+        logs.forEach(logPo -> contents.add(logPo.getContent()));
+        return contents;
+    }
+
+    private static void assertLogEquals(TaskLogPO expected, TaskLogPO actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getThread(), actual.getThread());
+        assertEquals(expected.getClassName(), actual.getClassName());
+        assertEquals(expected.getTask(), actual.getTask());
+        assertEquals(expected.getContent(), actual.getContent());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+        assertEquals(expected.getTraceFingerprint(), actual.getTraceFingerprint());
+        assertEquals(expected.getTraceOccurrence(), actual.getTraceOccurrence());
+        assertEquals(expected.getFireInstanceId(), actual.getFireInstanceId());
+        assertEquals(expected.getSequence(), actual.getSequence());
+        assertArrayEquals(expected.getContentOverflow(), actual.getContentOverflow());
+        assertEquals(expected.getEvent(), actual.getEvent());
+        assertEquals(expected.getKv(), actual.getKv());
+        assertEquals(expected.getElapsedMs(), actual.getElapsedMs());
+        assertNull(actual.getId());
+    }
+}